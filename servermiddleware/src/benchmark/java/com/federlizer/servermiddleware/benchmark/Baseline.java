@@ -0,0 +1,213 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import com.federlizer.servermiddleware.json.IsoDates;
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The encoders and decoders the benchmarks are measured against: JSONObject/JSONArray trees turned into
+ * a String and then into bytes, and responses read into a String and parsed into a tree before building the models.
+ * Kept as they are on purpose, so the numbers stay comparable while the real encoders and decoders change.
+ */
+final class Baseline {
+    static byte[] newProject(Project project) throws JSONException {
+        JSONObject reqBody = new JSONObject();
+        reqBody.put("title", project.title);
+        reqBody.put("private", project.isPrivate);
+        if (project.publicDescription != null && !project.publicDescription.isEmpty()) {
+            reqBody.put("publicDescription", project.publicDescription);
+        }
+        if (project.privateDescription != null && !project.privateDescription.isEmpty()) {
+            reqBody.put("privateDescription", project.privateDescription);
+        }
+        if (project.interests != null && !project.interests.isEmpty()) {
+            reqBody.put("interests", new JSONArray(project.interests));
+        }
+        if (project.skills != null && !project.skills.isEmpty()) {
+            reqBody.put("skills", new JSONArray(project.skills));
+        }
+        return reqBody.toString().getBytes();
+    }
+
+    static byte[] projectUpdate(Project project) throws JSONException {
+        JSONObject reqBody = new JSONObject();
+        if (project.title != null && !project.title.isEmpty()) {
+            reqBody.put("title", project.title);
+        }
+        if (project.publicDescription != null && !project.publicDescription.isEmpty()) {
+            reqBody.put("publicDescription", project.publicDescription);
+        }
+        if (project.privateDescription != null && !project.privateDescription.isEmpty()) {
+            reqBody.put("privateDescription", project.privateDescription);
+        }
+        if (project.isPrivate != null) {
+            reqBody.put("private", project.isPrivate);
+        }
+        if (project.interests != null && !project.interests.isEmpty()) {
+            reqBody.put("interests", new JSONArray(project.interests));
+        }
+        if (project.skills != null && !project.skills.isEmpty()) {
+            reqBody.put("skills", new JSONArray(project.skills));
+        }
+        return reqBody.toString().getBytes();
+    }
+
+    static byte[] profile(Profile profile) throws JSONException {
+        JSONObject reqBody = new JSONObject();
+        if (profile.firstName != null && !profile.firstName.isEmpty()) {
+            reqBody.put("firstName", profile.firstName);
+        }
+        if (profile.lastName != null && !profile.lastName.isEmpty()) {
+            reqBody.put("lastName", profile.lastName);
+        }
+        if (profile.interests != null && !profile.interests.isEmpty()) {
+            reqBody.put("interests", new JSONArray(profile.interests));
+        }
+        if (profile.skills != null && !profile.skills.isEmpty()) {
+            reqBody.put("skills", new JSONArray(profile.skills));
+        }
+        if (profile.educations != null && !profile.educations.isEmpty()) {
+            JSONArray educations = new JSONArray();
+            for (Education education : profile.educations) {
+                JSONObject json = new JSONObject();
+                json.put("instituteName", education.instituteName);
+                json.put("degree", education.degree);
+                json.put("fieldOfStudy", education.fieldOfStudy);
+                json.put("fromDate", IsoDates.format(education.fromDate));
+                json.put("endDate", IsoDates.format(education.endDate));
+                json.put("description", education.description);
+                educations.put(json);
+            }
+            reqBody.put("education", educations);
+        }
+        if (profile.pastExperiences != null && !profile.pastExperiences.isEmpty()) {
+            JSONArray pastExperiences = new JSONArray();
+            for (PastExperience pastExperience : profile.pastExperiences) {
+                JSONObject json = new JSONObject();
+                json.put("company", pastExperience.company);
+                json.put("jobTitle", pastExperience.jobTitle);
+                json.put("location", pastExperience.location);
+                json.put("fromDate", IsoDates.format(pastExperience.fromDate));
+                json.put("endDate", IsoDates.format(pastExperience.endDate));
+                json.put("description", pastExperience.description);
+                pastExperiences.put(json);
+            }
+            reqBody.put("pastExperience", pastExperiences);
+        }
+        if (profile.github != null && !profile.github.isEmpty()) {
+            reqBody.put("github", profile.github);
+        }
+        if (profile.facebook != null && !profile.facebook.isEmpty()) {
+            reqBody.put("facebook", profile.facebook);
+        }
+        if (profile.instagram != null && !profile.instagram.isEmpty()) {
+            reqBody.put("instagram", profile.instagram);
+        }
+        if (profile.linkedIn != null && !profile.linkedIn.isEmpty()) {
+            reqBody.put("linkedin", profile.linkedIn);
+        }
+        if (profile.twitter != null && !profile.twitter.isEmpty()) {
+            reqBody.put("twitter", profile.twitter);
+        }
+        return reqBody.toString().getBytes();
+    }
+
+    static List<Project> projectList(InputStream body) throws IOException, JSONException {
+        JSONArray array = new JSONArray(readString(body));
+        List<Project> projects = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            projects.add(new Project(
+                    json.getString("_id"),
+                    json.getString("title"),
+                    json.optString("publicDescription", null),
+                    json.optString("privateDescription", null),
+                    strings(json.optJSONArray("interests")),
+                    strings(json.optJSONArray("skills")),
+                    json.getBoolean("private")
+            ));
+        }
+        return projects;
+    }
+
+    static Profile profile(InputStream body) throws IOException, JSONException {
+        JSONObject json = new JSONObject(readString(body));
+
+        List<Education> educations = new ArrayList<>();
+        JSONArray educationArray = json.optJSONArray("education");
+        for (int i = 0; educationArray != null && i < educationArray.length(); i++) {
+            JSONObject education = educationArray.getJSONObject(i);
+            educations.add(new Education(
+                    education.optString("instituteName", null),
+                    education.optString("degree", null),
+                    education.optString("fieldOfStudy", null),
+                    IsoDates.parse(education.optString("fromDate", null)),
+                    IsoDates.parse(education.optString("endDate", null)),
+                    education.optString("description", null)
+            ));
+        }
+
+        List<PastExperience> pastExperiences = new ArrayList<>();
+        JSONArray pastExperienceArray = json.optJSONArray("pastExperience");
+        for (int i = 0; pastExperienceArray != null && i < pastExperienceArray.length(); i++) {
+            JSONObject pastExperience = pastExperienceArray.getJSONObject(i);
+            pastExperiences.add(new PastExperience(
+                    pastExperience.optString("company", null),
+                    pastExperience.optString("jobTitle", null),
+                    pastExperience.optString("location", null),
+                    IsoDates.parse(pastExperience.optString("fromDate", null)),
+                    IsoDates.parse(pastExperience.optString("endDate", null)),
+                    pastExperience.optString("description", null)
+            ));
+        }
+
+        return new Profile(
+                json.optString("firstName", null),
+                json.optString("lastName", null),
+                strings(json.optJSONArray("interests")),
+                strings(json.optJSONArray("skills")),
+                educations,
+                pastExperiences,
+                json.optString("github", null),
+                json.optString("facebook", null),
+                json.optString("linkedin", null),
+                json.optString("twitter", null),
+                json.optString("instagram", null),
+                json.optString("account", null)
+        );
+    }
+
+    private static List<String> strings(JSONArray array) throws JSONException {
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; array != null && i < array.length(); i++) {
+            strings.add(array.getString(i));
+        }
+        return strings;
+    }
+
+    private static String readString(InputStream body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private Baseline() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import android.os.Debug;
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * A small JMH style harness: warms an operation up, measures its throughput over several iterations,
+ * then counts what a fixed number of operations allocates.
+ * Every benchmark is measured next to its baseline in Baseline, so results from different devices can be compared as ratios.
+ *
+ * Run the benchmarks on a device, preferably with the screen on and nothing else running:
+ * ./gradlew :servermiddleware:connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.package=com.federlizer.servermiddleware.benchmark
+ * and read the results with: adb logcat -s DevelopoolBenchmark
+ */
+public final class Benchmark {
+    private static final String TAG = "DevelopoolBenchmark";
+
+    private static final long WARMUP_NANOS = 2000L * 1000 * 1000;
+    private static final long ITERATION_NANOS = 1000L * 1000 * 1000;
+    private static final int ITERATIONS = 5;
+    private static final int ALLOCATION_OPERATIONS = 1000;
+
+    // keeps the JIT from dropping the results of an operation
+    private static volatile int sink;
+
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * @param name The name the result is reported under
+     * @param operation The operation to measure
+     * @return Throughput and allocations of the operation
+     */
+    public static BenchmarkResult run(String name, Operation operation) throws Exception {
+        // warmup, until the JIT has settled
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            consume(operation.run());
+        }
+
+        // measure, taking the median iteration so a single GC pause doesn't skew the result
+        double[] throughputs = new double[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                consume(operation.run());
+                operations++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            throughputs[i] = operations * 1e9 / elapsed;
+        }
+        Arrays.sort(throughputs);
+
+        // count allocations separately, counting slows the operations down
+        BenchmarkResult result = countAllocations(name, throughputs[ITERATIONS / 2], operation);
+        Log.i(TAG, result.toString());
+        return result;
+    }
+
+    /**
+     * Measures an operation together with its baseline and reports how they compare
+     * @return The result of the operation
+     */
+    public static BenchmarkResult compare(String name, Operation baseline, Operation operation) throws Exception {
+        BenchmarkResult baselineResult = run(name + " (baseline)", baseline);
+        BenchmarkResult result = run(name, operation);
+        Log.i(TAG, result.compareTo(baselineResult));
+        return result;
+    }
+
+    /**
+     * The global allocation counters are deprecated because ART doesn't support them everywhere, but there's no replacement
+     * that counts the allocations of a single piece of code, so they stay and the warning is suppressed here only.
+     */
+    @SuppressWarnings("deprecation")
+    private static BenchmarkResult countAllocations(String name, double throughput, Operation operation) throws Exception {
+        Debug.resetGlobalAllocCount();
+        Debug.resetGlobalAllocSize();
+        Debug.startAllocCounting();
+        for (int i = 0; i < ALLOCATION_OPERATIONS; i++) {
+            consume(operation.run());
+        }
+        Debug.stopAllocCounting();
+        double allocationsPerOp = (double) Debug.getGlobalAllocCount() / ALLOCATION_OPERATIONS;
+        double bytesPerOp = (double) Debug.getGlobalAllocSize() / ALLOCATION_OPERATIONS;
+        return new BenchmarkResult(name, throughput, allocationsPerOp, bytesPerOp);
+    }
+
+    private static void consume(Object value) {
+        sink += value != null ? System.identityHashCode(value) : 0;
+    }
+
+    private Benchmark() {
+    }
+}
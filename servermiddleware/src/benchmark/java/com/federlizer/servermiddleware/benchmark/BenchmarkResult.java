@@ -0,0 +1,44 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import java.util.Locale;
+
+/**
+ * The throughput and allocations of a single benchmark
+ */
+public class BenchmarkResult {
+    public final String name;
+    public final double opsPerSecond;
+    public final double allocationsPerOp;
+    public final double bytesPerOp;
+
+    public BenchmarkResult(String name, double opsPerSecond, double allocationsPerOp, double bytesPerOp) {
+        this.name = name;
+        this.opsPerSecond = opsPerSecond;
+        this.allocationsPerOp = allocationsPerOp;
+        this.bytesPerOp = bytesPerOp;
+    }
+
+    /**
+     * @return How many megabytes the operation allocates per second at its measured throughput
+     */
+    public double allocationRateMBPerSecond() {
+        return bytesPerOp * opsPerSecond / (1024 * 1024);
+    }
+
+    /**
+     * @return A line comparing this result against the baseline, e.g. "decode projects: 2.10x throughput, 0.35x bytes/op"
+     */
+    public String compareTo(BenchmarkResult baseline) {
+        return String.format(Locale.US, "%s: %.2fx throughput, %.2fx bytes/op, %.2fx allocations/op against the baseline",
+                name,
+                opsPerSecond / baseline.opsPerSecond,
+                bytesPerOp / baseline.bytesPerOp,
+                allocationsPerOp / baseline.allocationsPerOp);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: %.0f ops/s, %.1f allocations/op, %.0f bytes/op, %.1f MB/s allocated",
+                name, opsPerSecond, allocationsPerOp, bytesPerOp, allocationRateMBPerSecond());
+    }
+}
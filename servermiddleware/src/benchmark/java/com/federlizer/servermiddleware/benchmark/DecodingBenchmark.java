@@ -0,0 +1,50 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.federlizer.servermiddleware.json.ModelDecoders;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Measures decoding getAllProjects and getOwnProfile responses into the models.
+ * Results are logged under the "DevelopoolBenchmark" tag, see Benchmark.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DecodingBenchmark {
+    private final byte[] projectList = Payloads.projectListResponse();
+    private final byte[] profile = Payloads.profileResponse();
+
+    @Test
+    public void projectList() throws Exception {
+        Benchmark.compare("decode " + Payloads.PROJECT_COUNT + " projects", new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                return Baseline.projectList(new ByteArrayInputStream(projectList));
+            }
+        }, new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                return ModelDecoders.PROJECT_LIST.decode(new ByteArrayInputStream(projectList));
+            }
+        });
+    }
+
+    @Test
+    public void profile() throws Exception {
+        Benchmark.compare("decode profile", new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                return Baseline.profile(new ByteArrayInputStream(profile));
+            }
+        }, new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                return ModelDecoders.PROFILE.decode(new ByteArrayInputStream(profile));
+            }
+        });
+    }
+}
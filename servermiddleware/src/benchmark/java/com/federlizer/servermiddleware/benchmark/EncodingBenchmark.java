@@ -0,0 +1,74 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.federlizer.servermiddleware.json.RequestBodies;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.transport.CountingOutputStream;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures writing the request bodies of createNewProject/updateProject and createOwnProfile/updateOwnProfile
+ * into a connection. Both paths write into a sink that drops the bytes, so only encoding is measured.
+ * Results are logged under the "DevelopoolBenchmark" tag, see Benchmark.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EncodingBenchmark {
+    private final Project project = Payloads.project();
+    private final Profile profile = Payloads.profile();
+    private final CountingOutputStream sink = new CountingOutputStream();
+
+    @Test
+    public void newProject() throws Exception {
+        Benchmark.compare("encode new project", new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                sink.write(Baseline.newProject(project));
+                return sink;
+            }
+        }, new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                RequestBodies.newProject(project).writeTo(sink);
+                return sink;
+            }
+        });
+    }
+
+    @Test
+    public void projectUpdate() throws Exception {
+        Benchmark.compare("encode project update", new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                sink.write(Baseline.projectUpdate(project));
+                return sink;
+            }
+        }, new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                RequestBodies.projectUpdate(project).writeTo(sink);
+                return sink;
+            }
+        });
+    }
+
+    @Test
+    public void profile() throws Exception {
+        Benchmark.compare("encode profile", new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                sink.write(Baseline.profile(profile));
+                return sink;
+            }
+        }, new Benchmark.Operation() {
+            @Override
+            public Object run() throws Exception {
+                RequestBodies.profile(profile).writeTo(sink);
+                return sink;
+            }
+        });
+    }
+}
@@ -0,0 +1,188 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import android.util.Log;
+
+import com.federlizer.servermiddleware.AsyncServerMiddleware;
+import com.federlizer.servermiddleware.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fires a weighted mix of calls at a middleware from many concurrent callers, and reports
+ * the throughput and latency percentiles each kind of call saw, measured from the caller's side.
+ */
+public class LoadDriver {
+    private static final String TAG = "DevelopoolLoad";
+
+    public interface Call {
+        /**
+         * @param middleware The middleware to make the call through
+         * @param random The calling thread's random, to pick IDs and the like
+         * @return The call's future. The caller waits for it before making its next call.
+         */
+        CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random);
+    }
+
+    private final AsyncServerMiddleware middleware;
+    private final List<Workload> workloads = new ArrayList<>();
+    private int totalWeight;
+
+    public LoadDriver(AsyncServerMiddleware middleware) {
+        this.middleware = middleware;
+    }
+
+    /**
+     * Adds a kind of call to the mix
+     * @param name The name it's reported under
+     * @param weight How often it's picked, relative to the other calls
+     * @param call Makes the call
+     * @return This driver, to chain the calls
+     */
+    public LoadDriver add(String name, int weight, Call call) {
+        workloads.add(new Workload(name, weight, call));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * Runs the mix and blocks until it's done
+     * @param callers How many callers make calls at the same time
+     * @param durationMillis How long the callers keep making calls
+     * @return The results of each kind of call, keyed by name
+     */
+    public Map<String, LoadResult> run(int callers, long durationMillis) throws InterruptedException {
+        for (Workload workload : workloads) {
+            workload.reset();
+        }
+
+        final long startNanos = System.nanoTime();
+        final long endNanos = startNanos + durationMillis * 1000 * 1000;
+        final CountDownLatch done = new CountDownLatch(callers);
+        for (int i = 0; i < callers; i++) {
+            Thread caller = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = ThreadLocalRandom.current();
+                    try {
+                        while (System.nanoTime() < endNanos) {
+                            Workload workload = pick(random);
+                            long callStart = System.nanoTime();
+                            boolean failed = false;
+                            try {
+                                workload.call.start(middleware, random).get();
+                            } catch (ExecutionException e) {
+                                failed = true;
+                            }
+                            workload.record(System.nanoTime() - callStart, failed);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }, "LoadDriver #" + i);
+            caller.start();
+        }
+        done.await();
+
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+        Map<String, LoadResult> results = new LinkedHashMap<>();
+        for (Workload workload : workloads) {
+            LoadResult result = workload.result(elapsedSeconds);
+            results.put(workload.name, result);
+            Log.i(TAG, result.toString());
+        }
+        return results;
+    }
+
+    private Workload pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Workload workload : workloads) {
+            ticket -= workload.weight;
+            if (ticket < 0) {
+                return workload;
+            }
+        }
+        return workloads.get(workloads.size() - 1);
+    }
+
+    /**
+     * What a single kind of call saw during a run
+     */
+    public static class LoadResult {
+        public final String name;
+        public final long calls;
+        public final long failures;
+        public final double callsPerSecond;
+        public final double p50Millis;
+        public final double p99Millis;
+
+        public LoadResult(String name, long calls, long failures, double callsPerSecond, double p50Millis, double p99Millis) {
+            this.name = name;
+            this.calls = calls;
+            this.failures = failures;
+            this.callsPerSecond = callsPerSecond;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d calls, %d failed, %.1f calls/s, p50 %.1f ms, p99 %.1f ms",
+                    name, calls, failures, callsPerSecond, p50Millis, p99Millis);
+        }
+    }
+
+    private static class Workload {
+        final String name;
+        final int weight;
+        final Call call;
+        LatencyHistogram latencies;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        Workload(String name, int weight, Call call) {
+            this.name = name;
+            this.weight = weight;
+            this.call = call;
+        }
+
+        void reset() {
+            latencies = new LatencyHistogram();
+            calls.reset();
+            failures.reset();
+        }
+
+        void record(long latencyNanos, boolean failed) {
+            latencies.record(latencyNanos);
+            calls.increment();
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        LoadResult result(double elapsedSeconds) {
+            long[] counts = latencies.snapshot();
+            long calls = this.calls.sum();
+            return new LoadResult(
+                    name,
+                    calls,
+                    failures.sum(),
+                    calls / elapsedSeconds,
+                    LatencyHistogram.percentileMillis(counts, 0.5),
+                    LatencyHistogram.percentileMillis(counts, 0.99)
+            );
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.federlizer.servermiddleware.AsyncServerMiddleware;
+import com.federlizer.servermiddleware.DevelopoolMiddleware;
+import com.federlizer.servermiddleware.MiddlewareConfig;
+import com.federlizer.servermiddleware.metrics.EndpointStats;
+import com.federlizer.servermiddleware.models.ProjectFilter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs a mixed workload of many concurrent callers against the stub server over a simulated mobile link.
+ * The driver's per-call results and the middleware's per-route metrics are logged under the
+ * "DevelopoolLoad" tag, see Benchmark for how to run it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LoadTest {
+    private static final String TAG = "DevelopoolLoad";
+    private static final int CALLERS = 32;
+    private static final long DURATION_MILLIS = 30 * 1000;
+
+    private StubDevelopoolServer server;
+    private DevelopoolMiddleware middleware;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubDevelopoolServer();
+        server.latencyMillis = 40;
+        server.latencyJitterMillis = 40;
+        server.bytesPerSecond = 256 * 1024;
+        server.errorRate = 0.01;
+        server.start();
+
+        MiddlewareConfig config = new MiddlewareConfig();
+        config.apiRoute = server.apiRoute();
+        // the stub accepts compressed request bodies
+        config.requestCompressionThresholdBytes = 1024;
+        // measure the request path, not the caches
+        config.validatorCacheSize = 0;
+        config.projectCacheSize = 0;
+        config.profileCacheSize = 0;
+        middleware = new DevelopoolMiddleware(config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void mixedWorkload() throws Exception {
+        final String token = middleware.async().authenticate("jane@example.com", "password").get().token;
+
+        LoadDriver driver = new LoadDriver(middleware.async())
+                .add("getAllProjects", 30, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.getAllProjects(new ProjectFilter(null, null, null, null, null, 20, random.nextInt(10) * 20));
+                    }
+                })
+                .add("getProjectById", 25, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.getProjectById(token, Payloads.projectId(random.nextInt(200)));
+                    }
+                })
+                .add("getOwnProfile", 15, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.getOwnProfile(token);
+                    }
+                })
+                .add("getOwnProjects", 10, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.getOwnProjects(token);
+                    }
+                })
+                .add("joinProject", 5, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.joinProject(token, Payloads.projectId(random.nextInt(200)));
+                    }
+                })
+                .add("leaveProject", 5, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.leaveProject(token, Payloads.projectId(random.nextInt(200)));
+                    }
+                })
+                .add("updateProject", 5, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.updateProject(token, Payloads.projectId(random.nextInt(200)), Payloads.project());
+                    }
+                })
+                .add("updateOwnProfile", 3, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.updateOwnProfile(token, Payloads.profile());
+                    }
+                })
+                .add("getProfilesByAccountIDs", 2, new LoadDriver.Call() {
+                    @Override
+                    public CompletableFuture<?> start(AsyncServerMiddleware middleware, Random random) {
+                        return middleware.getProfilesByAccountIDs(Arrays.asList("a" + random.nextInt(50), "b" + random.nextInt(50), "c" + random.nextInt(50)));
+                    }
+                });
+
+        driver.run(CALLERS, DURATION_MILLIS);
+
+        for (EndpointStats stats : middleware.getMetrics().snapshot().values()) {
+            Log.i(TAG, stats.toString());
+        }
+        Log.i(TAG, middleware.getConnectionPoolStats() + ", " + server.getRequestCount() + " requests served");
+    }
+}
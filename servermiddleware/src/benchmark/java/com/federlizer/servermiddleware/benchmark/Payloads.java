@@ -0,0 +1,160 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Requests and responses shaped like the ones the app sends and receives
+ */
+final class Payloads {
+    static final int PROJECT_COUNT = 50;
+    static final String ACCOUNT_ID = "5d0f3a2b9c1e4a0017a1b2c4";
+    // a JWT for ACCOUNT_ID that expires in 2100, the signature is never checked
+    static final String TOKEN = "Bearer eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9"
+            + ".eyJzdWIiOiI1ZDBmM2EyYjljMWU0YTAwMTdhMWIyYzQiLCJpYXQiOjE1NjEwMDAwMDAsImV4cCI6NDEwMjQ0NDgwMH0"
+            + ".c3R1Yi1zaWduYXR1cmU";
+
+    private static final List<String> INTERESTS = Arrays.asList("Mobile", "Open source", "Education", "Health");
+    private static final List<String> SKILLS = Arrays.asList("Java", "Kotlin", "Android", "Node.js", "MongoDB", "UI design");
+    private static final String DESCRIPTION = "An app that helps students find teammates for their side projects. "
+            + "We're looking for people who enjoy building things and want to learn along the way.";
+
+    /**
+     * @return A project as it's sent to createNewProject and updateProject
+     */
+    static Project project() {
+        return new Project("Developool", DESCRIPTION, "Private notes: " + DESCRIPTION, INTERESTS, SKILLS, false);
+    }
+
+    /**
+     * @return A filled in profile as it's sent to createOwnProfile and updateOwnProfile
+     */
+    static Profile profile() {
+        List<Education> educations = new ArrayList<>();
+        List<PastExperience> pastExperiences = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            educations.add(new Education("University " + i, "BSc", "Computer Science", new Date(1420070400000L), new Date(1546300800000L), DESCRIPTION));
+            pastExperiences.add(new PastExperience("Company " + i, "Android developer", "Sofia", new Date(1420070400000L), new Date(1546300800000L), DESCRIPTION));
+        }
+        return new Profile("Jane", "Doe", INTERESTS, SKILLS, educations, pastExperiences,
+                "github.com/janedoe", "facebook.com/janedoe", "linkedin.com/in/janedoe", "twitter.com/janedoe", "instagram.com/janedoe");
+    }
+
+    /**
+     * @return A getAllProjects response with PROJECT_COUNT projects
+     */
+    static byte[] projectListResponse() {
+        return projectListResponse(0, PROJECT_COUNT);
+    }
+
+    /**
+     * @return A page of a getAllProjects response, starting at the offset-th project
+     */
+    static byte[] projectListResponse(int offset, int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = offset; i < offset + count; i++) {
+            if (i > offset) {
+                json.append(',');
+            }
+            appendProject(json, i);
+        }
+        json.append(']');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A getProjectById, createNewProject or updateProject response
+     */
+    static byte[] projectResponse(int i) {
+        StringBuilder json = new StringBuilder();
+        appendProject(json, i);
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return An authenticate response
+     */
+    static byte[] accountResponse() {
+        return ("{\"token\":\"" + TOKEN + "\",\"user\":{\"_id\":\"" + ACCOUNT_ID + "\",\"username\":\"janedoe\",\"email\":\"jane@example.com\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A getOwnProfile response with a few educations and past experiences
+     */
+    static byte[] profileResponse() {
+        StringBuilder json = new StringBuilder("{\"_id\":\"5d0f3a2b9c1e4a0017a1b2c3\",\"account\":\"" + ACCOUNT_ID + "\"");
+        json.append(",\"firstName\":\"Jane\",\"lastName\":\"Doe\"");
+        json.append(",\"interests\":");
+        appendStrings(json, INTERESTS);
+        json.append(",\"skills\":");
+        appendStrings(json, SKILLS);
+        json.append(",\"education\":[");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"_id\":\"5d0f3a2b9c1e4a0017a1b2d").append(i)
+                    .append("\",\"instituteName\":\"University ").append(i)
+                    .append("\",\"degree\":\"BSc\",\"fieldOfStudy\":\"Computer Science\"")
+                    .append(",\"fromDate\":\"2015-01-01T00:00:00.000Z\",\"endDate\":\"2019-01-01T00:00:00.000Z\"")
+                    .append(",\"description\":\"").append(DESCRIPTION).append("\"}");
+        }
+        json.append("],\"pastExperience\":[");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"_id\":\"5d0f3a2b9c1e4a0017a1b2e").append(i)
+                    .append("\",\"company\":\"Company ").append(i)
+                    .append("\",\"jobTitle\":\"Android developer\",\"location\":\"Sofia\"")
+                    .append(",\"fromDate\":\"2015-01-01T00:00:00.000Z\",\"endDate\":\"2019-01-01T00:00:00.000Z\"")
+                    .append(",\"description\":\"").append(DESCRIPTION).append("\"}");
+        }
+        json.append("],\"github\":\"github.com/janedoe\",\"facebook\":\"facebook.com/janedoe\",\"linkedin\":\"linkedin.com/in/janedoe\"");
+        json.append(",\"twitter\":\"twitter.com/janedoe\",\"instagram\":\"instagram.com/janedoe\",\"__v\":0}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendProject(StringBuilder json, int i) {
+        json.append("{\"_id\":\"").append(projectId(i))
+                .append("\",\"title\":\"Project ").append(i)
+                .append("\",\"publicDescription\":\"").append(DESCRIPTION)
+                .append("\",\"private\":").append(i % 5 == 0)
+                .append(",\"interests\":");
+        appendStrings(json, INTERESTS);
+        json.append(",\"skills\":");
+        appendStrings(json, SKILLS);
+        json.append(",\"owner\":\"" + ACCOUNT_ID + "\",\"members\":[\"" + ACCOUNT_ID + "\"],\"__v\":0}");
+    }
+
+    /**
+     * @return The ID of the i-th project in the responses
+     */
+    static String projectId(int i) {
+        return String.format(Locale.US, "5d0f3a2b9c1e4a0017a1%04d", i);
+    }
+
+    private static void appendStrings(StringBuilder json, List<String> values) {
+        json.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(values.get(i)).append('"');
+        }
+        json.append(']');
+    }
+
+    private Payloads() {
+    }
+}
@@ -0,0 +1,410 @@
+package com.federlizer.servermiddleware.benchmark;
+
+import com.federlizer.servermiddleware.transport.ContentEncoding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process HTTP/1.1 server that answers the Developool API routes with realistic payloads,
+ * so the middleware can be measured end to end without touching developool.com.
+ * Point the middleware at it with MiddlewareConfig.apiRoute = server.apiRoute().
+ *
+ * Latency, bandwidth and failures can be injected through the public fields, also while the server is running.
+ * Nothing is persisted: mutations answer as if they succeeded, reads always return the same data.
+ */
+public class StubDevelopoolServer {
+    private static final String API_PATH = "/api/";
+    // the stub serves a catalogue of this many projects through getAllProjects
+    private static final int PROJECT_CATALOGUE_SIZE = 200;
+
+    /**
+     * How long every response is delayed, on top of the time it takes to send it
+     */
+    public volatile long latencyMillis;
+    /**
+     * A random delay of up to this long is added to latencyMillis
+     */
+    public volatile long latencyJitterMillis;
+    /**
+     * How fast responses are sent, 0 for as fast as possible
+     */
+    public volatile long bytesPerSecond;
+    /**
+     * The share of requests, between 0 and 1, answered with a 500
+     */
+    public volatile double errorRate;
+    /**
+     * The share of requests, between 0 and 1, whose connection is closed without any response
+     */
+    public volatile double dropRate;
+    /**
+     * Whether responses are gzip compressed for clients that accept it
+     */
+    public volatile boolean gzip = true;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final Set<Socket> openConnections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private ServerSocket serverSocket;
+
+    /**
+     * Starts listening on a free port of the loopback interface
+     */
+    public synchronized void start() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getByName("127.0.0.1"));
+        final ServerSocket socket = serverSocket;
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!socket.isClosed()) {
+                    try {
+                        final Socket connection = socket.accept();
+                        connections.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(connection);
+                            }
+                        });
+                    } catch (IOException e) {
+                        // closed by stop()
+                    }
+                }
+            }
+        }, "StubDevelopoolServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public synchronized void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+            serverSocket = null;
+        }
+        connections.shutdownNow();
+        // idle keep-alive connections are blocked reading, interrupting doesn't wake them up
+        for (Socket connection : openConnections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * @return The base URL the middleware should use, e.g. "http://127.0.0.1:43210/api/"
+     */
+    public synchronized String apiRoute() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort() + API_PATH;
+    }
+
+    /**
+     * @return How many requests the server has received
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    private void serve(Socket connection) {
+        openConnections.add(connection);
+        try {
+            InputStream in = new BufferedInputStream(connection.getInputStream());
+            OutputStream out = new BufferedOutputStream(connection.getOutputStream());
+
+            // keep-alive: serve requests on the connection until the client closes it
+            while (true) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    return;
+                }
+                Map<String, String> headers = readHeaders(in);
+                byte[] body = readBody(in, headers);
+                if ("gzip".equalsIgnoreCase(headers.get("content-encoding"))) {
+                    body = gunzip(body);
+                }
+                requests.incrementAndGet();
+
+                String[] parts = requestLine.split(" ");
+                Response response = route(parts[0], parts[1], headers, body);
+                if (response == null) {
+                    // dropped on purpose
+                    return;
+                }
+
+                delay();
+                String acceptEncoding = headers.get("accept-encoding");
+                writeResponse(out, response, gzip && acceptEncoding != null && acceptEncoding.contains("gzip"));
+                if ("close".equalsIgnoreCase(headers.get("connection"))) {
+                    return;
+                }
+            }
+        } catch (SocketException | EOFException e) {
+            // the client went away, or the server was stopped
+        } catch (InterruptedException e) {
+            // stopped while delaying the response
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            openConnections.remove(connection);
+            try {
+                connection.close();
+            } catch (IOException e) {
+                // nothing left to clean up
+            }
+        }
+    }
+
+    private Response route(String method, String target, Map<String, String> headers, byte[] body) {
+        Random random = ThreadLocalRandom.current();
+        if (random.nextDouble() < dropRate) {
+            return null;
+        }
+        if (random.nextDouble() < errorRate) {
+            return Response.text(500, "Server error");
+        }
+
+        int queryStart = target.indexOf('?');
+        String path = queryStart >= 0 ? target.substring(0, queryStart) : target;
+        Map<String, String> query = queryStart >= 0 ? parseQuery(target.substring(queryStart + 1)) : new HashMap<String, String>();
+        if (!path.startsWith(API_PATH)) {
+            return Response.text(404, "Not found");
+        }
+        path = path.substring(API_PATH.length());
+        boolean authorized = headers.containsKey("authorization");
+
+        if (path.equals("auth/") && method.equals("POST")) {
+            return Response.json(200, Payloads.accountResponse());
+        }
+        if (path.equals("register/") && method.equals("POST")) {
+            return Response.text(201, "Account created, please verify your email");
+        }
+
+        if (path.startsWith("project/join/") || path.startsWith("project/leave/")) {
+            if (!authorized) {
+                return Response.text(401, "Unauthorized");
+            }
+            return Response.text(200, path.startsWith("project/join/") ? "Joined project" : "Left project");
+        }
+        if (path.startsWith("project/")) {
+            String id = path.substring("project/".length());
+            if (id.isEmpty()) {
+                if (method.equals("GET")) {
+                    int offset = parseInt(query.get("offset"), 0);
+                    int limit = parseInt(query.get("limit"), Payloads.PROJECT_COUNT);
+                    int count = Math.max(0, Math.min(limit, PROJECT_CATALOGUE_SIZE - offset));
+                    return Response.json(200, Payloads.projectListResponse(offset, count));
+                }
+                if (method.equals("POST")) {
+                    return authorized ? Response.json(201, Payloads.projectResponse(PROJECT_CATALOGUE_SIZE)) : Response.text(401, "Unauthorized");
+                }
+            } else {
+                if (!authorized) {
+                    return Response.text(401, "Unauthorized");
+                }
+                int index = projectIndex(id);
+                if (index < 0) {
+                    return Response.text(404, "Project not found");
+                }
+                switch (method) {
+                    case "GET":
+                    case "PUT":
+                        return Response.json(200, Payloads.projectResponse(index));
+                    case "DELETE":
+                        return Response.text(200, "Project deleted");
+                }
+            }
+        }
+
+        if (path.equals("accounts/projects/") && method.equals("GET")) {
+            return authorized ? Response.json(200, Payloads.projectListResponse(0, 10)) : Response.text(401, "Unauthorized");
+        }
+        if (path.startsWith("profile/")) {
+            String accountID = path.substring("profile/".length());
+            if (!accountID.isEmpty() && method.equals("GET")) {
+                return Response.json(200, Payloads.profileResponse());
+            }
+            if (accountID.isEmpty() && (method.equals("GET") || method.equals("POST") || method.equals("PUT"))) {
+                return authorized ? Response.json(200, Payloads.profileResponse()) : Response.text(401, "Unauthorized");
+            }
+        }
+
+        return Response.text(404, "Not found");
+    }
+
+    private void delay() throws InterruptedException {
+        long delay = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    private void writeResponse(OutputStream out, Response response, boolean compress) throws IOException, InterruptedException {
+        byte[] body = compress ? ContentEncoding.gzip(response.body) : response.body;
+        String head = "HTTP/1.1 " + response.code + " " + (response.code < 400 ? "OK" : "Error") + "\r\n"
+                + "Content-Type: " + response.contentType + "\r\n"
+                + (compress ? "Content-Encoding: gzip\r\n" : "")
+                + "Content-Length: " + body.length + "\r\n"
+                + "\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+
+        long bytesPerSecond = this.bytesPerSecond;
+        if (bytesPerSecond <= 0) {
+            out.write(body);
+        } else {
+            // send the body in 50ms slices to simulate a slow link
+            int slice = (int) Math.max(1, bytesPerSecond / 20);
+            for (int offset = 0; offset < body.length; offset += slice) {
+                if (offset > 0) {
+                    Thread.sleep(50);
+                }
+                out.write(body, offset, Math.min(slice, body.length - offset));
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = ContentEncoding.decode("gzip", new ByteArrayInputStream(body));
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static int projectIndex(String id) {
+        for (int i = 0; i < PROJECT_CATALOGUE_SIZE; i++) {
+            if (Payloads.projectId(i).equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static byte[] readBody(InputStream in, Map<String, String> headers) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+            while (true) {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    throw new EOFException();
+                }
+                int size = Integer.parseInt(sizeLine.split(";")[0].trim(), 16);
+                if (size == 0) {
+                    // skip the trailers
+                    readHeaders(in);
+                    break;
+                }
+                copy(in, body, size);
+                readLine(in);
+            }
+        } else if (headers.containsKey("content-length")) {
+            copy(in, body, Integer.parseInt(headers.get("content-length")));
+        }
+        return body.toByteArray();
+    }
+
+    private static void copy(InputStream in, ByteArrayOutputStream out, int length) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (length > 0) {
+            int read = in.read(buffer, 0, Math.min(buffer.length, length));
+            if (read == -1) {
+                throw new EOFException();
+            }
+            out.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String param : query.split("&")) {
+            int equals = param.indexOf('=');
+            if (equals > 0) {
+                params.put(param.substring(0, equals), param.substring(equals + 1));
+            }
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value != null ? Integer.parseInt(value) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static class Response {
+        final int code;
+        final String contentType;
+        final byte[] body;
+
+        Response(int code, String contentType, byte[] body) {
+            this.code = code;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response json(int code, byte[] body) {
+            return new Response(code, "application/json; charset=utf-8", body);
+        }
+
+        static Response text(int code, String body) {
+            return new Response(code, "text/plain; charset=utf-8", body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Account;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.models.ProjectFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The same calls as ServerMiddleware, returning futures instead of taking callbacks, so calls can be composed
+ * with thenCompose()/allOf() and independent ones can run at the same time.
+ * Futures complete on the request thread, not the main thread. Failed calls complete exceptionally with the
+ * exception a callback would have received in Result.exception. Cancelling a future cancels its request.
+ */
+public interface AsyncServerMiddleware {
+    /**
+     * Sends an authentication request to the web server
+     * @param email The email of the user
+     * @param password The password of the user
+     * @return The authenticated account
+     */
+    CompletableFuture<Account> authenticate(final String email, final String password);
+
+    /**
+     * Sends a request to register a new user
+     * @param username The username
+     * @param email The email
+     * @param password The password
+     * @param passwordConfirmation The password a second time, for confirmation by the server
+     * @return The server's response
+     */
+    CompletableFuture<String> register(final String username, final String email, final String password, final String passwordConfirmation);
+
+    /**
+     * Sends a request to fetch all projects owned by the authenticated user
+     * @param token The JWT token of the authenticated user
+     * @return The user's projects
+     */
+    CompletableFuture<List<Project>> getOwnProjects(final String token);
+
+    /**
+     * Creates a new project under the authenticated user's ownership
+     * @param token The token of the authenticated user
+     * @param newProject The data for the new project. Only the title field is required.
+     * @return The created project
+     */
+    CompletableFuture<Project> createNewProject(final String token, final Project newProject);
+
+    /**
+     * Sends a request to find a project
+     * @param token The token of the authenticated user
+     * @param projectID The ID of the project.
+     * @return The project
+     */
+    CompletableFuture<Project> getProjectById(final String token, final String projectID);
+
+    /**
+     * Get's all projects saved on the server
+     * @param filter A non-required filter to get only specific projects.
+     * @return The projects matching the filter
+     */
+    CompletableFuture<List<Project>> getAllProjects(final ProjectFilter filter);
+
+    /**
+     * Sends a request to update a project. Only the owner of a project can make such a request.
+     * @param token The token of the authenticated user
+     * @param projectID The project's ID
+     * @param updatedProject The new data for the project
+     * @return The updated project
+     */
+    CompletableFuture<Project> updateProject(final String token, final String projectID, final Project updatedProject);
+
+    /**
+     * Sends a request to update a project with only the fields that differ from the last known version of it.
+     * If nothing changed, no request is made.
+     * @param token The token of the authenticated user
+     * @param projectID The project's ID
+     * @param lastKnown The project as the server last sent it, or null to use the cached one. Without either the whole update is sent.
+     * @param updatedProject The new data for the project
+     * @return The updated project, or the last known one if nothing changed
+     */
+    CompletableFuture<Project> updateProject(final String token, final String projectID, final Project lastKnown, final Project updatedProject);
+
+    /**
+     * Sends a request to delete a project. Only the owner of a project can make such a request.
+     * @param token The token of the authenticated user
+     * @param projectID The project's ID
+     * @return The server's response
+     */
+    CompletableFuture<String> deleteProject(final String token, final String projectID);
+
+    /**
+     * Sends a request to join a project
+     * @param token The token of the authenticated user
+     * @param projectID The project's ID
+     * @return The server's response
+     */
+    CompletableFuture<String> joinProject(final String token, final String projectID);
+
+    /**
+     * Sends a request to leave a project
+     * @param token The token of the authenticated user
+     * @param projectID The project's ID
+     * @return The server's response
+     */
+    CompletableFuture<String> leaveProject(final String token, final String projectID);
+
+    /**
+     * Get's a user's profile
+     * @param token The token of the authenticated user
+     * @return The user's profile
+     */
+    CompletableFuture<Profile> getOwnProfile(final String token);
+
+    /**
+     * Get's any account's profile
+     * @param accountID The account ID of the profile to get
+     * @return The account's profile
+     */
+    CompletableFuture<Profile> getProfileByAccountID(final String accountID);
+
+    /**
+     * Get's the profiles of several accounts at once
+     * @param accountIDs The account IDs of the profiles to get. Duplicates are only fetched once.
+     * @return The result of each account ID. A failed profile doesn't fail the whole future.
+     */
+    CompletableFuture<Map<String, Result<Profile>>> getProfilesByAccountIDs(final List<String> accountIDs);
+
+    /**
+     * Creates a new profile for the authenticated account
+     * @param token the token of the authenticated user
+     * @param profile The profile information to be saved
+     * @return The created profile
+     */
+    CompletableFuture<Profile> createOwnProfile(final String token, final Profile profile);
+
+    /**
+     * Updates an already existing profile for the authenticated account
+     * @param token the token of the authenticated user
+     * @param newProfile the new information for the profile
+     * @return The updated profile
+     */
+    CompletableFuture<Profile> updateOwnProfile(final String token, final Profile newProfile);
+
+    /**
+     * Updates the profile of the authenticated account with only the fields that differ from the last known version of it.
+     * If nothing changed, no request is made.
+     * @param token the token of the authenticated user
+     * @param lastKnown the profile as the server last sent it, or null to use the cached one. Without either the whole profile is sent.
+     * @param newProfile the new information for the profile
+     * @return The updated profile, or the last known one if nothing changed
+     */
+    CompletableFuture<Profile> updateOwnProfile(final String token, final Profile lastKnown, final Profile newProfile);
+}
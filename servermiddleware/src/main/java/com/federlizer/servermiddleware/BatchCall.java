@@ -0,0 +1,64 @@
+package com.federlizer.servermiddleware;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A call made up of several requests that share one deadline and one callback, e.g. getProfilesByAccountIDs
+ */
+class BatchCall<T> implements RequestHandle {
+    private final Consumer<Result<T>> callback;
+    private final Executor callbackExecutor;
+    private final CallContext context;
+    private boolean done;
+
+    BatchCall(Consumer<Result<T>> callback, Executor callbackExecutor, long deadlineMillis) {
+        this.callback = callback;
+        this.callbackExecutor = callbackExecutor;
+        this.context = new CallContext(deadlineMillis);
+    }
+
+    CallContext getContext() {
+        return context;
+    }
+
+    /**
+     * Delivers the result on the callback executor, unless the call has been cancelled
+     */
+    void complete(final Result<T> result) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (context.isCancelled()) {
+                return;
+            }
+        }
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.accept(result);
+            }
+        });
+    }
+
+    @Override
+    public synchronized boolean cancel() {
+        if (done || context.isCancelled()) {
+            return false;
+        }
+        context.cancel();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return context.isCancelled();
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+}
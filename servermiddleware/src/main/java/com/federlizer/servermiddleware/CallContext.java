@@ -0,0 +1,96 @@
+package com.federlizer.servermiddleware;
+
+import android.os.CancellationSignal;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline and cancellation state of a call, available to makeRequest through current()
+ * on whichever thread works on the call.
+ */
+class CallContext {
+    private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final CancellationSignal cancellationSignal = new CancellationSignal();
+    private final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+    private volatile boolean background;
+
+    /**
+     * @param deadlineMillis How long the call may take from now, including time spent in the queue. 0 for no deadline.
+     */
+    CallContext(long deadlineMillis) {
+        this.deadlineNanos = deadlineMillis > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis)
+                : 0;
+    }
+
+    /**
+     * @return The context of the call running on this thread, or null if there is none
+     */
+    static CallContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Marks the calling thread as working on this call
+     */
+    synchronized void enter() {
+        threads.add(Thread.currentThread());
+        CURRENT.set(this);
+    }
+
+    /**
+     * Marks the calling thread as done with this call
+     */
+    void exit() {
+        synchronized (this) {
+            threads.remove(Thread.currentThread());
+        }
+        CURRENT.remove();
+        // don't leave an interrupt from cancel() behind for the next task on this thread
+        Thread.interrupted();
+    }
+
+    /**
+     * Aborts the running request, and wakes up threads waiting to retry it
+     */
+    synchronized void cancel() {
+        cancellationSignal.cancel();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    boolean isCancelled() {
+        return cancellationSignal.isCanceled();
+    }
+
+    CancellationSignal getCancellationSignal() {
+        return cancellationSignal;
+    }
+
+    /**
+     * @return true if nobody is waiting on the call, e.g. a prefetch. Background calls make way for everything else.
+     */
+    boolean isBackground() {
+        return background;
+    }
+
+    void setBackground(boolean background) {
+        this.background = background;
+    }
+
+    /**
+     * @return The time left until the deadline, Long.MAX_VALUE if there is no deadline
+     */
+    long remainingMillis() {
+        if (deadlineNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+}
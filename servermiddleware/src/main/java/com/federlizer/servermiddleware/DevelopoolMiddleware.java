@@ -3,30 +3,64 @@ package com.federlizer.servermiddleware;
 import android.security.keystore.UserNotAuthenticatedException;
 import android.util.SparseArray;
 
+import com.federlizer.servermiddleware.cache.CacheStats;
+import com.federlizer.servermiddleware.cache.Copier;
+import com.federlizer.servermiddleware.cache.DiskResponseStore;
+import com.federlizer.servermiddleware.cache.EntityCache;
+import com.federlizer.servermiddleware.cache.ProjectIndex;
+import com.federlizer.servermiddleware.cache.ValidatorCache;
+import com.federlizer.servermiddleware.exceptions.CircuitOpenException;
+import com.federlizer.servermiddleware.exceptions.DeadlineExceededException;
 import com.federlizer.servermiddleware.exceptions.EmailNotVerifiedException;
+import com.federlizer.servermiddleware.exceptions.HttpStatusException;
 import com.federlizer.servermiddleware.exceptions.InvalidCredentialsException;
 import com.federlizer.servermiddleware.exceptions.NotFoundException;
 import com.federlizer.servermiddleware.exceptions.ProjectAlreadyExistsException;
 import com.federlizer.servermiddleware.exceptions.UserAlreadyExistsException;
+import com.federlizer.servermiddleware.json.CapturingDecoder;
+import com.federlizer.servermiddleware.json.CountingDecoder;
+import com.federlizer.servermiddleware.json.ModelDecoders;
+import com.federlizer.servermiddleware.json.RequestBodies;
+import com.federlizer.servermiddleware.json.ResponseDecoder;
+import com.federlizer.servermiddleware.metrics.ExchangeMeter;
+import com.federlizer.servermiddleware.metrics.MiddlewareMetrics;
+import com.federlizer.servermiddleware.models.Account;
 import com.federlizer.servermiddleware.models.Profile;
 import com.federlizer.servermiddleware.models.Project;
 import com.federlizer.servermiddleware.models.ProjectFilter;
+import com.federlizer.servermiddleware.resilience.CircuitBreaker;
+import com.federlizer.servermiddleware.resilience.RetryPolicy;
+import com.federlizer.servermiddleware.transport.ByteArrayBody;
+import com.federlizer.servermiddleware.transport.ConnectionPoolStats;
+import com.federlizer.servermiddleware.transport.ContentEncoding;
+import com.federlizer.servermiddleware.transport.HttpUrlConnectionTransport;
+import com.federlizer.servermiddleware.transport.RequestBody;
+import com.federlizer.servermiddleware.transport.Transport;
+import com.federlizer.servermiddleware.transport.TransportRequest;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidParameterException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class DevelopoolMiddleware implements ServerMiddleware {
@@ -34,26 +68,238 @@ public class DevelopoolMiddleware implements ServerMiddleware {
 
     private final String AUTHORIZATION_HEADER = "Authorization";
     private final String CONTENT_TYPE_HEADER = "Content-type";
+    private final String ETAG_HEADER = "ETag";
+    private final String LAST_MODIFIED_HEADER = "Last-Modified";
+    private final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
 
     private final String JSON_HEADER_VALUE = "application/json";
 
-    private final String API_ROUTE = "http://developool.com/api/";
+    private final String GET_METHOD = "GET";
+    private final String POST_METHOD = "POST";
+    private final String PUT_METHOD = "PUT";
+
+    private final String API_ROUTE;
+
+    private final Request AUTHENTICATE;
+    private final Request REGISTER;
+    private final Request CREATE_NEW_PROJECT;
+    private final Request GET_OWN_PROJECTS;
+    private final Request GET_PROJECT_BY_ID;
+    private final Request GET_ALL_PROJECTS;
+    private final Request UPDATE_PROJECT;
+    private final Request DELETE_PROJECT;
+    private final Request JOIN_PROJECT;
+    private final Request LEAVE_PROJECT;
+    private final Request GET_OWN_PROFILE;
+    private final Request GET_PROFILE_BY_ACCOUNT_ID;
+    private final Request CREATE_OWN_PROFILE;
+    private final Request UPDATE_OWN_PROFILE;
+
+    private final String OWN_PROJECTS_STORE_KEY = "ownProjects";
+    private final String OWN_PROFILE_STORE_KEY = "ownProfile";
+
+    private final RequestScheduler scheduler;
+    private final String host;
+    private final Priority priority;
+    private final Executor callbackExecutor;
+    private final int batchConcurrency;
+    private final RetryPolicy retryPolicy;
+    private final int circuitBreakerFailureThreshold;
+    private final long circuitBreakerOpenMillis;
+    private final ConcurrentHashMap<String, CircuitBreaker> circuitBreakers;
+    private final AtomicLong retries;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long deadlineMillis;
+    private final int requestCompressionThresholdBytes;
+    private final Transport transport;
+    private final ValidatorCache validatorCache;
+    private final EntityCache<Project> projectCache;
+    private final EntityCache<Profile> profileCache;
+    private final ProjectIndex projectIndex;
+    private final DiskResponseStore responseStore;
+    private final ConcurrentHashMap<String, RequestTask<?>> inFlightRequests;
+    private final AtomicLong coalescedRequests;
+    private final MiddlewareMetrics metrics;
+    private final List<ProjectPrefetcher> prefetchers;
+    private final Session session;
+
+    public DevelopoolMiddleware() {
+        this(new MiddlewareConfig());
+    }
+
+    public DevelopoolMiddleware(MiddlewareConfig config) {
+        String apiRoute = config.apiRoute != null ? config.apiRoute : MiddlewareConfig.DEFAULT_API_ROUTE;
+        this.API_ROUTE = apiRoute.endsWith("/") ? apiRoute : apiRoute + '/';
+        this.AUTHENTICATE = new Request("AUTHENTICATE", "POST", API_ROUTE + "auth/");
+        this.REGISTER = new Request("REGISTER", "POST", API_ROUTE + "register/");
+        this.CREATE_NEW_PROJECT = new Request("CREATE_NEW_PROJECT", "POST", API_ROUTE + "project/");
+        this.GET_OWN_PROJECTS = new Request("GET_OWN_PROJECTS", "GET", API_ROUTE + "accounts/projects/");
+        this.GET_PROJECT_BY_ID = new Request("GET_PROJECT_BY_ID", "GET", API_ROUTE + "project/");
+        this.GET_ALL_PROJECTS = new Request("GET_ALL_PROJECTS", "GET", API_ROUTE + "project/");
+        this.UPDATE_PROJECT = new Request("UPDATE_PROJECT", "PUT", API_ROUTE + "project/");
+        this.DELETE_PROJECT = new Request("DELETE_PROJECT", "DELETE", API_ROUTE + "project/");
+        this.JOIN_PROJECT = new Request("JOIN_PROJECT", "POST", API_ROUTE + "project/join/");
+        this.LEAVE_PROJECT = new Request("LEAVE_PROJECT", "POST", API_ROUTE + "project/leave/");
+        this.GET_OWN_PROFILE = new Request("GET_OWN_PROFILE", "GET", API_ROUTE + "profile/");
+        this.GET_PROFILE_BY_ACCOUNT_ID = new Request("GET_PROFILE_BY_ACCOUNT_ID", "GET", API_ROUTE + "profile/");
+        this.CREATE_OWN_PROFILE = new Request("CREATE_OWN_PROFILE", "POST", API_ROUTE + "profile/");
+        this.UPDATE_OWN_PROFILE = new Request("UPDATE_OWN_PROFILE", "PUT", API_ROUTE + "profile/");
+
+        if (config.requestScheduler != null) {
+            this.scheduler = config.requestScheduler;
+        } else {
+            Executor requestExecutor = config.requestExecutor != null
+                    ? config.requestExecutor
+                    : RequestExecutors.newBoundedExecutor(config.maxRequestsInFlight);
+            this.scheduler = new RequestScheduler(requestExecutor, config.maxRequestsInFlight, config.maxRequestsPerHost);
+        }
+        this.host = URI.create(API_ROUTE).getAuthority();
+        this.priority = Priority.NORMAL;
+        this.callbackExecutor = config.callbackExecutor != null
+                ? config.callbackExecutor
+                : RequestExecutors.mainThreadExecutor();
+        this.batchConcurrency = Math.max(1, config.batchConcurrency);
+        this.retryPolicy = config.retryPolicy != null ? config.retryPolicy : RetryPolicy.none();
+        this.circuitBreakerFailureThreshold = config.circuitBreakerFailureThreshold;
+        this.circuitBreakerOpenMillis = config.circuitBreakerOpenMillis;
+        this.circuitBreakers = new ConcurrentHashMap<>();
+        this.retries = new AtomicLong();
+        this.connectTimeoutMillis = Math.max(0, config.connectTimeoutMillis);
+        this.readTimeoutMillis = Math.max(0, config.readTimeoutMillis);
+        this.deadlineMillis = Math.max(0, config.deadlineMillis);
+        this.requestCompressionThresholdBytes = config.requestCompressionThresholdBytes;
+        this.transport = config.transport != null
+                ? config.transport
+                : new HttpUrlConnectionTransport();
+        // the caches hand out copies, so a caller editing a returned model can't change what later calls diff against
+        this.validatorCache = config.validatorCacheSize > 0
+                ? new ValidatorCache(config.validatorCacheSize, new Copier<Object>() {
+                    @Override
+                    public Object copy(Object value) {
+                        return Models.copyValue(value);
+                    }
+                })
+                : null;
+        Copier<Project> projectCopier = new Copier<Project>() {
+            @Override
+            public Project copy(Project project) {
+                return Models.copy(project);
+            }
+        };
+        this.projectCache = new EntityCache<>(config.projectCacheSize, config.projectCacheTtlMillis, projectCopier);
+        this.profileCache = new EntityCache<>(config.profileCacheSize, config.profileCacheTtlMillis, new Copier<Profile>() {
+            @Override
+            public Profile copy(Profile profile) {
+                return Models.copy(profile);
+            }
+        });
+        this.projectIndex = new ProjectIndex(Math.max(0, config.projectIndexTtlMillis), projectCopier);
+        this.responseStore = config.responseStoreDirectory != null
+                ? new DiskResponseStore(config.responseStoreDirectory, config.responseStoreMaxBytes)
+                : null;
+        this.inFlightRequests = new ConcurrentHashMap<>();
+        this.coalescedRequests = new AtomicLong();
+        this.metrics = new MiddlewareMetrics();
+        if (config.metricsListener != null) {
+            metrics.addListener(config.metricsListener);
+        }
+        this.prefetchers = new CopyOnWriteArrayList<>();
+        this.session = null;
+    }
+
+    /**
+     * A view of another middleware with a different deadline, callback executor, session and priority. Everything else, the scheduler,
+     * caches, circuit breakers and in-flight requests included, is shared with the original.
+     */
+    private DevelopoolMiddleware(DevelopoolMiddleware other, long deadlineMillis, Executor callbackExecutor, Session session, Priority priority) {
+        this.API_ROUTE = other.API_ROUTE;
+        this.AUTHENTICATE = other.AUTHENTICATE;
+        this.REGISTER = other.REGISTER;
+        this.CREATE_NEW_PROJECT = other.CREATE_NEW_PROJECT;
+        this.GET_OWN_PROJECTS = other.GET_OWN_PROJECTS;
+        this.GET_PROJECT_BY_ID = other.GET_PROJECT_BY_ID;
+        this.GET_ALL_PROJECTS = other.GET_ALL_PROJECTS;
+        this.UPDATE_PROJECT = other.UPDATE_PROJECT;
+        this.DELETE_PROJECT = other.DELETE_PROJECT;
+        this.JOIN_PROJECT = other.JOIN_PROJECT;
+        this.LEAVE_PROJECT = other.LEAVE_PROJECT;
+        this.GET_OWN_PROFILE = other.GET_OWN_PROFILE;
+        this.GET_PROFILE_BY_ACCOUNT_ID = other.GET_PROFILE_BY_ACCOUNT_ID;
+        this.CREATE_OWN_PROFILE = other.CREATE_OWN_PROFILE;
+        this.UPDATE_OWN_PROFILE = other.UPDATE_OWN_PROFILE;
+
+        this.scheduler = other.scheduler;
+        this.host = other.host;
+        this.priority = priority;
+        this.callbackExecutor = callbackExecutor;
+        this.batchConcurrency = other.batchConcurrency;
+        this.retryPolicy = other.retryPolicy;
+        this.circuitBreakerFailureThreshold = other.circuitBreakerFailureThreshold;
+        this.circuitBreakerOpenMillis = other.circuitBreakerOpenMillis;
+        this.circuitBreakers = other.circuitBreakers;
+        this.retries = other.retries;
+        this.connectTimeoutMillis = other.connectTimeoutMillis;
+        this.readTimeoutMillis = other.readTimeoutMillis;
+        this.deadlineMillis = deadlineMillis;
+        this.requestCompressionThresholdBytes = other.requestCompressionThresholdBytes;
+        this.transport = other.transport;
+        this.validatorCache = other.validatorCache;
+        this.projectCache = other.projectCache;
+        this.profileCache = other.profileCache;
+        this.projectIndex = other.projectIndex;
+        this.responseStore = other.responseStore;
+        this.inFlightRequests = other.inFlightRequests;
+        this.coalescedRequests = other.coalescedRequests;
+        this.metrics = other.metrics;
+        this.prefetchers = other.prefetchers;
+        this.session = session;
+    }
+
+    /**
+     * Calls made through the returned middleware use the given deadline instead of MiddlewareConfig.deadlineMillis, e.g.
+     * middleware.withDeadline(5000).getProjectById(token, id, callback)
+     * A call that joins an identical one already in flight shares that call's deadline.
+     *
+     * @param deadlineMillis How long each call may take in total, 0 for no deadline
+     * @return A middleware sharing everything with this one except the deadline
+     */
+    public DevelopoolMiddleware withDeadline(long deadlineMillis) {
+        return new DevelopoolMiddleware(this, Math.max(0, deadlineMillis), callbackExecutor, session, priority);
+    }
+
+    /**
+     * Calls made through the returned middleware keep the session's token fresh, see Session.middleware()
+     *
+     * @param session The session whose token the calls are made with
+     * @return A middleware sharing everything with this one except the session
+     */
+    public DevelopoolMiddleware withSession(Session session) {
+        return new DevelopoolMiddleware(this, deadlineMillis, callbackExecutor, session, priority);
+    }
 
-    private final Request AUTHENTICATE = new Request("POST", API_ROUTE + "auth/");
-    private final Request REGISTER = new Request("POST", API_ROUTE + "register/");
-    private final Request CREATE_NEW_PROJECT = new Request("POST", API_ROUTE + "project/");
-    private final Request GET_OWN_PROJECTS = new Request("GET", API_ROUTE + "accounts/projects/");
-    private final Request GET_PROJECT_BY_ID = new Request("GET", API_ROUTE + "project/");
-    private final Request GET_ALL_PROJECTS = new Request("GET", API_ROUTE + "project/");
-    private final Request UPDATE_PROJECT = new Request("PUT", API_ROUTE + "project/");
-    private final Request DELETE_PROJECT = new Request("DELETE", API_ROUTE + "project/");
-    private final Request JOIN_PROJECT = new Request("POST", API_ROUTE + "project/join/");
-    private final Request LEAVE_PROJECT = new Request("POST", API_ROUTE + "project/leave/");
-    private final Request GET_OWN_PROFILE = new Request("GET", API_ROUTE + "profile/");
-    private final Request GET_PROFILE_BY_ACCOUNT_ID = new Request("GET", API_ROUTE + "profile/");
-    private final Request CREATE_OWN_PROFILE = new Request("POST", API_ROUTE + "profile/");
-    private final Request UPDATE_OWN_PROFILE = new Request("PUT", API_ROUTE + "profile/");
+    /**
+     * Calls made through the returned middleware wait in the given priority's lane, e.g.
+     * middleware.withPriority(Priority.BACKGROUND).getOwnProjects(token, callback) for a sync the user isn't waiting on
+     *
+     * @param priority The lane the calls wait in while all request slots are taken
+     * @return A middleware sharing everything with this one except the priority
+     */
+    public DevelopoolMiddleware withPriority(Priority priority) {
+        return new DevelopoolMiddleware(this, deadlineMillis, callbackExecutor, session, priority != null ? priority : Priority.NORMAL);
+    }
 
+    /**
+     * The calls of this middleware as futures, e.g.
+     * middleware.async().authenticate(email, password).thenCompose(...)
+     * The futures complete on the request thread, so dependent steps don't hop through the main thread.
+     *
+     * @return A future based middleware sharing everything with this one, the deadline included
+     */
+    public AsyncServerMiddleware async() {
+        return new FutureServerMiddleware(new DevelopoolMiddleware(this, deadlineMillis, RequestExecutors.directExecutor(), session, priority));
+    }
 
     /**
      * Sends an authentication request to the web server
@@ -61,15 +307,27 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param email    The email of the user
      * @param password The password of the user
      * @param callback The callback that's to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void authenticate(final String email, final String password, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle authenticate(final String email, final String password, Consumer<Result<Account>> callback) {
+        return submit(new RequestTask<>(authenticateCall(email, password), callback, deadlineMillis));
+    }
+
+    /**
+     * Authenticates on the calling thread, for the session to get a new token while a request waits for it
+     */
+    Result<Account> authenticateNow(String email, String password) throws Exception {
+        return authenticateCall(email, password).call();
+    }
+
+    private Callable<Result<Account>> authenticateCall(final String email, final String password) {
+        return new Callable<Result<Account>>() {
             @Override
-            public Result call() {
+            public Result<Account> call() {
                 // validate
                 if (email == null || password == null || email.isEmpty() || password.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Account>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
@@ -81,9 +339,9 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                     reqBody.put("email", email);
                     reqBody.put("password", password);
                 } catch (JSONException e) {
-                    return new Result(e);
+                    return new Result<Account>(e);
                 }
-                byte[] output = reqBody.toString().getBytes();
+                RequestBody output = new ByteArrayBody(reqBody.toString().getBytes(StandardCharsets.UTF_8));
 
                 // setup request headers (properties)
                 Map<String, String> requestProps = new HashMap<>();
@@ -95,10 +353,9 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_UNAUTHORIZED, new InvalidCredentialsException("Please provide valid credentials"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_FORBIDDEN, new EmailNotVerifiedException("Email hasn't been verified"));
 
-                return makeRequest(url, true, true, output, requestProps, 0, AUTHENTICATE.RequestMethod(), responseCodeExceptions);
+                return makeRequest(url, true, output, requestProps, AUTHENTICATE, responseCodeExceptions, ModelDecoders.ACCOUNT);
             }
-        }, callback);
-        request.execute();
+        };
     }
 
     /**
@@ -109,12 +366,13 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param password             The password
      * @param passwordConfirmation The password a second time, for confirmation by the server
      * @param callback             The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void register(final String username, final String email, final String password, final String passwordConfirmation, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle register(final String username, final String email, final String password, final String passwordConfirmation, Consumer<Result<String>> callback) {
+        RequestTask<String> request = new RequestTask<>(new Callable<Result<String>>() {
             @Override
-            public Result call() {
+            public Result<String> call() {
 
                 // validate
                 if (username == null ||
@@ -125,7 +383,7 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                         email.isEmpty() ||
                         password.isEmpty() ||
                         passwordConfirmation.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<String>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
@@ -139,10 +397,10 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                     reqBody.put("password", password);
                     reqBody.put("password2", passwordConfirmation);
                 } catch (JSONException e) {
-                    return new Result(e);
+                    return new Result<String>(e);
                 }
 
-                byte[] output = reqBody.toString().getBytes();
+                RequestBody output = new ByteArrayBody(reqBody.toString().getBytes(StandardCharsets.UTF_8));
 
                 // setup request headers (props)
                 Map<String, String> reqProps = new HashMap<>();
@@ -153,10 +411,10 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_BAD_REQUEST, new InvalidParameterException("The email provided isn't valid or the passwords don't match"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_CONFLICT, new UserAlreadyExistsException("An account with the same email already exists"));
 
-                return makeRequest(url, true, true, output, reqProps, 0, REGISTER.RequestMethod(), responseCodeExceptions);
+                return makeRequest(url, true, output, reqProps, REGISTER, responseCodeExceptions, ModelDecoders.STRING);
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -164,15 +422,16 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      *
      * @param token    The JWT token of the authenticated user
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void getOwnProjects(final String token, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle getOwnProjects(final String token, Consumer<Result<List<Project>>> callback) {
+        RequestTask<List<Project>> request = new RequestTask<>(new Callable<Result<List<Project>>>() {
             @Override
-            public Result call() {
+            public Result<List<Project>> call() {
                 // validate
                 if (token == null || token.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<List<Project>>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
@@ -186,10 +445,21 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 SparseArray<Exception> responseCodeExceptions = new SparseArray<>();
                 responseCodeExceptions.append(HttpURLConnection.HTTP_UNAUTHORIZED, new UserNotAuthenticatedException("User not authenticated"));
 
-                return makeRequest(url, true, false, null, reqProps, 0, GET_OWN_PROJECTS.RequestMethod(), responseCodeExceptions);
+                // keep the raw response if it has to be persisted
+                String account = storeAccount(token);
+                CapturingDecoder<List<Project>> decoder = account != null
+                        ? new CapturingDecoder<>(ModelDecoders.PROJECT_LIST)
+                        : null;
+
+                Result<List<Project>> result = makeRequest(url, false, null, reqProps, GET_OWN_PROJECTS, responseCodeExceptions, decoder != null ? decoder : ModelDecoders.PROJECT_LIST);
+                // a 304 leaves the stored response as it is
+                if (result.exception == null && decoder != null && decoder.hasCaptured()) {
+                    storeResponse(account, OWN_PROJECTS_STORE_KEY, decoder.captured());
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request, coalesceKey(GET_OWN_PROJECTS, GET_OWN_PROJECTS.Route(), token));
     }
 
     /**
@@ -198,44 +468,26 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token      The token of the authenticated user
      * @param newProject The data for the new project. Only the title field is required.
      * @param callback   The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void createNewProject(final String token, final Project newProject, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle createNewProject(final String token, final Project newProject, Consumer<Result<Project>> callback) {
+        RequestTask<Project> request = new RequestTask<>(new Callable<Result<Project>>() {
             @Override
-            public Result call() {
+            public Result<Project> call() {
                 // validate
                 if (token == null || newProject == null || token.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Project>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
                 if (newProject.title == null || newProject.isPrivate == null) {
-                    return new Result(new IllegalArgumentException("Please provide valid title and privacy fields"));
+                    return new Result<Project>(new IllegalArgumentException("Please provide valid title and privacy fields"));
                 }
 
                 // build url
                 String url = CREATE_NEW_PROJECT.Route();
 
                 // build request body if any
-                JSONObject reqBody = new JSONObject();
-                try {
-                    reqBody.put("title", newProject.title);
-                    reqBody.put("private", newProject.isPrivate);
-                    if (newProject.publicDescription != null && !newProject.publicDescription.isEmpty()) {
-                        reqBody.put("publicDescription", newProject.publicDescription);
-                    }
-                    if (newProject.privateDescription != null && !newProject.privateDescription.isEmpty()) {
-                        reqBody.put("privateDescription", newProject.privateDescription);
-                    }
-                    if (newProject.interests != null && !newProject.interests.isEmpty()) {
-                        reqBody.put("interests", new JSONArray(newProject.interests));
-                    }
-                    if (newProject.skills != null && !newProject.skills.isEmpty()) {
-                        reqBody.put("skills", new JSONArray(newProject.interests));
-                    }
-                } catch (JSONException e) {
-                    return new Result(e);
-                }
-                byte[] output = reqBody.toString().getBytes();
+                RequestBody output = RequestBodies.newProject(newProject);
 
                 // setup request headers (props)
                 Map<String, String> reqProps = new HashMap<>();
@@ -247,10 +499,14 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_BAD_REQUEST, new InvalidParameterException("One or more of the fields are incorrectly formatted"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_CONFLICT, new ProjectAlreadyExistsException("Another project with the same title already exists"));
 
-                return makeRequest(url, true, true, output, reqProps, 0, CREATE_NEW_PROJECT.RequestMethod(), responseCodeExceptions);
+                Result<Project> result = makeRequest(url, true, output, reqProps, CREATE_NEW_PROJECT, responseCodeExceptions, ModelDecoders.PROJECT);
+                if (result.exception == null && result.value.id != null && result.value.title != null) {
+                    projectIndex.put(result.value);
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -259,15 +515,38 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token     The token of the authenticated user
      * @param projectID The ID of the project.
      * @param callback  The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void getProjectById(final String token, final String projectID, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle getProjectById(final String token, final String projectID, Consumer<Result<Project>> callback) {
+        for (ProjectPrefetcher prefetcher : prefetchers) {
+            prefetcher.onProjectRequested(projectID);
+        }
+        return getProjectById(token, projectID, null, false, callback);
+    }
+
+    /**
+     * Fetches a project into the cache in the background, see ProjectPrefetcher
+     *
+     * @param responseBytes Counts the bytes of the response
+     */
+    RequestHandle prefetchProject(String token, String projectID, AtomicLong responseBytes, Consumer<Result<Project>> callback) {
+        return getProjectById(token, projectID, responseBytes, true, callback);
+    }
+
+    private RequestHandle getProjectById(final String token, final String projectID, final AtomicLong responseBytes, boolean background, Consumer<Result<Project>> callback) {
+        RequestTask<Project> request = new RequestTask<>(new Callable<Result<Project>>() {
             @Override
-            public Result call() {
+            public Result<Project> call() {
                 // validate
                 if (token == null || projectID == null || token.isEmpty() || projectID.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Project>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                }
+
+                // serve from the cache if we've seen the project recently
+                Project cached = projectCache.get(projectID);
+                if (cached != null) {
+                    return new Result<Project>(cached);
                 }
 
                 // build url
@@ -281,67 +560,70 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 SparseArray<Exception> responseCodeExceptions = new SparseArray<>();
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Project with that ID wasn't found"));
 
-                return makeRequest(url, true, false, null, reqProps, 0, GET_PROJECT_BY_ID.RequestMethod(), responseCodeExceptions);
+                ResponseDecoder<Project> decoder = responseBytes != null
+                        ? new CountingDecoder<>(ModelDecoders.PROJECT, responseBytes)
+                        : ModelDecoders.PROJECT;
+                Result<Project> result = makeRequest(url, false, null, reqProps, GET_PROJECT_BY_ID, responseCodeExceptions, decoder);
+                if (result.exception == null) {
+                    projectCache.put(projectID, result.value);
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        request.setPriority(background ? Priority.BACKGROUND : priority);
+        return submit(request, coalesceKey(GET_PROJECT_BY_ID, GET_PROJECT_BY_ID.Route() + projectID, token));
     }
 
     /**
-     * Get's all projects saved on the server
+     * Get's all projects saved on the server. Once an unfiltered call has downloaded the whole catalogue,
+     * filtered calls are answered from it without a request, see MiddlewareConfig.projectIndexTtlMillis.
      *
      * @param filter   A non-required filter to get only specific projects.
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void getAllProjects(final ProjectFilter filter, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle getAllProjects(final ProjectFilter filter, Consumer<Result<List<Project>>> callback) {
+        // built once, it's both the URL that's requested and the key calls with the same filter are merged by
+        final String url = filter != null ? buildAllProjectsUrl(filter) : null;
+        RequestTask<List<Project>> request = new RequestTask<>(new Callable<Result<List<Project>>>() {
             @Override
-            public Result call() {
-                // build url
-                StringBuilder url = new StringBuilder();
-
-                url.append(GET_ALL_PROJECTS.Route());
-                url.append('?');
-
-                if (filter.title != null && !filter.title.isEmpty()) {
-                    url.append("title=");
-                    url.append(filter.title);
-                    url.append('&');
-                }
-                if (filter.isPublic != null) {
-                    url.append("public=");
-                    url.append(filter.isPublic);
-                    url.append('&');
-                }
-                if (filter.isPrivate != null) {
-                    url.append("private=");
-                    url.append(filter.isPrivate);
-                    url.append('&');
-                }
-                if (filter.interests != null && !filter.interests.isEmpty()) {
-                    for (String interest : filter.interests) {
-                        url.append("interests[]=");
-                        url.append(interest);
-                        url.append('&');
-                    }
+            public Result<List<Project>> call() {
+                // check parameters
+                if (filter == null) {
+                    return new Result<List<Project>>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
-                if (filter.skills != null && !filter.skills.isEmpty()) {
-                    for (String skill : filter.skills) {
-                        url.append("skills[]=");
-                        url.append(skill);
-                        url.append('&');
-                    }
+
+                // answer from the downloaded catalogue if there is one, e.g. while the user types a search
+                List<Project> indexed = projectIndex.query(filter);
+                if (indexed != null) {
+                    return new Result<>(indexed);
                 }
 
                 // setup response code exceptions
                 SparseArray<Exception> responseCodeExceptions = new SparseArray<>();
                 responseCodeExceptions.append(HttpURLConnection.HTTP_SERVER_ERROR, new IOException("Server error"));
 
-                return makeRequest(url.toString(), true, false, null, null, 0, GET_ALL_PROJECTS.RequestMethod(), responseCodeExceptions);
+                Result<List<Project>> result = makeRequest(url, false, null, null, GET_ALL_PROJECTS, responseCodeExceptions, ModelDecoders.PROJECT_LIST);
+                if (result.exception == null && isWholeCatalogue(filter)) {
+                    projectIndex.replaceAll(result.value);
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        // an invalid filter isn't shared, it fails on its own
+        return submit(request, url != null ? coalesceKey(GET_ALL_PROJECTS, url, null) : null);
+    }
+
+    /**
+     * Get's the projects saved on the server one page at a time
+     *
+     * @param filter A non-required filter to get only specific projects. Its page size and offset decide where the pages start and how big they are.
+     * @return A pager that delivers the pages as they're requested
+     */
+    @Override
+    public ProjectPager getAllProjectsPaged(final ProjectFilter filter) {
+        return new ProjectPager(this, filter);
     }
 
     /**
@@ -351,48 +633,59 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param projectID      The project's ID
      * @param updatedProject The new data for the project
      * @param callback       The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void updateProject(final String token, final String projectID, final Project updatedProject, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle updateProject(final String token, final String projectID, final Project updatedProject, Consumer<Result<Project>> callback) {
+        return updateProject(token, projectID, false, null, updatedProject, callback);
+    }
+
+    /**
+     * Sends a request to update a project with only the fields that differ from the last known version of it.
+     * If nothing changed, no request is made and the last known version is delivered.
+     *
+     * @param token          The token of the authenticated user
+     * @param projectID      The project's ID
+     * @param lastKnown      The project as the server last sent it, or null to use the cached one. Without either the whole update is sent.
+     * @param updatedProject The new data for the project
+     * @param callback       The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
+     */
+    @Override
+    public RequestHandle updateProject(final String token, final String projectID, final Project lastKnown, final Project updatedProject, Consumer<Result<Project>> callback) {
+        return updateProject(token, projectID, true, lastKnown, updatedProject, callback);
+    }
+
+    private RequestHandle updateProject(final String token, final String projectID, final boolean changesOnly, final Project lastKnown, final Project updatedProject, Consumer<Result<Project>> callback) {
+        RequestTask<Project> request = new RequestTask<>(new Callable<Result<Project>>() {
             @Override
-            public Result call() {
+            public Result<Project> call() {
                 // validate
                 if (token == null || projectID == null || updatedProject == null ||
                         token.isEmpty() || projectID.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Project>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
                 String url = UPDATE_PROJECT.Route() + projectID;
 
                 // build request body if any
-                JSONObject reqBody = new JSONObject();
-                try {
-                    if (updatedProject.title != null && !updatedProject.title.isEmpty()) {
-                        reqBody.put("title", updatedProject.title);
-                    }
-                    if (updatedProject.publicDescription != null && !updatedProject.publicDescription.isEmpty()) {
-                        reqBody.put("publicDescription", updatedProject.publicDescription);
-                    }
-                    if (updatedProject.privateDescription != null && !updatedProject.privateDescription.isEmpty()) {
-                        reqBody.put("privateDescription", updatedProject.privateDescription);
+                RequestBody output;
+                Project base = changesOnly && lastKnown == null ? projectCache.get(projectID) : lastKnown;
+                if (base != null) {
+                    try {
+                        output = RequestBodies.projectChanges(base, updatedProject);
+                    } catch (IOException e) {
+                        return new Result<Project>(e);
                     }
-                    if (updatedProject.isPrivate != null) {
-                        reqBody.put("private", updatedProject.isPrivate);
+                    if (output == null) {
+                        // the server already has this version
+                        return new Result<Project>(base);
                     }
-                    if (updatedProject.interests != null && !updatedProject.interests.isEmpty()) {
-                        reqBody.put("interests", new JSONArray(updatedProject.interests));
-                    }
-                    if (updatedProject.skills != null && !updatedProject.skills.isEmpty()) {
-                        reqBody.put("skills", new JSONArray(updatedProject.skills));
-                    }
-                } catch (JSONException e) {
-                    return new Result(e);
+                } else {
+                    output = RequestBodies.projectUpdate(updatedProject);
                 }
 
-                byte[] output = reqBody.toString().getBytes();
-
                 // setup request headers (props)
                 Map<String, String> reqProps = new HashMap<>();
                 reqProps.put(AUTHORIZATION_HEADER, token);
@@ -404,10 +697,26 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_UNAUTHORIZED, new UserNotAuthenticatedException("User didn't provide a token"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Project with such ID doesn't exist"));
 
-                return makeRequest(url, true, true, output, reqProps, 0, UPDATE_PROJECT.RequestMethod(), responseCodeExceptions);
+                Result<Project> result = makeRequest(url, true, output, reqProps, UPDATE_PROJECT, responseCodeExceptions, ModelDecoders.PROJECT);
+                if (result.exception == null) {
+                    // the server answers with the updated project, unless it only sends back the changed fields
+                    if (projectID.equals(result.value.id) && result.value.title != null) {
+                        projectCache.put(projectID, result.value);
+                        projectIndex.put(result.value);
+                    } else {
+                        projectCache.remove(projectID);
+                        Project indexed = projectIndex.get(projectID);
+                        if (indexed != null) {
+                            Project updated = Models.copy(indexed);
+                            Models.merge(updated, updatedProject);
+                            projectIndex.put(updated);
+                        }
+                    }
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -416,15 +725,16 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token     The token of the authenticated user
      * @param projectID The project's ID
      * @param callback  The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void deleteProject(final String token, final String projectID, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle deleteProject(final String token, final String projectID, Consumer<Result<String>> callback) {
+        RequestTask<String> request = new RequestTask<>(new Callable<Result<String>>() {
             @Override
-            public Result call() {
+            public Result<String> call() {
                 // validate
                 if (token == null || projectID == null || token.isEmpty() || projectID.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<String>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
@@ -439,10 +749,15 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_UNAUTHORIZED, new UserNotAuthenticatedException("User hasn't been authenticated"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Project with that ID wasn't found"));
 
-                return makeRequest(url, true, false, null, reqProps, 0, DELETE_PROJECT.RequestMethod(), responseCodeExceptions);
+                Result<String> result = makeRequest(url, false, null, reqProps, DELETE_PROJECT, responseCodeExceptions, ModelDecoders.STRING);
+                if (result.exception == null) {
+                    projectCache.remove(projectID);
+                    projectIndex.remove(projectID);
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -451,15 +766,16 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token     The token of the authenticated user
      * @param projectID The project's ID
      * @param callback  The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void joinProject(final String token, final String projectID, Consumer<Result> callback) {
-        final RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle joinProject(final String token, final String projectID, Consumer<Result<String>> callback) {
+        final RequestTask<String> request = new RequestTask<>(new Callable<Result<String>>() {
             @Override
-            public Result call() {
+            public Result<String> call() {
                 // validate
                 if (token == null || projectID == null || token.isEmpty() || projectID.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<String>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
@@ -477,10 +793,14 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.put(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Project with that ID wasn't found"));
                 responseCodeExceptions.put(HttpURLConnection.HTTP_CONFLICT, new IllegalAccessException("You're already a member of this project"));
 
-                return makeRequest(url, true, false, null, reqProps, 0, JOIN_PROJECT.RequestMethod(), responseCodeExceptions);
+                Result<String> result = makeRequest(url, false, null, reqProps, JOIN_PROJECT, responseCodeExceptions, ModelDecoders.STRING);
+                if (result.exception == null) {
+                    projectCache.remove(projectID);
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -489,19 +809,20 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token     The token of the authenticated user
      * @param projectID The project's ID
      * @param callback  The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void leaveProject(final String token, final String projectID, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle leaveProject(final String token, final String projectID, Consumer<Result<String>> callback) {
+        RequestTask<String> request = new RequestTask<>(new Callable<Result<String>>() {
             @Override
-            public Result call() {
+            public Result<String> call() {
                 // validate
                 if (token == null || projectID == null || token.isEmpty() || projectID.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<String>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
-                String url = LEAVE_PROJECT + projectID;
+                String url = LEAVE_PROJECT.Route() + projectID;
 
                 // setup request headers (props)
                 Map<String, String> reqProps = new HashMap<>();
@@ -514,10 +835,14 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_FORBIDDEN, new IllegalAccessException("User not a member of the project"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Project with that ID wasn't found"));
 
-                return makeRequest(url, true, false, null, reqProps, 0, LEAVE_PROJECT.RequestMethod(), responseCodeExceptions);
+                Result<String> result = makeRequest(url, false, null, reqProps, LEAVE_PROJECT, responseCodeExceptions, ModelDecoders.STRING);
+                if (result.exception == null) {
+                    projectCache.remove(projectID);
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -525,15 +850,16 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      *
      * @param token    The token of the authenticated user
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void getOwnProfile(final String token, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle getOwnProfile(final String token, Consumer<Result<Profile>> callback) {
+        RequestTask<Profile> request = new RequestTask<>(new Callable<Result<Profile>>() {
             @Override
-            public Result call() {
+            public Result<Profile> call() {
                 // validate
                 if (token == null || token.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Profile>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
@@ -549,10 +875,23 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_UNAUTHORIZED, new UserNotAuthenticatedException("User not authenticated"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Profile hasn't been created yet"));
 
-                return makeRequest(url, true, false, null, reqProps, 0, GET_OWN_PROFILE.RequestMethod(), responseCodeExceptions);
+                // keep the raw response if it has to be persisted
+                String account = storeAccount(token);
+                CapturingDecoder<Profile> decoder = account != null
+                        ? new CapturingDecoder<>(ModelDecoders.PROFILE)
+                        : null;
+
+                Result<Profile> result = makeRequest(url, false, null, reqProps, GET_OWN_PROFILE, responseCodeExceptions, decoder != null ? decoder : ModelDecoders.PROFILE);
+                if (result.exception == null) {
+                    profileCache.put(result.value.accountID, result.value);
+                    if (decoder != null && decoder.hasCaptured()) {
+                        storeResponse(account, OWN_PROFILE_STORE_KEY, decoder.captured());
+                    }
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request, coalesceKey(GET_OWN_PROFILE, GET_OWN_PROFILE.Route(), token));
     }
 
     /**
@@ -560,29 +899,112 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      *
      * @param accountID The account ID of the profile to get
      * @param callback  The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void getProfileByAccountID(final String accountID, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle getProfileByAccountID(final String accountID, Consumer<Result<Profile>> callback) {
+        RequestTask<Profile> request = new RequestTask<>(new Callable<Result<Profile>>() {
             @Override
-            public Result call() {
+            public Result<Profile> call() {
                 // validate
                 if (accountID == null || accountID.isEmpty()) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Profile>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
-                // build url
-                String url = GET_PROFILE_BY_ACCOUNT_ID.Route() + accountID;
+                // serve from the cache if we've seen the profile recently
+                Profile cached = profileCache.get(accountID);
+                if (cached != null) {
+                    return new Result<Profile>(cached);
+                }
 
-                // setup response code exceptions
-                SparseArray<Exception> responseCodeExceptions = new SparseArray<>();
-                responseCodeExceptions.append(HttpURLConnection.HTTP_BAD_REQUEST, new IllegalAccessException("Profile of that account hasn't been created yet"));
-                responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Account with such ID wasn't found"));
+                return fetchProfile(accountID);
+            }
+        }, callback, deadlineMillis);
+        return submit(request, coalesceKey(GET_PROFILE_BY_ACCOUNT_ID, GET_PROFILE_BY_ACCOUNT_ID.Route() + accountID, null));
+    }
+
+    /**
+     * Get's the profiles of several accounts at once
+     *
+     * @param accountIDs The account IDs of the profiles to get. Duplicates are only fetched once.
+     * @param callback   The callback to be executed after all profiles are fetched, with the result of each account ID
+     * @return A handle to cancel the request with
+     */
+    @Override
+    public RequestHandle getProfilesByAccountIDs(final List<String> accountIDs, final Consumer<Result<Map<String, Result<Profile>>>> callback) {
+        final BatchCall<Map<String, Result<Profile>>> batch = new BatchCall<>(callback, callbackExecutor, deadlineMillis);
+
+        // validate
+        if (accountIDs == null) {
+            batch.complete(new Result<Map<String, Result<Profile>>>(new IllegalArgumentException(ILLEGAL_ARGUMENTS)));
+            return batch;
+        }
 
-                return makeRequest(url, true, false, null, null, 0, GET_PROFILE_BY_ACCOUNT_ID.RequestMethod(), responseCodeExceptions);
+        // serve whatever we can from the cache, keeping the order of the IDs
+        final Map<String, Result<Profile>> results = new LinkedHashMap<>();
+        final Queue<String> missing = new ConcurrentLinkedQueue<>();
+        for (String accountID : new LinkedHashSet<>(accountIDs)) {
+            if (accountID == null || accountID.isEmpty()) {
+                results.put(accountID, new Result<Profile>(new IllegalArgumentException(ILLEGAL_ARGUMENTS)));
+                continue;
             }
-        }, callback);
-        request.execute();
+
+            Profile cached = profileCache.get(accountID);
+            if (cached != null) {
+                results.put(accountID, new Result<>(cached));
+            } else {
+                // reserve the spot, so the order doesn't depend on which request finishes first
+                results.put(accountID, null);
+                missing.add(accountID);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            batch.complete(new Result<>(results));
+            return batch;
+        }
+
+        // fetch the rest with at most batchConcurrency requests in parallel
+        batch.getContext().setBackground(priority == Priority.BACKGROUND);
+        final AtomicInteger remaining = new AtomicInteger(missing.size());
+        int workers = Math.min(batchConcurrency, missing.size());
+        for (int i = 0; i < workers; i++) {
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    CallContext context = batch.getContext();
+                    context.enter();
+                    try {
+                        String accountID;
+                        while ((accountID = missing.poll()) != null) {
+                            Result<Profile> result;
+                            if (context.isCancelled()) {
+                                // nobody is waiting for the rest anymore, just account for it
+                                result = new Result<Profile>(new InterruptedException("Request cancelled"));
+                            } else {
+                                try {
+                                    result = fetchProfile(accountID);
+                                } catch (Exception e) {
+                                    result = new Result<>(e);
+                                }
+                            }
+                            synchronized (results) {
+                                results.put(accountID, result);
+                            }
+
+                            if (remaining.decrementAndGet() == 0) {
+                                synchronized (results) {
+                                    batch.complete(new Result<>(results));
+                                }
+                            }
+                        }
+                    } finally {
+                        context.exit();
+                    }
+                }
+            }, priority, host);
+        }
+        return batch;
     }
 
     /**
@@ -591,61 +1013,23 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token    the token of the authenticated user
      * @param profile  The profile information to be saved
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void createOwnProfile(final String token, final Profile profile, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle createOwnProfile(final String token, final Profile profile, Consumer<Result<Profile>> callback) {
+        RequestTask<Profile> request = new RequestTask<>(new Callable<Result<Profile>>() {
             @Override
-            public Result call() {
+            public Result<Profile> call() {
                 // validate
                 if (token == null || token.isEmpty() || profile == null) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Profile>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
                 String url = CREATE_OWN_PROFILE.Route();
 
                 // build request body if any
-                JSONObject reqBody = new JSONObject();
-                try {
-                    if (profile.firstName != null && !profile.firstName.isEmpty()) {
-                        reqBody.put("firstName", profile.firstName);
-                    }
-                    if (profile.lastName != null && !profile.lastName.isEmpty()) {
-                        reqBody.put("lastName", profile.lastName);
-                    }
-                    if (profile.interests != null && !profile.interests.isEmpty()) {
-                        reqBody.put("interests", new JSONArray(profile.interests));
-                    }
-                    if (profile.skills != null && !profile.skills.isEmpty()) {
-                        reqBody.put("skills", new JSONArray(profile.skills));
-                    }
-                    if (profile.educations != null && !profile.educations.isEmpty()) {
-                        reqBody.put("education", new JSONArray(profile.educations));
-                    }
-                    if (profile.pastExperiences != null && !profile.pastExperiences.isEmpty()) {
-                        reqBody.put("pastExperience", new JSONArray(profile.pastExperiences));
-                    }
-                    if (profile.github != null && !profile.github.isEmpty()) {
-                        reqBody.put("github", profile.github);
-                    }
-                    if (profile.facebook != null && !profile.facebook.isEmpty()) {
-                        reqBody.put("facebook", profile.facebook);
-                    }
-                    if (profile.instagram != null && !profile.instagram.isEmpty()) {
-                        reqBody.put("instagram", profile.instagram);
-                    }
-                    if (profile.linkedIn != null && !profile.linkedIn.isEmpty()) {
-                        reqBody.put("linkedin", profile.linkedIn);
-                    }
-                    if (profile.twitter != null && !profile.twitter.isEmpty()) {
-                        reqBody.put("twitter", profile.twitter);
-                    }
-                } catch (JSONException e) {
-                    return new Result(e);
-                }
-
-                byte[] output = reqBody.toString().getBytes();
+                RequestBody output = RequestBodies.profile(profile);
 
                 // setup request headers (props)
                 Map<String, String> reqProps = new HashMap<>();
@@ -658,10 +1042,19 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Account wasn't found"));
                 responseCodeExceptions.append(HttpURLConnection.HTTP_CONFLICT, new IllegalAccessException("Profile already exists, try updating instead"));
 
-                return makeRequest(url, true, true, output, reqProps, 0, CREATE_OWN_PROFILE.RequestMethod(), responseCodeExceptions);
+                Result<Profile> result = makeRequest(url, true, output, reqProps, CREATE_OWN_PROFILE, responseCodeExceptions, ModelDecoders.PROFILE);
+                if (result.exception == null) {
+                    if (result.value.accountID != null) {
+                        profileCache.put(result.value.accountID, result.value);
+                    } else {
+                        // the own account's ID isn't known, so none of the cached profiles can be trusted
+                        profileCache.clear();
+                    }
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
     /**
@@ -670,62 +1063,57 @@ public class DevelopoolMiddleware implements ServerMiddleware {
      * @param token      the token of the authenticated user
      * @param newProfile the new information for the profile
      * @param callback   the callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
     @Override
-    public void updateOwnProfile(final String token, final Profile newProfile, Consumer<Result> callback) {
-        RequestTask request = new RequestTask(new Callable<Result>() {
+    public RequestHandle updateOwnProfile(final String token, final Profile newProfile, Consumer<Result<Profile>> callback) {
+        return updateOwnProfile(token, false, null, newProfile, callback);
+    }
+
+    /**
+     * Updates the profile of the authenticated account with only the fields that differ from the last known version of it.
+     * If nothing changed, no request is made and the last known version is delivered.
+     *
+     * @param token      the token of the authenticated user
+     * @param lastKnown  the profile as the server last sent it, or null to use the cached one. Without either the whole profile is sent.
+     * @param newProfile the new information for the profile
+     * @param callback   the callback to be executed after the request is finished
+     * @return A handle to cancel the request with
+     */
+    @Override
+    public RequestHandle updateOwnProfile(final String token, final Profile lastKnown, final Profile newProfile, Consumer<Result<Profile>> callback) {
+        return updateOwnProfile(token, true, lastKnown, newProfile, callback);
+    }
+
+    private RequestHandle updateOwnProfile(final String token, final boolean changesOnly, final Profile lastKnown, final Profile newProfile, Consumer<Result<Profile>> callback) {
+        RequestTask<Profile> request = new RequestTask<>(new Callable<Result<Profile>>() {
             @Override
-            public Result call() {
+            public Result<Profile> call() {
                 // validate
                 if (token == null || token.isEmpty() || newProfile == null) {
-                    return new Result(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+                    return new Result<Profile>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
                 }
 
                 // build url
                 String url = UPDATE_OWN_PROFILE.Route();
 
                 // build request body if any
-                JSONObject reqBody = new JSONObject();
-                try {
-                    if (newProfile.firstName != null && !newProfile.firstName.isEmpty()) {
-                        reqBody.put("firstName", newProfile.firstName);
-                    }
-                    if (newProfile.lastName != null && !newProfile.lastName.isEmpty()) {
-                        reqBody.put("lastName", newProfile.lastName);
-                    }
-                    if (newProfile.interests != null && !newProfile.interests.isEmpty()) {
-                        reqBody.put("interests", new JSONArray(newProfile.interests));
-                    }
-                    if (newProfile.skills != null && !newProfile.skills.isEmpty()) {
-                        reqBody.put("skills", new JSONArray(newProfile.skills));
-                    }
-                    if (newProfile.educations != null && !newProfile.educations.isEmpty()) {
-                        reqBody.put("education", new JSONArray(newProfile.educations));
-                    }
-                    if (newProfile.pastExperiences != null && !newProfile.pastExperiences.isEmpty()) {
-                        reqBody.put("pastExperience", new JSONArray(newProfile.pastExperiences));
+                RequestBody output;
+                Profile base = changesOnly && lastKnown == null ? cachedOwnProfile(token) : lastKnown;
+                if (base != null) {
+                    try {
+                        output = RequestBodies.profileChanges(base, newProfile);
+                    } catch (IOException e) {
+                        return new Result<Profile>(e);
                     }
-                    if (newProfile.github != null && !newProfile.github.isEmpty()) {
-                        reqBody.put("github", newProfile.github);
+                    if (output == null) {
+                        // the server already has this version
+                        return new Result<Profile>(base);
                     }
-                    if (newProfile.facebook != null && !newProfile.facebook.isEmpty()) {
-                        reqBody.put("facebook", newProfile.facebook);
-                    }
-                    if (newProfile.instagram != null && !newProfile.instagram.isEmpty()) {
-                        reqBody.put("instagram", newProfile.instagram);
-                    }
-                    if (newProfile.linkedIn != null && !newProfile.linkedIn.isEmpty()) {
-                        reqBody.put("linkedin", newProfile.linkedIn);
-                    }
-                    if (newProfile.twitter != null && !newProfile.twitter.isEmpty()) {
-                        reqBody.put("twitter", newProfile.twitter);
-                    }
-                } catch (JSONException e) {
-                    return new Result(e);
+                } else {
+                    output = RequestBodies.profile(newProfile);
                 }
 
-                byte[] output = reqBody.toString().getBytes();
-
                 // setup request headers (props)
                 Map<String, String> reqProps = new HashMap<>();
                 reqProps.put(CONTENT_TYPE_HEADER, JSON_HEADER_VALUE);
@@ -737,60 +1125,415 @@ public class DevelopoolMiddleware implements ServerMiddleware {
                 // This shouldn't really happen, given that we're sending a token with the request, but it's part of the API documentation..
                 responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Account wasn't found"));
 
-                return makeRequest(url, true, true, output, reqProps, 0, UPDATE_OWN_PROFILE.RequestMethod(), responseCodeExceptions);
+                Result<Profile> result = makeRequest(url, true, output, reqProps, UPDATE_OWN_PROFILE, responseCodeExceptions, ModelDecoders.PROFILE);
+                if (result.exception == null) {
+                    if (result.value.accountID != null) {
+                        profileCache.put(result.value.accountID, result.value);
+                    } else {
+                        // the own account's ID isn't known, so none of the cached profiles can be trusted
+                        profileCache.clear();
+                    }
+                }
+                return result;
             }
-        }, callback);
-        request.execute();
+        }, callback, deadlineMillis);
+        return submit(request);
     }
 
-    private Result makeRequest(
-            String urlString,
-            Boolean input,
-            Boolean output,
-            byte[] outputValue,
-            Map<String, String> requestProps,
-            Integer chunkLen,
-            String requestMethod,
-            SparseArray<Exception> responseCodeExceptions
-    ) {
-        Result result;
+    /**
+     * Reads the last response of getOwnProjects saved on disk, so something can be shown while the network request runs.
+     * Requires MiddlewareConfig.responseStoreDirectory to be set.
+     *
+     * @param token    The JWT token of the authenticated user
+     * @param callback The callback to be executed with the stored response, or a NotFoundException if there isn't one
+     * @return A handle to cancel the request with
+     */
+    public RequestHandle getStoredOwnProjects(final String token, Consumer<Result<List<Project>>> callback) {
+        return submit(new RequestTask<>(new Callable<Result<List<Project>>>() {
+            @Override
+            public Result<List<Project>> call() {
+                return readStoredResponse(token, OWN_PROJECTS_STORE_KEY, ModelDecoders.PROJECT_LIST);
+            }
+        }, callback, deadlineMillis));
+    }
 
+    /**
+     * Reads the last response of getOwnProfile saved on disk, so something can be shown while the network request runs.
+     * Requires MiddlewareConfig.responseStoreDirectory to be set.
+     *
+     * @param token    The JWT token of the authenticated user
+     * @param callback The callback to be executed with the stored response, or a NotFoundException if there isn't one
+     * @return A handle to cancel the request with
+     */
+    public RequestHandle getStoredOwnProfile(final String token, Consumer<Result<Profile>> callback) {
+        return submit(new RequestTask<>(new Callable<Result<Profile>>() {
+            @Override
+            public Result<Profile> call() {
+                return readStoredResponse(token, OWN_PROFILE_STORE_KEY, ModelDecoders.PROFILE);
+            }
+        }, callback, deadlineMillis));
+    }
+
+    /**
+     * Deletes every response saved on disk for the authenticated user. Should be called when the user logs out.
+     *
+     * @param token The JWT token of the authenticated user
+     * @throws IOException If the stored responses couldn't be deleted
+     */
+    public void clearStoredResponses(String token) throws IOException {
+        String account = storeAccount(token);
+        if (account != null) {
+            responseStore.clear(account);
+        }
+    }
+
+    void addPrefetcher(ProjectPrefetcher prefetcher) {
+        prefetchers.add(prefetcher);
+    }
+
+    void removePrefetcher(ProjectPrefetcher prefetcher) {
+        prefetchers.remove(prefetcher);
+    }
+
+    /**
+     * @return true if the project is cached and hasn't expired, without counting it as a cache hit or miss
+     */
+    boolean isProjectCached(String projectID) {
+        return projectCache.contains(projectID);
+    }
+
+    /**
+     * @return The cached project, null if it isn't cached or has expired, without counting it as a cache hit or miss
+     */
+    Project peekProject(String projectID) {
+        return projectCache.peek(projectID);
+    }
+
+    /**
+     * Replaces the cached project with a local version of it, e.g. one with edits that haven't been confirmed yet
+     */
+    void cacheProject(String projectID, Project project) {
+        projectCache.put(projectID, project);
+    }
+
+    /**
+     * @return The current state of the transport's connection pool
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return transport.getPoolStats();
+    }
+
+    /**
+     * @return How many calls were served by an identical request that was already in flight, instead of their own
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * @return The executor this middleware's callbacks are executed on
+     */
+    Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * @return The scheduler requests wait in, e.g. to check how many are queued per lane
+     */
+    public RequestScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * @return The latency, size, status code and exception counters of every route, listeners can be added to it
+     */
+    public MiddlewareMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return How many times a failed request has been sent again
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return The state of each route's circuit breaker, keyed by method and route, e.g. "GET http://developool.com/api/project/"
+     */
+    public Map<String, CircuitBreaker.State> getCircuitBreakerStates() {
+        Map<String, CircuitBreaker.State> states = new HashMap<>();
+        for (Map.Entry<String, CircuitBreaker> circuitBreaker : circuitBreakers.entrySet()) {
+            states.put(circuitBreaker.getKey(), circuitBreaker.getValue().getState());
+        }
+        return states;
+    }
+
+    /**
+     * @return The hit/miss/eviction counters of the project cache
+     */
+    public CacheStats getProjectCacheStats() {
+        return projectCache.stats();
+    }
+
+    /**
+     * @return The hit/miss/eviction counters of the profile cache
+     */
+    public CacheStats getProfileCacheStats() {
+        return profileCache.stats();
+    }
+
+    /**
+     * Drops everything cached in memory. Should be called when the user logs out.
+     */
+    public void clearCaches() {
+        projectCache.clear();
+        profileCache.clear();
+        projectIndex.clear();
+        if (validatorCache != null) {
+            validatorCache.clear();
+        }
+    }
+
+    private <T> Result<T> readStoredResponse(String token, String key, ResponseDecoder<T> decoder) {
+        if (token == null || token.isEmpty()) {
+            return new Result<>(new IllegalArgumentException(ILLEGAL_ARGUMENTS));
+        }
+        if (responseStore == null) {
+            return new Result<>(new IllegalStateException("The response store isn't enabled"));
+        }
+
+        String account = storeAccount(token);
         try {
-            URL url = new URL(urlString);
+            byte[] stored = account != null ? responseStore.get(account, key) : null;
+            if (stored == null) {
+                return new Result<>(new NotFoundException("No response has been stored yet"));
+            }
+            return new Result<>(decoder.decode(new ByteArrayInputStream(stored)));
+        } catch (IOException e) {
+            return new Result<>(e);
+        }
+    }
 
-            BufferedReader in = null;
-            OutputStream out = null;
-            HttpURLConnection connection = null;
-            StringBuilder response = new StringBuilder();
+    private void storeResponse(String account, String key, byte[] value) {
+        try {
+            responseStore.put(account, key, value);
+        } catch (IOException e) {
+            // The response store is only an optimization and the request itself still succeeded, so the failure is dropped.
+            // getStoredOwnProjects/getStoredOwnProfile serve the previous response until a later one is written.
+        }
+    }
 
-            try {
-                connection = (HttpURLConnection) url.openConnection();
-
-                // connection settings
-                connection.setDoOutput(output);
-                connection.setDoInput(input);
-                connection.setChunkedStreamingMode(chunkLen);
-                connection.setRequestMethod(requestMethod);
-
-                // set request properties (headers) if there are any
-                if (requestProps != null && !requestProps.isEmpty()) {
-                    for (Map.Entry<String, String> prop : requestProps.entrySet()) {
-                        connection.setRequestProperty(prop.getKey(), prop.getValue());
+    /**
+     * @return The authenticated account's profile if it's cached, null otherwise
+     */
+    private Profile cachedOwnProfile(String token) {
+        JwtClaims claims = JwtClaims.parse(token);
+        return claims != null && claims.subject != null ? profileCache.get(claims.subject) : null;
+    }
+
+    /**
+     * Responses are stored per account, so switching accounts never shows someone else's data.
+     * A token without a subject doesn't tell the account, and keying by the token itself would leave
+     * a log behind after every login that nothing clears, so its responses aren't stored.
+     *
+     * @return The account to store the token's responses under, null if they aren't stored
+     */
+    private String storeAccount(String token) {
+        if (responseStore == null) {
+            return null;
+        }
+        JwtClaims claims = JwtClaims.parse(token);
+        return claims != null ? claims.subject : null;
+    }
+
+    private Result<Profile> fetchProfile(String accountID) {
+        // build url
+        String url = GET_PROFILE_BY_ACCOUNT_ID.Route() + accountID;
+
+        // setup response code exceptions
+        SparseArray<Exception> responseCodeExceptions = new SparseArray<>();
+        responseCodeExceptions.append(HttpURLConnection.HTTP_BAD_REQUEST, new IllegalAccessException("Profile of that account hasn't been created yet"));
+        responseCodeExceptions.append(HttpURLConnection.HTTP_NOT_FOUND, new NotFoundException("Account with such ID wasn't found"));
+
+        Result<Profile> result = makeRequest(url, false, null, null, GET_PROFILE_BY_ACCOUNT_ID, responseCodeExceptions, ModelDecoders.PROFILE);
+        if (result.exception == null) {
+            profileCache.put(accountID, result.value);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the filter doesn't leave out any project, so the response is the complete catalogue
+     */
+    private static boolean isWholeCatalogue(ProjectFilter filter) {
+        return (filter.title == null || filter.title.isEmpty())
+                && filter.isPublic == null
+                && filter.isPrivate == null
+                && (filter.skills == null || filter.skills.isEmpty())
+                && (filter.interests == null || filter.interests.isEmpty())
+                && filter.pageSize == null
+                && (filter.offset == null || filter.offset == 0);
+    }
+
+    private String buildAllProjectsUrl(ProjectFilter filter) {
+        StringBuilder url = new StringBuilder();
+
+        url.append(GET_ALL_PROJECTS.Route());
+        url.append('?');
+
+        if (filter.title != null && !filter.title.isEmpty()) {
+            url.append("title=");
+            url.append(filter.title);
+            url.append('&');
+        }
+        if (filter.isPublic != null) {
+            url.append("public=");
+            url.append(filter.isPublic);
+            url.append('&');
+        }
+        if (filter.isPrivate != null) {
+            url.append("private=");
+            url.append(filter.isPrivate);
+            url.append('&');
+        }
+        if (filter.interests != null && !filter.interests.isEmpty()) {
+            for (String interest : filter.interests) {
+                url.append("interests[]=");
+                url.append(interest);
+                url.append('&');
+            }
+        }
+        if (filter.skills != null && !filter.skills.isEmpty()) {
+            for (String skill : filter.skills) {
+                url.append("skills[]=");
+                url.append(skill);
+                url.append('&');
+            }
+        }
+        if (filter.pageSize != null) {
+            url.append("limit=");
+            url.append(filter.pageSize);
+            url.append('&');
+        }
+        if (filter.offset != null) {
+            url.append("offset=");
+            url.append(filter.offset);
+            url.append('&');
+        }
+
+        return url.toString();
+    }
+
+    private <T> RequestHandle submit(RequestTask<T> request) {
+        return submit(request, null);
+    }
+
+    /**
+     * Runs a request, unless an identical one is already in flight. In that case the request
+     * waits for the other one's result instead of making its own call.
+     * @param request The request to run
+     * @param coalesceKey Identifies identical requests, see coalesceKey(). Null if the request can't be shared.
+     * @return The handle the caller can cancel the request with
+     */
+    @SuppressWarnings("unchecked")
+    private <T> RequestHandle submit(RequestTask<T> request, final String coalesceKey) {
+        if (request.getPriority() == null) {
+            request.setPriority(priority);
+        }
+        if (coalesceKey != null) {
+            while (true) {
+                final RequestTask<?> inFlight = inFlightRequests.putIfAbsent(coalesceKey, request);
+                if (inFlight == null) {
+                    final RequestTask<T> leader = request;
+                    leader.setOnComplete(new Runnable() {
+                        @Override
+                        public void run() {
+                            inFlightRequests.remove(coalesceKey, leader);
+                        }
+                    });
+                    break;
+                }
+                // the key includes the route, so identical requests always decode to the same type
+                if (((RequestTask<T>) inFlight).join(request, callbackExecutor)) {
+                    coalescedRequests.incrementAndGet();
+                    // a user waiting on a prefetch shouldn't wait in the background lane
+                    if (inFlight.getPriority() != null && request.getPriority().compareTo(inFlight.getPriority()) < 0) {
+                        inFlight.setPriority(request.getPriority());
+                        scheduler.promote(inFlight, request.getPriority());
                     }
+                    return request.getHandle();
                 }
+                // it finished in the meantime, so this request has to run on its own
+                inFlightRequests.remove(coalesceKey, inFlight);
+            }
+        }
+        request.execute(scheduler, host, callbackExecutor);
+        return request.getHandle();
+    }
 
-                // handle output
-                if (output) {
-                    out = new BufferedOutputStream(connection.getOutputStream());
-                    out.write(outputValue);
-                    out.flush();
-                }
+    /**
+     * @return The key identical requests are recognized by: the method, the URL and the token
+     */
+    private String coalesceKey(Request request, String url, String token) {
+        return request.RequestMethod() + ' ' + url + ' ' + token;
+    }
 
-                // make the request itself
-                connection.connect();
+    @SuppressWarnings("unchecked")
+    private <T> Result<T> makeRequest(
+            final String urlString,
+            Boolean output,
+            RequestBody outputValue,
+            Map<String, String> requestProps,
+            Request request,
+            final SparseArray<Exception> responseCodeExceptions,
+            final ResponseDecoder<T> decoder
+    ) {
+        String requestMethod = request.RequestMethod();
+
+        // make GET requests conditional if we've seen the response before
+        final String validatorKey;
+        final ValidatorCache.Entry validators;
+        if (validatorCache != null && GET_METHOD.equals(requestMethod)) {
+            validatorKey = ValidatorCache.key(urlString, requestProps != null ? requestProps.get(AUTHORIZATION_HEADER) : null);
+            validators = validatorCache.get(validatorKey);
+        } else {
+            validatorKey = null;
+            validators = null;
+        }
+        requestProps = requestProps != null ? new HashMap<>(requestProps) : new HashMap<String, String>();
+        // ask for compressed responses, they're decompressed while they're decoded
+        requestProps.put(ContentEncoding.ACCEPT_ENCODING_HEADER, ContentEncoding.GZIP);
+        // a session replaces its token before it expires, and once more if the server rejects it anyway
+        String sessionToken = null;
+        boolean reauthenticated = false;
+        if (session != null && session.owns(requestProps.get(AUTHORIZATION_HEADER))) {
+            try {
+                sessionToken = session.freshToken();
+            } catch (Exception e) {
+                return new Result<>(e);
+            }
+            requestProps.put(AUTHORIZATION_HEADER, sessionToken);
+        }
+        if (validators != null) {
+            if (validators.eTag != null) {
+                requestProps.put(IF_NONE_MATCH_HEADER, validators.eTag);
+            }
+            if (validators.lastModified != null) {
+                requestProps.put(IF_MODIFIED_SINCE_HEADER, validators.lastModified);
+            }
+        }
+
+        Transport.ResponseHandler<Result<T>> handler = new Transport.ResponseHandler<Result<T>>() {
+            @Override
+            public Result<T> handle(int responseCode, Map<String, List<String>> headers, InputStream body) throws IOException {
+                // nothing changed since the last time, serve what we decoded back then.
+                // The key includes the URL, so the value is always of the type this request decodes to
+                if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && validators != null) {
+                    return new Result<>((T) validators.value());
+                }
 
                 // check response code
-                int responseCode = connection.getResponseCode();
                 if (responseCode != HttpURLConnection.HTTP_OK) {
                     // Map through the response code exceptions map and return the appropriate exception
 
@@ -798,45 +1541,191 @@ public class DevelopoolMiddleware implements ServerMiddleware {
 
                     for (int i = 0; i < size - 1; i++) {
                         if (responseCodeExceptions.keyAt(i) == responseCode) {
-                            return new Result(responseCodeExceptions.valueAt(i));
+                            return new Result<>(responseCodeExceptions.valueAt(i));
                         }
                     }
+
+                    if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                        throw new HttpStatusException("Server returned HTTP response code: " + responseCode + " for URL: " + urlString, responseCode);
+                    }
                 }
 
-                // handle input from server
-                if (input) {
-                    String temp;
-                    in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+                // decode the response straight from the connection
+                T value = decoder.decode(body);
+
+                if (validatorKey != null) {
+                    validatorCache.put(validatorKey, headerValue(headers, ETAG_HEADER), headerValue(headers, LAST_MODIFIED_HEADER), value);
+                }
+                return new Result<>(value);
+            }
+        };
+
+        CircuitBreaker circuitBreaker = circuitBreaker(request);
+        CallContext context = CallContext.current();
+        if (context == null || !context.isBackground()) {
+            // the network is needed for something the user is waiting on
+            for (ProjectPrefetcher prefetcher : prefetchers) {
+                prefetcher.makeWay();
+            }
+        }
+        ExchangeMeter<Result<T>> meter = new ExchangeMeter<>(handler);
+        RequestBody body = null;
+        if (output && outputValue != null) {
+            boolean compress = shouldCompress(requestMethod, outputValue);
+            if (compress) {
+                requestProps.put(ContentEncoding.CONTENT_ENCODING_HEADER, ContentEncoding.GZIP);
+            }
+            // the body is encoded (and compressed) while it's written, so it's counted on the way out
+            body = meter.meterRequest(outputValue, compress);
+        }
+
+        TransportRequest transportRequest = new TransportRequest(urlString, requestMethod, requestProps, body);
+        if (context != null) {
+            transportRequest.cancellationSignal = context.getCancellationSignal();
+        }
+        int attempt = 0;
+
+        while (true) {
+            attempt++;
+
+            long remainingMillis = context != null ? context.remainingMillis() : Long.MAX_VALUE;
+            if (context != null && context.isCancelled()) {
+                return new Result<>(new InterruptedException("Request cancelled"));
+            }
+            if (remainingMillis <= 0) {
+                return new Result<>(new DeadlineExceededException("Deadline exceeded before " + routeKey(request) + " could finish"));
+            }
+
+            // fail right away while the route is given time to recover
+            if (!circuitBreaker.allowRequest()) {
+                return new Result<>(new CircuitOpenException("Too many failed requests to " + routeKey(request) + ", try again later"));
+            }
+
+            // never wait on the network longer than the deadline allows
+            transportRequest.connectTimeoutMillis = timeoutMillis(connectTimeoutMillis, remainingMillis);
+            transportRequest.readTimeoutMillis = timeoutMillis(readTimeoutMillis, remainingMillis);
 
-                    while ((temp = in.readLine()) != null) {
-                        response.append(temp);
-                        response.append(System.lineSeparator());
+            meter.reset();
+            long startNanos = System.nanoTime();
+            try {
+                Result<T> result = transport.execute(transportRequest, meter);
+                metrics.record(request, meter.getStatusCode(), System.nanoTime() - startNanos, meter.getRequestBytes(), meter.getUncompressedRequestBytes(), meter.getResponseBytes(), meter.getUncompressedResponseBytes(), result.exception);
+                circuitBreaker.onSuccess();
+                if (sessionRejected(sessionToken, reauthenticated, meter)) {
+                    reauthenticated = true;
+                    try {
+                        sessionToken = session.refresh(sessionToken);
+                    } catch (Exception refreshFailed) {
+                        return new Result<>(refreshFailed);
                     }
+                    requestProps.put(AUTHORIZATION_HEADER, sessionToken);
+                    continue;
+                }
+                return result;
+            } catch (Exception e) {
+                metrics.record(request, meter.getStatusCode(), System.nanoTime() - startNanos, meter.getRequestBytes(), meter.getUncompressedRequestBytes(), meter.getResponseBytes(), meter.getUncompressedResponseBytes(), e);
+                if (context != null && context.isCancelled()) {
+                    // we aborted the connection ourselves, that says nothing about the route
+                    circuitBreaker.onCancelled();
+                    return new Result<>(new InterruptedException("Request cancelled"));
+                }
+
+                if (RetryPolicy.isTransientFailure(e)) {
+                    circuitBreaker.onFailure();
                 } else {
-                    response.append("200");
+                    // the server answered, it just didn't like the request
+                    circuitBreaker.onSuccess();
+                }
+                if (sessionRejected(sessionToken, reauthenticated, meter)) {
+                    reauthenticated = true;
+                    try {
+                        sessionToken = session.refresh(sessionToken);
+                    } catch (Exception refreshFailed) {
+                        return new Result<>(refreshFailed);
+                    }
+                    requestProps.put(AUTHORIZATION_HEADER, sessionToken);
+                    continue;
                 }
-            } finally {
-                // make sure to close everything as appropriate
-                if (in != null) {
-                    in.close();
+
+                if (!retryPolicy.shouldRetry(requestMethod, e, attempt)) {
+                    return new Result<>(e);
                 }
-                if (out != null) {
-                    out.close();
+
+                long backoffMillis = retryPolicy.backoffMillis(attempt);
+                if (context != null && backoffMillis >= context.remainingMillis()) {
+                    // the retry couldn't finish in time anyway
+                    return new Result<>(new DeadlineExceededException("Deadline exceeded before " + routeKey(request) + " could finish"));
                 }
-                if (connection != null) {
-                    connection.disconnect();
+
+                retries.incrementAndGet();
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    if (context != null && context.isCancelled()) {
+                        return new Result<>(new InterruptedException("Request cancelled"));
+                    }
+                    Thread.currentThread().interrupt();
+                    return new Result<>(e);
                 }
             }
+        }
+    }
 
-            // check if there was any response from the server
-            if (!response.toString().isEmpty()) {
-                result = new Result(response.toString());
-            } else {
-                result = new Result(new IOException("No response from server"));
+    /**
+     * Request bodies are only compressed if the server has been configured to accept that, see MiddlewareConfig.requestCompressionThresholdBytes
+     */
+    private boolean shouldCompress(String requestMethod, RequestBody body) {
+        if (requestCompressionThresholdBytes < 0 || !(POST_METHOD.equals(requestMethod) || PUT_METHOD.equals(requestMethod))) {
+            return false;
+        }
+        // streamed bodies don't know their size, so they're judged by the size of their fields instead of being encoded twice
+        long length = RequestBodies.estimateLength(body);
+        return length >= 0 && length >= requestCompressionThresholdBytes;
+    }
+
+    /**
+     * @return true if the server rejected the session's token and the request hasn't been sent with a new one yet
+     */
+    private boolean sessionRejected(String sessionToken, boolean reauthenticated, ExchangeMeter<?> meter) {
+        return sessionToken != null && !reauthenticated && meter.getStatusCode() == HttpURLConnection.HTTP_UNAUTHORIZED;
+    }
+
+    /**
+     * @return The configured timeout, shortened to the time left until the deadline
+     */
+    private static int timeoutMillis(int configuredMillis, long remainingMillis) {
+        if (remainingMillis == Long.MAX_VALUE) {
+            return configuredMillis;
+        }
+        if (configuredMillis == 0) {
+            return (int) Math.min(Integer.MAX_VALUE, remainingMillis);
+        }
+        return (int) Math.min(configuredMillis, remainingMillis);
+    }
+
+    private CircuitBreaker circuitBreaker(Request request) {
+        String key = routeKey(request);
+        CircuitBreaker circuitBreaker = circuitBreakers.get(key);
+        if (circuitBreaker == null) {
+            circuitBreakers.putIfAbsent(key, new CircuitBreaker(circuitBreakerFailureThreshold, circuitBreakerOpenMillis));
+            circuitBreaker = circuitBreakers.get(key);
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * @return The key a route's circuit breaker is kept under, e.g. "GET http://developool.com/api/project/"
+     */
+    private static String routeKey(Request request) {
+        return request.RequestMethod() + ' ' + request.Route();
+    }
+
+    private static String headerValue(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
             }
-        } catch (Exception e) {
-            result = new Result(e);
         }
-        return result;
+        return null;
     }
 }
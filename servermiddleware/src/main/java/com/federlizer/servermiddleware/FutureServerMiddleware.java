@@ -0,0 +1,162 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Account;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.models.ProjectFilter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Adapts a callback based ServerMiddleware to futures. Each future is completed by the callback of its call,
+ * so the middleware should execute callbacks on RequestExecutors.directExecutor() to keep
+ * the futures off the main thread, see DevelopoolMiddleware.async().
+ */
+public class FutureServerMiddleware implements AsyncServerMiddleware {
+    private final ServerMiddleware middleware;
+
+    public FutureServerMiddleware(ServerMiddleware middleware) {
+        this.middleware = middleware;
+    }
+
+    @Override
+    public CompletableFuture<Account> authenticate(final String email, final String password) {
+        RequestFuture<Account> future = new RequestFuture<>();
+        return future.attach(middleware.authenticate(email, password, future));
+    }
+
+    @Override
+    public CompletableFuture<String> register(final String username, final String email, final String password, final String passwordConfirmation) {
+        RequestFuture<String> future = new RequestFuture<>();
+        return future.attach(middleware.register(username, email, password, passwordConfirmation, future));
+    }
+
+    @Override
+    public CompletableFuture<List<Project>> getOwnProjects(final String token) {
+        RequestFuture<List<Project>> future = new RequestFuture<>();
+        return future.attach(middleware.getOwnProjects(token, future));
+    }
+
+    @Override
+    public CompletableFuture<Project> createNewProject(final String token, final Project newProject) {
+        RequestFuture<Project> future = new RequestFuture<>();
+        return future.attach(middleware.createNewProject(token, newProject, future));
+    }
+
+    @Override
+    public CompletableFuture<Project> getProjectById(final String token, final String projectID) {
+        RequestFuture<Project> future = new RequestFuture<>();
+        return future.attach(middleware.getProjectById(token, projectID, future));
+    }
+
+    @Override
+    public CompletableFuture<List<Project>> getAllProjects(final ProjectFilter filter) {
+        RequestFuture<List<Project>> future = new RequestFuture<>();
+        return future.attach(middleware.getAllProjects(filter, future));
+    }
+
+    @Override
+    public CompletableFuture<Project> updateProject(final String token, final String projectID, final Project updatedProject) {
+        RequestFuture<Project> future = new RequestFuture<>();
+        return future.attach(middleware.updateProject(token, projectID, updatedProject, future));
+    }
+
+    @Override
+    public CompletableFuture<Project> updateProject(final String token, final String projectID, final Project lastKnown, final Project updatedProject) {
+        RequestFuture<Project> future = new RequestFuture<>();
+        return future.attach(middleware.updateProject(token, projectID, lastKnown, updatedProject, future));
+    }
+
+    @Override
+    public CompletableFuture<String> deleteProject(final String token, final String projectID) {
+        RequestFuture<String> future = new RequestFuture<>();
+        return future.attach(middleware.deleteProject(token, projectID, future));
+    }
+
+    @Override
+    public CompletableFuture<String> joinProject(final String token, final String projectID) {
+        RequestFuture<String> future = new RequestFuture<>();
+        return future.attach(middleware.joinProject(token, projectID, future));
+    }
+
+    @Override
+    public CompletableFuture<String> leaveProject(final String token, final String projectID) {
+        RequestFuture<String> future = new RequestFuture<>();
+        return future.attach(middleware.leaveProject(token, projectID, future));
+    }
+
+    @Override
+    public CompletableFuture<Profile> getOwnProfile(final String token) {
+        RequestFuture<Profile> future = new RequestFuture<>();
+        return future.attach(middleware.getOwnProfile(token, future));
+    }
+
+    @Override
+    public CompletableFuture<Profile> getProfileByAccountID(final String accountID) {
+        RequestFuture<Profile> future = new RequestFuture<>();
+        return future.attach(middleware.getProfileByAccountID(accountID, future));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Result<Profile>>> getProfilesByAccountIDs(final List<String> accountIDs) {
+        RequestFuture<Map<String, Result<Profile>>> future = new RequestFuture<>();
+        return future.attach(middleware.getProfilesByAccountIDs(accountIDs, future));
+    }
+
+    @Override
+    public CompletableFuture<Profile> createOwnProfile(final String token, final Profile profile) {
+        RequestFuture<Profile> future = new RequestFuture<>();
+        return future.attach(middleware.createOwnProfile(token, profile, future));
+    }
+
+    @Override
+    public CompletableFuture<Profile> updateOwnProfile(final String token, final Profile newProfile) {
+        RequestFuture<Profile> future = new RequestFuture<>();
+        return future.attach(middleware.updateOwnProfile(token, newProfile, future));
+    }
+
+    @Override
+    public CompletableFuture<Profile> updateOwnProfile(final String token, final Profile lastKnown, final Profile newProfile) {
+        RequestFuture<Profile> future = new RequestFuture<>();
+        return future.attach(middleware.updateOwnProfile(token, lastKnown, newProfile, future));
+    }
+
+    /**
+     * A future completed by a call's callback, that cancels the call when it's cancelled itself
+     */
+    private static class RequestFuture<T> extends CompletableFuture<T> implements Consumer<Result<T>> {
+        private volatile RequestHandle handle;
+
+        RequestFuture<T> attach(RequestHandle handle) {
+            this.handle = handle;
+            // cancelled before the call had been submitted
+            if (isCancelled()) {
+                handle.cancel();
+            }
+            return this;
+        }
+
+        @Override
+        public void accept(Result<T> result) {
+            if (result.exception != null) {
+                completeExceptionally(result.exception);
+            } else {
+                complete(result.value);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            // without a handle yet, attach() takes care of it
+            RequestHandle handle = this.handle;
+            if (cancelled && handle != null) {
+                handle.cancel();
+            }
+            return cancelled;
+        }
+    }
+}
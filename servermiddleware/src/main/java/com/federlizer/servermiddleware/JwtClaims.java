@@ -0,0 +1,67 @@
+package com.federlizer.servermiddleware;
+
+import android.util.Base64;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The claims of a JWT token that the middleware cares about.
+ * The token is only decoded, not verified - that's the server's job.
+ */
+public class JwtClaims {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    public final String subject;
+    /**
+     * Expiry of the token in milliseconds since the epoch, or 0 if the token doesn't expire
+     */
+    public final long expiresAt;
+
+    public JwtClaims(String subject, long expiresAt) {
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Decodes the payload of a JWT token
+     * @param token The token, with or without the "Bearer " prefix
+     * @return The decoded claims, or null if the token isn't a valid JWT
+     */
+    public static JwtClaims parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        if (token.startsWith(BEARER_PREFIX)) {
+            token = token.substring(BEARER_PREFIX.length());
+        }
+
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        try {
+            byte[] payload = Base64.decode(parts[1], Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
+            JSONObject claims = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+
+            // the standard claim is "sub", but some servers put the account ID in "id" instead
+            String subject = claims.optString("sub", null);
+            if (subject == null) {
+                subject = claims.optString("id", null);
+            }
+            if (subject == null) {
+                subject = claims.optString("_id", null);
+            }
+
+            // "exp" is in seconds
+            long expiresAt = claims.optLong("exp") * 1000;
+
+            return new JwtClaims(subject, expiresAt);
+        } catch (IllegalArgumentException | JSONException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.metrics.MetricsListener;
+import com.federlizer.servermiddleware.resilience.CircuitBreaker;
+import com.federlizer.servermiddleware.resilience.RetryPolicy;
+import com.federlizer.servermiddleware.transport.Transport;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration for DevelopoolMiddleware. Every field has a sensible default, so only the ones that need changing have to be set.
+ */
+public class MiddlewareConfig {
+    public static final String DEFAULT_API_ROUTE = "http://developool.com/api/";
+    public static final int DEFAULT_MAX_REQUESTS_IN_FLIGHT = 4;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+    public static final int DEFAULT_BATCH_CONCURRENCY = 4;
+    public static final int DEFAULT_VALIDATOR_CACHE_SIZE = 64;
+    public static final int DEFAULT_PROJECT_CACHE_SIZE = 100;
+    public static final long DEFAULT_PROJECT_CACHE_TTL_MILLIS = 60 * 1000;
+    public static final int DEFAULT_PROFILE_CACHE_SIZE = 100;
+    public static final long DEFAULT_PROFILE_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+    public static final long DEFAULT_PROJECT_INDEX_TTL_MILLIS = 5 * 60 * 1000;
+    public static final long DEFAULT_RESPONSE_STORE_MAX_BYTES = 1024 * 1024;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 15 * 1000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 20 * 1000;
+    public static final long DEFAULT_DEADLINE_MILLIS = 60 * 1000;
+    public static final int REQUEST_COMPRESSION_DISABLED = -1;
+
+    /**
+     * The base URL every route is resolved against, e.g. to point the middleware at a staging or a local stub server
+     */
+    public String apiRoute = DEFAULT_API_ROUTE;
+
+    /**
+     * The maximum number of requests running in parallel. Requests past it wait in their priority's lane.
+     * Ignored if requestScheduler is set.
+     */
+    public int maxRequestsInFlight = DEFAULT_MAX_REQUESTS_IN_FLIGHT;
+
+    /**
+     * The maximum number of requests running in parallel against the same host.
+     * Ignored if requestScheduler is set.
+     */
+    public int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+
+    /**
+     * The executor requests run on. If null, a bounded pool of maxRequestsInFlight threads is used.
+     * Ignored if requestScheduler is set.
+     */
+    public Executor requestExecutor;
+
+    /**
+     * Decides which waiting request runs next, e.g. one scheduler shared by several middlewares.
+     * If null, one is created from requestExecutor, maxRequestsInFlight and maxRequestsPerHost.
+     */
+    public RequestScheduler requestScheduler;
+
+    /**
+     * The executor callbacks are executed on. If null, callbacks are posted to the main looper.
+     * Use RequestExecutors.directExecutor() to receive them on the request thread instead.
+     */
+    public Executor callbackExecutor;
+
+    /**
+     * The maximum number of requests a batch call like getProfilesByAccountIDs runs in parallel
+     */
+    public int batchConcurrency = DEFAULT_BATCH_CONCURRENCY;
+
+    /**
+     * The transport requests are sent through. If null, an HttpUrlConnectionTransport is used.
+     */
+    public Transport transport;
+
+    /**
+     * How many GET responses to remember ETag/Last-Modified validators for.
+     * Set to 0 to always make unconditional requests.
+     */
+    public int validatorCacheSize = DEFAULT_VALIDATOR_CACHE_SIZE;
+
+    /**
+     * How many projects to keep in memory, keyed by project ID. Set to 0 to disable the project cache.
+     */
+    public int projectCacheSize = DEFAULT_PROJECT_CACHE_SIZE;
+
+    /**
+     * How long a cached project is served before it's fetched again
+     */
+    public long projectCacheTtlMillis = DEFAULT_PROJECT_CACHE_TTL_MILLIS;
+
+    /**
+     * How many profiles to keep in memory, keyed by account ID. Set to 0 to disable the profile cache.
+     */
+    public int profileCacheSize = DEFAULT_PROFILE_CACHE_SIZE;
+
+    /**
+     * How long a cached profile is served before it's fetched again
+     */
+    public long profileCacheTtlMillis = DEFAULT_PROFILE_CACHE_TTL_MILLIS;
+
+    /**
+     * How long getAllProjects answers filtered queries from the catalogue an unfiltered getAllProjects downloaded,
+     * instead of asking the server. Set to 0 to always ask the server.
+     */
+    public long projectIndexTtlMillis = DEFAULT_PROJECT_INDEX_TTL_MILLIS;
+
+    /**
+     * The directory the last getOwnProjects and getOwnProfile responses are persisted in, e.g. a folder in
+     * Context.getCacheDir(). If null, nothing is persisted and getStoredOwnProjects/getStoredOwnProfile fail.
+     * Only responses for tokens that carry the account ID in their subject are persisted.
+     */
+    public File responseStoreDirectory;
+
+    /**
+     * The maximum number of bytes persisted per account
+     */
+    public long responseStoreMaxBytes = DEFAULT_RESPONSE_STORE_MAX_BYTES;
+
+    /**
+     * Decides which failed requests are sent again and how long to wait in between.
+     * Only idempotent requests are retried. If null, nothing is retried.
+     */
+    public RetryPolicy retryPolicy = new RetryPolicy();
+
+    /**
+     * How many failures in a row make a route fail fast
+     */
+    public int circuitBreakerFailureThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * How long a failing route fails fast before a single probe request is let through
+     */
+    public long circuitBreakerOpenMillis = CircuitBreaker.DEFAULT_OPEN_MILLIS;
+
+    /**
+     * How long a request waits for the connection to be established. 0 waits forever.
+     */
+    public int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+    /**
+     * How long a request waits for the server to send data once connected. 0 waits forever.
+     */
+    public int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+    /**
+     * How long a call may take in total, counting the time spent queued, every retry and the backoff in between.
+     * Calls past their deadline fail with a DeadlineExceededException. 0 for no deadline.
+     * Can be changed for single calls with DevelopoolMiddleware.withDeadline().
+     */
+    public long deadlineMillis = DEFAULT_DEADLINE_MILLIS;
+
+    /**
+     * Notified of every request the middleware sends. More listeners can be added through DevelopoolMiddleware.getMetrics().
+     */
+    public MetricsListener metricsListener;
+
+    /**
+     * POST and PUT bodies of at least this many bytes are sent gzip compressed, with a Content-Encoding header.
+     * Only enable it if the server accepts compressed requests. Responses are always requested compressed.
+     */
+    public int requestCompressionThresholdBytes = REQUEST_COMPRESSION_DISABLED;
+}
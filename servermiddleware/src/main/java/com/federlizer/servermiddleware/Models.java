@@ -0,0 +1,142 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Copies and merges of the models, for the caches and the parts of the middleware that keep changes around before they're sent
+ */
+final class Models {
+    static Project copy(Project project) {
+        return new Project(project.id, project.title, project.publicDescription, project.privateDescription,
+                copy(project.interests), copy(project.skills), project.isPrivate);
+    }
+
+    static Profile copy(Profile profile) {
+        return new Profile(profile.firstName, profile.lastName, copy(profile.interests), copy(profile.skills),
+                copyEducations(profile.educations), copyPastExperiences(profile.pastExperiences),
+                profile.github, profile.facebook, profile.linkedIn, profile.twitter, profile.instagram, profile.accountID);
+    }
+
+    /**
+     * Copies a decoded response: a project, a profile or a list of them. Anything else is immutable and returned as it is.
+     */
+    static Object copyValue(Object value) {
+        if (value instanceof Project) {
+            return copy((Project) value);
+        }
+        if (value instanceof Profile) {
+            return copy((Profile) value);
+        }
+        if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            List<Object> copies = new ArrayList<>(values.size());
+            for (Object element : values) {
+                copies.add(copyValue(element));
+            }
+            return copies;
+        }
+        return value;
+    }
+
+    private static List<Education> copyEducations(List<Education> educations) {
+        if (educations == null) {
+            return null;
+        }
+        List<Education> copies = new ArrayList<>(educations.size());
+        for (Education education : educations) {
+            copies.add(education == null ? null : new Education(education.instituteName, education.degree,
+                    education.fieldOfStudy, copy(education.fromDate), copy(education.endDate), education.description));
+        }
+        return copies;
+    }
+
+    private static List<PastExperience> copyPastExperiences(List<PastExperience> experiences) {
+        if (experiences == null) {
+            return null;
+        }
+        List<PastExperience> copies = new ArrayList<>(experiences.size());
+        for (PastExperience experience : experiences) {
+            copies.add(experience == null ? null : new PastExperience(experience.company, experience.jobTitle,
+                    experience.location, copy(experience.fromDate), copy(experience.endDate), experience.description));
+        }
+        return copies;
+    }
+
+    private static Date copy(Date date) {
+        return date != null ? new Date(date.getTime()) : null;
+    }
+
+    private static List<String> copy(List<String> values) {
+        return values != null ? new ArrayList<>(values) : null;
+    }
+
+    /**
+     * Applies the fields that are set in the later update on top of the earlier one
+     */
+    static void merge(Project into, Project later) {
+        if (later.title != null) {
+            into.title = later.title;
+        }
+        if (later.publicDescription != null) {
+            into.publicDescription = later.publicDescription;
+        }
+        if (later.privateDescription != null) {
+            into.privateDescription = later.privateDescription;
+        }
+        if (later.interests != null) {
+            into.interests = later.interests;
+        }
+        if (later.skills != null) {
+            into.skills = later.skills;
+        }
+        if (later.isPrivate != null) {
+            into.isPrivate = later.isPrivate;
+        }
+    }
+
+    static void merge(Profile into, Profile later) {
+        if (later.firstName != null) {
+            into.firstName = later.firstName;
+        }
+        if (later.lastName != null) {
+            into.lastName = later.lastName;
+        }
+        if (later.interests != null) {
+            into.interests = later.interests;
+        }
+        if (later.skills != null) {
+            into.skills = later.skills;
+        }
+        if (later.educations != null) {
+            into.educations = later.educations;
+        }
+        if (later.pastExperiences != null) {
+            into.pastExperiences = later.pastExperiences;
+        }
+        if (later.github != null) {
+            into.github = later.github;
+        }
+        if (later.facebook != null) {
+            into.facebook = later.facebook;
+        }
+        if (later.linkedIn != null) {
+            into.linkedIn = later.linkedIn;
+        }
+        if (later.twitter != null) {
+            into.twitter = later.twitter;
+        }
+        if (later.instagram != null) {
+            into.instagram = later.instagram;
+        }
+    }
+
+    private Models() {
+    }
+}
@@ -0,0 +1,539 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.exceptions.DeadlineExceededException;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.resilience.RetryPolicy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lets the user keep editing while the device is offline. Writes go through the queue, which persists them before
+ * they're sent and keeps them until the server has answered, so they survive both a lost connection and the app being killed.
+ * The file is written on a background thread, and a mutation is only sent once the write that contains it has finished.
+ * <p>
+ * A write that fails because of the network or the server stays queued, and the queue pauses until replay() is called,
+ * e.g. from a ConnectivityManager network callback. Any other failure, like a 404, is final and handed to the callback.
+ * The queue also pauses if it couldn't be written to the file, since nothing is sent before it's on disk.
+ * replay() tries the write again.
+ * Mutations of the same project or profile are sent one after the other in the order they were made,
+ * mutations of different ones in parallel, up to the concurrency limit.
+ * <p>
+ * Redundant writes are merged while they wait:
+ * several updates of the same project or profile are sent as one, with the later changes on top of the earlier ones,
+ * and a join followed by a leave of the same project (or the other way round) cancel each other out without sending anything,
+ * as long as the first one hasn't been attempted yet.
+ * Every merged call still gets its callback, and cancelling a merged mutation cancels all of the calls in it.
+ * <p>
+ * Callbacks only exist as long as the process that made the call. Mutations restored from disk report
+ * their result to the Listener only, so anything that needs to know about them should be a listener.
+ */
+public class MutationQueue {
+    public static final int DEFAULT_MAX_CONCURRENT = 2;
+    // the value join and leave callbacks get when they cancelled each other out
+    public static final String CANCELLED_OUT = "Cancelled out by a later mutation, nothing was sent";
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Notified of the result of every mutation once it's final, on the middleware's callback executor
+     */
+    public interface Listener {
+        void onMutationDone(QueuedMutation mutation, Result<?> result);
+
+        /**
+         * Called when the queue couldn't be written to its file. The queue is paused until replay() is called.
+         */
+        void onPersistFailed(IOException e);
+    }
+
+    private final DevelopoolMiddleware middleware;
+    private final MutationStore store;
+    private final int maxConcurrent;
+    private final Executor callbackExecutor;
+    private final ThreadPoolExecutor writer;
+
+    private final List<QueuedMutation> queue;
+    private final List<Listener> listeners = new ArrayList<>();
+    private long nextId;
+    private boolean paused;
+    private boolean closed;
+    // the queue is persisted in versions, a write that's still waiting is replaced by the next one
+    private long requestedVersion;
+    private long persistedVersion;
+    private byte[] pendingSnapshot;
+    private long pendingVersion;
+
+    public MutationQueue(DevelopoolMiddleware middleware, File file) throws IOException {
+        this(middleware, file, DEFAULT_MAX_CONCURRENT);
+    }
+
+    /**
+     * Restores the mutations that were still queued when the app was last killed.
+     * They're sent along with the next mutation, or by replay().
+     *
+     * @param middleware    The middleware the mutations are sent through. Use session.middleware() to have expired tokens replaced.
+     * @param file          The file the queue is persisted in, e.g. in Context.getFilesDir()
+     * @param maxConcurrent How many mutations may be sent at the same time
+     * @throws IOException If the persisted queue couldn't be read
+     */
+    public MutationQueue(DevelopoolMiddleware middleware, File file, int maxConcurrent) throws IOException {
+        this.middleware = middleware;
+        this.store = new MutationStore(file);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.callbackExecutor = middleware.getCallbackExecutor();
+        this.writer = new ThreadPoolExecutor(1, 1, WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "DevelopoolMutationWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        writer.allowCoreThreadTimeOut(true);
+        this.queue = store.load(this);
+        for (QueuedMutation mutation : queue) {
+            nextId = Math.max(nextId, mutation.id + 1);
+        }
+    }
+
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues a new project, see ServerMiddleware.createNewProject(). New projects are never merged.
+     * The server may have created the project even if the connection broke before it answered,
+     * in which case the replay fails with a ProjectAlreadyExistsException.
+     *
+     * @return A handle to cancel the mutation with
+     */
+    public QueuedMutation createNewProject(String token, Project newProject, Consumer<Result<Project>> callback) {
+        if (token == null || token.isEmpty() || newProject == null) {
+            return rejected(QueuedMutation.Kind.CREATE_PROJECT, callback);
+        }
+        return enqueue(QueuedMutation.Kind.CREATE_PROJECT, token, null, Models.copy(newProject), null, callback);
+    }
+
+    /**
+     * Queues a project update, see ServerMiddleware.updateProject().
+     * Merged with an update of the same project that's still waiting.
+     *
+     * @return A handle to cancel the mutation with
+     */
+    public QueuedMutation updateProject(String token, String projectID, Project updatedProject, Consumer<Result<Project>> callback) {
+        if (token == null || token.isEmpty() || projectID == null || projectID.isEmpty() || updatedProject == null) {
+            return rejected(QueuedMutation.Kind.UPDATE_PROJECT, callback);
+        }
+        return enqueue(QueuedMutation.Kind.UPDATE_PROJECT, token, projectID, Models.copy(updatedProject), null, callback);
+    }
+
+    /**
+     * Queues joining a project, see ServerMiddleware.joinProject().
+     * Cancels out with a leave of the same project that's still waiting.
+     *
+     * @return A handle to cancel the mutation with
+     */
+    public QueuedMutation joinProject(String token, String projectID, Consumer<Result<String>> callback) {
+        if (token == null || token.isEmpty() || projectID == null || projectID.isEmpty()) {
+            return rejected(QueuedMutation.Kind.JOIN_PROJECT, callback);
+        }
+        return enqueue(QueuedMutation.Kind.JOIN_PROJECT, token, projectID, null, null, callback);
+    }
+
+    /**
+     * Queues leaving a project, see ServerMiddleware.leaveProject().
+     * Cancels out with a join of the same project that's still waiting.
+     *
+     * @return A handle to cancel the mutation with
+     */
+    public QueuedMutation leaveProject(String token, String projectID, Consumer<Result<String>> callback) {
+        if (token == null || token.isEmpty() || projectID == null || projectID.isEmpty()) {
+            return rejected(QueuedMutation.Kind.LEAVE_PROJECT, callback);
+        }
+        return enqueue(QueuedMutation.Kind.LEAVE_PROJECT, token, projectID, null, null, callback);
+    }
+
+    /**
+     * Queues a profile update, see ServerMiddleware.updateOwnProfile().
+     * Merged with an update of the same account's profile that's still waiting.
+     *
+     * @return A handle to cancel the mutation with
+     */
+    public QueuedMutation updateOwnProfile(String token, Profile newProfile, Consumer<Result<Profile>> callback) {
+        if (token == null || token.isEmpty() || newProfile == null) {
+            return rejected(QueuedMutation.Kind.UPDATE_OWN_PROFILE, callback);
+        }
+        return enqueue(QueuedMutation.Kind.UPDATE_OWN_PROFILE, token, null, null, Models.copy(newProfile), callback);
+    }
+
+    /**
+     * Sends whatever is queued, e.g. once the device is back online, or right after creating the queue
+     * to send the mutations restored from disk.
+     */
+    public void replay() {
+        synchronized (this) {
+            paused = false;
+            if (persistedVersion < requestedVersion && pendingSnapshot == null) {
+                // the last write failed, the mutations waiting for it are sent once it's on disk
+                persist();
+            }
+        }
+        launch();
+    }
+
+    /**
+     * @return true if the last attempt failed because of the network or the server, or the queue couldn't be written,
+     * and replay() hasn't been called since
+     */
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @return The mutations that haven't been sent successfully yet, in the order they were made
+     */
+    public synchronized List<QueuedMutation> getPending() {
+        return new ArrayList<>(queue);
+    }
+
+    /**
+     * Stops sending mutations. The ones in flight finish, the rest stay persisted for the next queue on the same file.
+     * Waits for the queue to be written, so the next queue finds everything.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        Future<?> written = writer.submit(new Runnable() {
+            @Override
+            public void run() {
+                // the writes queued before it have finished once this runs
+            }
+        });
+        try {
+            written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // an empty runnable doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    boolean cancel(QueuedMutation mutation) {
+        RequestHandle inFlight;
+        synchronized (this) {
+            if (mutation.done) {
+                return false;
+            }
+            mutation.done = true;
+            mutation.cancelled = true;
+            queue.remove(mutation);
+            persist();
+            inFlight = mutation.inFlight;
+        }
+        // the server may still have received it
+        if (inFlight != null) {
+            inFlight.cancel();
+        }
+        // the calls merged into it share the handle, so all of them and the listeners are told it was dropped
+        finish(mutation, new Result<>(new InterruptedException("Mutation cancelled")));
+        launch();
+        return true;
+    }
+
+    private QueuedMutation enqueue(QueuedMutation.Kind kind, String token, String projectID, Project project, Profile profile, Consumer<?> callback) {
+        QueuedMutation cancelledOut = null;
+        QueuedMutation mutation;
+        synchronized (this) {
+            mutation = new QueuedMutation(this, nextId++, kind, token, projectID, project, profile);
+            QueuedMutation previous = lastWaiting(mutation);
+            if (previous != null && previous.kind == kind && (kind == QueuedMutation.Kind.UPDATE_PROJECT || kind == QueuedMutation.Kind.UPDATE_OWN_PROFILE)) {
+                if (kind == QueuedMutation.Kind.UPDATE_PROJECT) {
+                    Models.merge(previous.project, project);
+                } else {
+                    Models.merge(previous.profile, profile);
+                }
+                previous.token = token;
+                previous.callbacks.add(callback);
+                mutation = previous;
+                persist();
+                // the merged changes have to be on disk before they're sent
+                mutation.version = requestedVersion;
+            } else if (previous != null && previous.kind == kind) {
+                // the same join or leave twice, the second one doesn't change anything
+                previous.callbacks.add(callback);
+                mutation = previous;
+            } else if (previous != null && !previous.sent && isOpposite(previous.kind, kind)) {
+                queue.remove(previous);
+                previous.done = true;
+                mutation.done = true;
+                mutation.callbacks.add(callback);
+                cancelledOut = previous;
+                persist();
+            } else {
+                mutation.callbacks.add(callback);
+                queue.add(mutation);
+                persist();
+                mutation.version = requestedVersion;
+            }
+        }
+
+        if (cancelledOut != null) {
+            Result<String> result = new Result<>(CANCELLED_OUT);
+            finish(cancelledOut, result);
+            finish(mutation, result);
+            return mutation;
+        }
+        launch();
+        return mutation;
+    }
+
+    /**
+     * @return The last mutation of the same project or profile, if it hasn't been sent yet and may be merged with
+     */
+    private QueuedMutation lastWaiting(QueuedMutation mutation) {
+        String key = mutation.orderKey(account(mutation.token));
+        if (key == null) {
+            return null;
+        }
+        for (int i = queue.size() - 1; i >= 0; i--) {
+            QueuedMutation other = queue.get(i);
+            if (key.equals(other.orderKey(account(other.token)))) {
+                // once it's on its way it can't be changed anymore
+                return other.running ? null : other;
+            }
+        }
+        return null;
+    }
+
+    private void launch() {
+        List<QueuedMutation> ready = new ArrayList<>();
+        synchronized (this) {
+            if (paused || closed) {
+                return;
+            }
+            int running = 0;
+            for (QueuedMutation mutation : queue) {
+                if (mutation.running) {
+                    running++;
+                }
+            }
+            // only the first mutation of each project or profile may run, the rest wait for it
+            Set<String> seen = new HashSet<>();
+            List<QueuedMutation> marked = new ArrayList<>();
+            for (QueuedMutation mutation : queue) {
+                String key = mutation.orderKey(account(mutation.token));
+                boolean first = key == null || seen.add(key);
+                if (first && !mutation.running && running < maxConcurrent) {
+                    mutation.running = true;
+                    running++;
+                    if (!mutation.sent) {
+                        mutation.sent = true;
+                        marked.add(mutation);
+                    }
+                }
+            }
+            if (!marked.isEmpty()) {
+                // a restored mutation mustn't be cancelled out once it may have reached the server, so that's persisted first
+                persist();
+                for (QueuedMutation mutation : marked) {
+                    mutation.version = requestedVersion;
+                }
+            }
+            for (QueuedMutation mutation : queue) {
+                if (mutation.running && !mutation.dispatched && mutation.version <= persistedVersion) {
+                    mutation.dispatched = true;
+                    ready.add(mutation);
+                }
+            }
+        }
+        for (QueuedMutation mutation : ready) {
+            send(mutation);
+        }
+    }
+
+    private void send(final QueuedMutation mutation) {
+        RequestHandle handle;
+        switch (mutation.kind) {
+            case CREATE_PROJECT:
+                handle = middleware.createNewProject(mutation.token, mutation.project, this.<Project>onDone(mutation));
+                break;
+            case UPDATE_PROJECT:
+                handle = middleware.updateProject(mutation.token, mutation.projectID, mutation.project, this.<Project>onDone(mutation));
+                break;
+            case JOIN_PROJECT:
+                handle = middleware.joinProject(mutation.token, mutation.projectID, this.<String>onDone(mutation));
+                break;
+            case LEAVE_PROJECT:
+                handle = middleware.leaveProject(mutation.token, mutation.projectID, this.<String>onDone(mutation));
+                break;
+            default:
+                handle = middleware.updateOwnProfile(mutation.token, mutation.profile, this.<Profile>onDone(mutation));
+                break;
+        }
+        synchronized (this) {
+            if (!mutation.done) {
+                if (mutation.running) {
+                    mutation.inFlight = handle;
+                }
+                return;
+            }
+        }
+        // cancelled while it was waiting for its write
+        handle.cancel();
+    }
+
+    private <T> Consumer<Result<T>> onDone(final QueuedMutation mutation) {
+        return new Consumer<Result<T>>() {
+            @Override
+            public void accept(Result<T> result) {
+                synchronized (MutationQueue.this) {
+                    mutation.running = false;
+                    mutation.dispatched = false;
+                    mutation.inFlight = null;
+                    if (mutation.done) {
+                        // cancelled while it was in flight
+                        return;
+                    }
+                    if (result.exception != null && isTemporary(result.exception)) {
+                        paused = true;
+                        persist();
+                        return;
+                    }
+                    mutation.done = true;
+                    queue.remove(mutation);
+                    persist();
+                }
+                deliver(mutation, result);
+                launch();
+            }
+        };
+    }
+
+    /**
+     * Hands the result to the callbacks and listeners on the callback executor
+     */
+    private void finish(final QueuedMutation mutation, final Result<?> result) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(mutation, result);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(QueuedMutation mutation, Result<?> result) {
+        List<Listener> notified;
+        synchronized (this) {
+            notified = new ArrayList<>(listeners);
+        }
+        for (Consumer<?> callback : mutation.callbacks) {
+            if (callback != null) {
+                // every call merged into a mutation is of the same kind, so they all expect the same result type
+                ((Consumer<Result<?>>) callback).accept(result);
+            }
+        }
+        for (Listener listener : notified) {
+            listener.onMutationDone(mutation, result);
+        }
+    }
+
+    private QueuedMutation rejected(QueuedMutation.Kind kind, Consumer<?> callback) {
+        QueuedMutation mutation;
+        synchronized (this) {
+            mutation = new QueuedMutation(this, nextId++, kind, null, null, null, null);
+            mutation.done = true;
+            mutation.callbacks.add(callback);
+        }
+        finish(mutation, new Result<>(new IllegalArgumentException("Please provide valid arguments")));
+        return mutation;
+    }
+
+    /**
+     * Called with the lock held. Takes a snapshot of the queue, which the writer thread puts on disk.
+     * requestedVersion is the version of that snapshot afterwards.
+     */
+    private void persist() {
+        pendingSnapshot = store.encode(queue);
+        pendingVersion = ++requestedVersion;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                writeSnapshot();
+            }
+        });
+    }
+
+    private void writeSnapshot() {
+        byte[] snapshot;
+        long version;
+        synchronized (this) {
+            snapshot = pendingSnapshot;
+            version = pendingVersion;
+            pendingSnapshot = null;
+        }
+        if (snapshot == null) {
+            // already written along with a later change
+            return;
+        }
+        try {
+            store.write(snapshot);
+        } catch (final IOException e) {
+            // sending the mutations that aren't on disk would lose them if the app is killed before they're answered
+            final List<Listener> notified;
+            synchronized (this) {
+                paused = true;
+                notified = new ArrayList<>(listeners);
+            }
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (Listener listener : notified) {
+                        listener.onPersistFailed(e);
+                    }
+                }
+            });
+            return;
+        }
+        synchronized (this) {
+            persistedVersion = version;
+        }
+        launch();
+    }
+
+    private static boolean isTemporary(Exception e) {
+        return RetryPolicy.isTransientFailure(e) || e instanceof DeadlineExceededException;
+    }
+
+    private static boolean isOpposite(QueuedMutation.Kind a, QueuedMutation.Kind b) {
+        return (a == QueuedMutation.Kind.JOIN_PROJECT && b == QueuedMutation.Kind.LEAVE_PROJECT)
+                || (a == QueuedMutation.Kind.LEAVE_PROJECT && b == QueuedMutation.Kind.JOIN_PROJECT);
+    }
+
+    /**
+     * Tokens of the same account are told apart by their subject, so a refreshed token still merges with the old one
+     */
+    private static String account(String token) {
+        JwtClaims claims = JwtClaims.parse(token);
+        return claims != null && claims.subject != null ? claims.subject : token;
+    }
+}
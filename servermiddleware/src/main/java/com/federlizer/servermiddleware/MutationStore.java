@@ -0,0 +1,314 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the mutations of a MutationQueue. The queue is short, so the whole of it is written on every change:
+ * into a temporary file first, which then replaces the old one, so a crash leaves either the old or the new queue behind.
+ * Encoding and writing are separate steps, so the queue can take a snapshot under its lock and write it on another thread.
+ * <p>
+ * The file is laid out as
+ * <pre>[int magic][int version][int count][mutations][int crc32 of everything before it]</pre>
+ * A file that's cut off or doesn't match its crc is treated as empty.
+ */
+class MutationStore {
+    private static final int MAGIC = 0x4d51554b;
+    private static final int VERSION = 1;
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int NULL_LENGTH = -1;
+
+    private final File file;
+
+    MutationStore(File file) {
+        this.file = file;
+    }
+
+    List<QueuedMutation> load(MutationQueue queue) throws IOException {
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+
+        byte[] bytes = readFully(file);
+        if (bytes.length < 16 || crc(bytes, bytes.length - 4) != readInt(bytes, bytes.length - 4)) {
+            return new ArrayList<>();
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return new ArrayList<>();
+        }
+        int count = in.readInt();
+        List<QueuedMutation> mutations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            QueuedMutation.Kind kind = QueuedMutation.Kind.values()[in.readByte()];
+            boolean sent = in.readBoolean();
+            String token = readString(in);
+            String projectID = readString(in);
+            Project project = in.readBoolean() ? readProject(in) : null;
+            Profile profile = in.readBoolean() ? readProfile(in) : null;
+            QueuedMutation mutation = new QueuedMutation(queue, id, kind, token, projectID, project, profile);
+            mutation.sent = sent;
+            mutations.add(mutation);
+        }
+        return mutations;
+    }
+
+    /**
+     * @return The file contents for the mutations, as they are right now
+     */
+    byte[] encode(List<QueuedMutation> mutations) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            encode(out, mutations);
+            out.writeInt(crc(bytes.toByteArray(), bytes.size()));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // writing into memory doesn't fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Replaces the file with the encoded mutations
+     */
+    void write(byte[] encoded) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create " + directory);
+        }
+        File temp = new File(file.getPath() + TEMP_EXTENSION);
+        FileOutputStream stream = new FileOutputStream(temp);
+        try {
+            stream.write(encoded);
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Couldn't replace " + file);
+        }
+    }
+
+    private static void encode(DataOutputStream out, List<QueuedMutation> mutations) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(mutations.size());
+        for (QueuedMutation mutation : mutations) {
+            out.writeLong(mutation.id);
+            out.writeByte(mutation.kind.ordinal());
+            out.writeBoolean(mutation.sent);
+            writeString(out, mutation.token);
+            writeString(out, mutation.projectID);
+            out.writeBoolean(mutation.project != null);
+            if (mutation.project != null) {
+                writeProject(out, mutation.project);
+            }
+            out.writeBoolean(mutation.profile != null);
+            if (mutation.profile != null) {
+                writeProfile(out, mutation.profile);
+            }
+        }
+    }
+
+    private static void writeProject(DataOutputStream out, Project project) throws IOException {
+        writeString(out, project.id);
+        writeString(out, project.title);
+        writeString(out, project.publicDescription);
+        writeString(out, project.privateDescription);
+        writeStrings(out, project.interests);
+        writeStrings(out, project.skills);
+        writeBoolean(out, project.isPrivate);
+    }
+
+    private static Project readProject(DataInputStream in) throws IOException {
+        String id = readString(in);
+        String title = readString(in);
+        String publicDescription = readString(in);
+        String privateDescription = readString(in);
+        List<String> interests = readStrings(in);
+        List<String> skills = readStrings(in);
+        Boolean isPrivate = readBoolean(in);
+        return new Project(id, title, publicDescription, privateDescription, interests, skills, isPrivate);
+    }
+
+    private static void writeProfile(DataOutputStream out, Profile profile) throws IOException {
+        writeString(out, profile.firstName);
+        writeString(out, profile.lastName);
+        writeStrings(out, profile.interests);
+        writeStrings(out, profile.skills);
+        if (profile.educations == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(profile.educations.size());
+            for (Education education : profile.educations) {
+                writeString(out, education.instituteName);
+                writeString(out, education.degree);
+                writeString(out, education.fieldOfStudy);
+                writeDate(out, education.fromDate);
+                writeDate(out, education.endDate);
+                writeString(out, education.description);
+            }
+        }
+        if (profile.pastExperiences == null) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(profile.pastExperiences.size());
+            for (PastExperience experience : profile.pastExperiences) {
+                writeString(out, experience.company);
+                writeString(out, experience.jobTitle);
+                writeString(out, experience.location);
+                writeDate(out, experience.fromDate);
+                writeDate(out, experience.endDate);
+                writeString(out, experience.description);
+            }
+        }
+        writeString(out, profile.github);
+        writeString(out, profile.facebook);
+        writeString(out, profile.linkedIn);
+        writeString(out, profile.twitter);
+        writeString(out, profile.instagram);
+        writeString(out, profile.accountID);
+    }
+
+    private static Profile readProfile(DataInputStream in) throws IOException {
+        String firstName = readString(in);
+        String lastName = readString(in);
+        List<String> interests = readStrings(in);
+        List<String> skills = readStrings(in);
+
+        List<Education> educations = null;
+        int educationCount = in.readInt();
+        if (educationCount != NULL_LENGTH) {
+            educations = new ArrayList<>(educationCount);
+            for (int i = 0; i < educationCount; i++) {
+                educations.add(new Education(readString(in), readString(in), readString(in), readDate(in), readDate(in), readString(in)));
+            }
+        }
+        List<PastExperience> pastExperiences = null;
+        int experienceCount = in.readInt();
+        if (experienceCount != NULL_LENGTH) {
+            pastExperiences = new ArrayList<>(experienceCount);
+            for (int i = 0; i < experienceCount; i++) {
+                pastExperiences.add(new PastExperience(readString(in), readString(in), readString(in), readDate(in), readDate(in), readString(in)));
+            }
+        }
+
+        String github = readString(in);
+        String facebook = readString(in);
+        String linkedIn = readString(in);
+        String twitter = readString(in);
+        String instagram = readString(in);
+        String accountID = readString(in);
+        return new Profile(firstName, lastName, interests, skills, educations, pastExperiences, github, facebook, linkedIn, twitter, instagram, accountID);
+    }
+
+    // writeUTF is limited to 64 KB, which a description could go over
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count == NULL_LENGTH) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value == -1 ? null : value == 1;
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.getTime());
+        }
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    private static int crc(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,383 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The own projects and edited projects as the user expects them to be, before the server has confirmed it.
+ * Joining, leaving and editing a project through this class shows up right away, and is rolled back
+ * if the server turns it down, so the UI doesn't have to wait for the round trip or fetch getOwnProjects again afterwards.
+ * <p>
+ * The local state is the last confirmed state with the mutations that are still in flight applied on top, in the order
+ * they were made. When the server answers, the mutation either becomes part of the confirmed state or is dropped,
+ * and the rest are applied again, so rolling back one edit doesn't undo a later one.
+ * <p>
+ * Observers are notified on the thread that made a mutation when it's applied, and on the callback executor
+ * when the server confirms or rejects it.
+ */
+public class OptimisticProjects {
+    /**
+     * Notified whenever the local state changes
+     */
+    public interface Observer {
+        /**
+         * @param ownProjects The own projects, mutations in flight included
+         */
+        void onOwnProjectsChanged(List<Project> ownProjects);
+
+        /**
+         * @param project The project, edits in flight included
+         */
+        void onProjectChanged(Project project);
+    }
+
+    private enum Kind {
+        JOIN,
+        LEAVE,
+        UPDATE
+    }
+
+    private final DevelopoolMiddleware middleware;
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+
+    // null until the own projects have been loaded
+    private List<Project> confirmedOwn;
+    // the confirmed version of every project with mutations in flight
+    private final Map<String, Project> confirmed = new HashMap<>();
+    private final List<Mutation> inFlight = new ArrayList<>();
+
+    public OptimisticProjects(DevelopoolMiddleware middleware) {
+        this.middleware = middleware;
+    }
+
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Loads the own projects from the server, replacing the confirmed ones
+     *
+     * @param token    The token of the authenticated user
+     * @param callback The callback to be executed with the server's list, without the mutations in flight
+     * @return A handle to cancel the request with
+     */
+    public RequestHandle refresh(String token, final Consumer<Result<List<Project>>> callback) {
+        return middleware.getOwnProjects(token, new Consumer<Result<List<Project>>>() {
+            @Override
+            public void accept(Result<List<Project>> result) {
+                if (result.exception == null) {
+                    setOwnProjects(result.value);
+                }
+                callback.accept(result);
+            }
+        });
+    }
+
+    /**
+     * Replaces the confirmed own projects, e.g. with the result of getOwnProjects or getStoredOwnProjects
+     */
+    public void setOwnProjects(List<Project> ownProjects) {
+        synchronized (this) {
+            confirmedOwn = ownProjects != null ? new ArrayList<>(ownProjects) : null;
+        }
+        publish(null);
+    }
+
+    /**
+     * @return The own projects with the mutations in flight applied, null if they haven't been loaded yet
+     */
+    public synchronized List<Project> getOwnProjects() {
+        return ownProjects();
+    }
+
+    /**
+     * @return The project with the edits in flight applied, null if it isn't known locally
+     */
+    public synchronized Project getProject(String projectID) {
+        Project project = project(projectID);
+        return project != null ? project : middleware.peekProject(projectID);
+    }
+
+    /**
+     * @return true if a mutation of the project hasn't been answered yet, e.g. to show it as syncing
+     */
+    public synchronized boolean isPending(String projectID) {
+        for (Mutation mutation : inFlight) {
+            if (mutation.projectID.equals(projectID)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the project to the own projects right away, and joins it
+     *
+     * @param token    The token of the authenticated user
+     * @param project  The project to join, as it's shown in the own projects until it's confirmed
+     * @param callback The callback to be executed after the server has answered
+     * @return A handle to cancel the request with. Cancelling rolls the join back.
+     */
+    public RequestHandle joinProject(String token, Project project, Consumer<Result<String>> callback) {
+        if (project == null || project.id == null || project.id.isEmpty()) {
+            // nothing to apply, the middleware rejects it
+            return middleware.joinProject(token, null, callback);
+        }
+        Mutation mutation = apply(Kind.JOIN, project.id, project);
+        return send(mutation, middleware.joinProject(token, project.id, this.<String>onAnswer(mutation, callback)));
+    }
+
+    /**
+     * Removes the project from the own projects right away, and leaves it
+     *
+     * @param token     The token of the authenticated user
+     * @param projectID The project's ID
+     * @param callback  The callback to be executed after the server has answered
+     * @return A handle to cancel the request with. Cancelling rolls the leave back.
+     */
+    public RequestHandle leaveProject(String token, String projectID, Consumer<Result<String>> callback) {
+        if (projectID == null || projectID.isEmpty()) {
+            // nothing to apply, the middleware rejects it
+            return middleware.leaveProject(token, projectID, callback);
+        }
+        Mutation mutation = apply(Kind.LEAVE, projectID, null);
+        return send(mutation, middleware.leaveProject(token, projectID, this.<String>onAnswer(mutation, callback)));
+    }
+
+    /**
+     * Applies the changes to the local project right away, the project cache included, and sends them
+     *
+     * @param token          The token of the authenticated user
+     * @param projectID      The project's ID
+     * @param updatedProject The changes to the project. Only the fields that are set are changed.
+     * @param callback       The callback to be executed after the server has answered
+     * @return A handle to cancel the request with. Cancelling rolls the changes back.
+     */
+    public RequestHandle updateProject(String token, String projectID, Project updatedProject, Consumer<Result<Project>> callback) {
+        if (projectID == null || projectID.isEmpty() || updatedProject == null) {
+            // nothing to apply, the middleware rejects it
+            return middleware.updateProject(token, projectID, updatedProject, callback);
+        }
+        Mutation mutation = apply(Kind.UPDATE, projectID, Models.copy(updatedProject));
+        return send(mutation, middleware.updateProject(token, projectID, updatedProject, this.<Project>onAnswer(mutation, callback)));
+    }
+
+    private Mutation apply(Kind kind, String projectID, Project project) {
+        Mutation mutation = new Mutation(kind, projectID, project);
+        synchronized (this) {
+            if (!confirmed.containsKey(projectID)) {
+                Project known = confirmedProject(projectID);
+                if (known == null && kind == Kind.JOIN) {
+                    known = project;
+                }
+                confirmed.put(projectID, known);
+            }
+            inFlight.add(mutation);
+        }
+        publish(mutation);
+        return mutation;
+    }
+
+    private RequestHandle send(final Mutation mutation, final RequestHandle handle) {
+        return new RequestHandle() {
+            @Override
+            public boolean cancel() {
+                if (!handle.cancel()) {
+                    return false;
+                }
+                // the server may have received it anyway, refresh() tells
+                answered(mutation, false, null);
+                return true;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return handle.isCancelled();
+            }
+
+            @Override
+            public boolean isDone() {
+                return handle.isDone();
+            }
+        };
+    }
+
+    private <T> Consumer<Result<T>> onAnswer(final Mutation mutation, final Consumer<Result<T>> callback) {
+        return new Consumer<Result<T>>() {
+            @Override
+            public void accept(Result<T> result) {
+                answered(mutation, result.exception == null, result.value);
+                callback.accept(result);
+            }
+        };
+    }
+
+    private void answered(Mutation mutation, boolean confirm, Object value) {
+        synchronized (this) {
+            if (!inFlight.remove(mutation)) {
+                return;
+            }
+            if (confirm) {
+                confirm(mutation, value);
+            }
+        }
+        publish(mutation);
+        synchronized (this) {
+            if (!isPending(mutation.projectID)) {
+                confirmed.remove(mutation.projectID);
+            }
+        }
+    }
+
+    // called with the lock held
+    private void confirm(Mutation mutation, Object value) {
+        Project base = confirmed.get(mutation.projectID);
+        switch (mutation.kind) {
+            case JOIN:
+                if (confirmedOwn != null && indexOf(confirmedOwn, mutation.projectID) == -1) {
+                    confirmedOwn.add(base != null ? base : mutation.project);
+                }
+                break;
+            case LEAVE:
+                if (confirmedOwn != null) {
+                    int index = indexOf(confirmedOwn, mutation.projectID);
+                    if (index != -1) {
+                        confirmedOwn.remove(index);
+                    }
+                }
+                break;
+            default:
+                Project updated = value instanceof Project ? (Project) value : null;
+                // the server answers with the updated project, unless it only sends back the changed fields
+                if (updated == null || !mutation.projectID.equals(updated.id) || updated.title == null) {
+                    updated = null;
+                    if (base != null) {
+                        updated = Models.copy(base);
+                        Models.merge(updated, mutation.project);
+                    }
+                }
+                confirmed.put(mutation.projectID, updated);
+                if (updated != null && confirmedOwn != null) {
+                    int index = indexOf(confirmedOwn, mutation.projectID);
+                    if (index != -1) {
+                        confirmedOwn.set(index, updated);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Notifies the observers of the current local state
+     * @param mutation The mutation that changed it, null if it was the own projects as a whole
+     */
+    private void publish(Mutation mutation) {
+        List<Project> ownProjects;
+        Project project = null;
+        synchronized (this) {
+            ownProjects = ownProjects();
+            if (mutation != null) {
+                project = project(mutation.projectID);
+                // joins and leaves don't change the project itself, and the middleware drops it from the cache after either
+                if (mutation.kind == Kind.UPDATE && project != null) {
+                    middleware.cacheProject(mutation.projectID, project);
+                }
+            }
+        }
+        for (Observer observer : observers) {
+            if (ownProjects != null) {
+                observer.onOwnProjectsChanged(ownProjects);
+            }
+            if (project != null) {
+                observer.onProjectChanged(project);
+            }
+        }
+    }
+
+    // called with the lock held
+    private List<Project> ownProjects() {
+        if (confirmedOwn == null) {
+            return null;
+        }
+        List<Project> projects = new ArrayList<>(confirmedOwn);
+        for (Mutation mutation : inFlight) {
+            int index = indexOf(projects, mutation.projectID);
+            if (mutation.kind == Kind.JOIN && index == -1) {
+                Project project = project(mutation.projectID);
+                projects.add(project != null ? project : mutation.project);
+            } else if (mutation.kind == Kind.LEAVE && index != -1) {
+                projects.remove(index);
+            } else if (mutation.kind == Kind.UPDATE && index != -1) {
+                Project project = project(mutation.projectID);
+                if (project != null) {
+                    projects.set(index, project);
+                }
+            }
+        }
+        return Collections.unmodifiableList(projects);
+    }
+
+    /**
+     * Called with the lock held
+     * @return The confirmed project with the edits in flight applied, null if it isn't known
+     */
+    private Project project(String projectID) {
+        if (!confirmed.containsKey(projectID)) {
+            return null;
+        }
+        Project project = confirmed.get(projectID);
+        for (Mutation mutation : inFlight) {
+            if (mutation.kind == Kind.UPDATE && mutation.projectID.equals(projectID) && project != null) {
+                project = Models.copy(project);
+                Models.merge(project, mutation.project);
+            }
+        }
+        return project;
+    }
+
+    // called with the lock held
+    private Project confirmedProject(String projectID) {
+        if (confirmedOwn != null) {
+            int index = indexOf(confirmedOwn, projectID);
+            if (index != -1) {
+                return confirmedOwn.get(index);
+            }
+        }
+        return middleware.peekProject(projectID);
+    }
+
+    private static int indexOf(List<Project> projects, String projectID) {
+        Iterator<Project> iterator = projects.iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            if (projectID.equals(iterator.next().id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class Mutation {
+        final Kind kind;
+        final String projectID;
+        // the project to join, or the changes of an update
+        final Project project;
+
+        Mutation(Kind kind, String projectID, Project project) {
+            this.kind = kind;
+            this.projectID = projectID;
+            this.project = project;
+        }
+    }
+}
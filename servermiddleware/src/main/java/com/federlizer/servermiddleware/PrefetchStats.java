@@ -0,0 +1,44 @@
+package com.federlizer.servermiddleware;
+
+/**
+ * A point in time snapshot of a prefetcher's counters
+ */
+public class PrefetchStats {
+    public final long started;
+    public final long completed;
+    public final long cancelled;
+    public final long failed;
+    public final long hits;
+    public final long bytes;
+
+    public PrefetchStats(long started, long completed, long cancelled, long failed, long hits, long bytes) {
+        this.started = started;
+        this.completed = completed;
+        this.cancelled = cancelled;
+        this.failed = failed;
+        this.hits = hits;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return The share of prefetched projects that were asked for afterwards, between 0 and 1
+     */
+    public double hitRatio() {
+        if (started == 0) {
+            return 0;
+        }
+        return (double) hits / started;
+    }
+
+    @Override
+    public String toString() {
+        return "PrefetchStats{" +
+                "started=" + started +
+                ", completed=" + completed +
+                ", cancelled=" + cancelled +
+                ", failed=" + failed +
+                ", hits=" + hits +
+                ", bytes=" + bytes +
+                '}';
+    }
+}
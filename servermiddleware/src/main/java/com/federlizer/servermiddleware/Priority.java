@@ -0,0 +1,19 @@
+package com.federlizer.servermiddleware;
+
+/**
+ * The lane a call waits in for a free request thread, see RequestScheduler
+ */
+public enum Priority {
+    /**
+     * Something the user just did and is waiting on, e.g. joining a project
+     */
+    INTERACTIVE,
+    /**
+     * The default, e.g. loading the data of a screen
+     */
+    NORMAL,
+    /**
+     * Nobody is waiting on it, e.g. prefetching or syncing. Never takes the last free request thread.
+     */
+    BACKGROUND
+}
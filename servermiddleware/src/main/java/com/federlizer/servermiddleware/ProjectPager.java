@@ -0,0 +1,146 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.models.ProjectFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Walks through the result set of getAllProjects one page at a time.
+ * <p>
+ * A page is only requested once the previous one has been delivered, and at most one page is
+ * fetched ahead while the current one is being rendered. So no matter how big the catalogue is,
+ * at most two pages are held in memory.
+ */
+public class ProjectPager {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final ServerMiddleware middleware;
+    private final ProjectFilter filter;
+    private final int pageSize;
+
+    private int nextOffset;
+    private boolean exhausted;
+    private boolean fetching;
+    private boolean closed;
+    private Result<List<Project>> buffered;
+    private Consumer<Result<List<Project>>> pending;
+    private RequestHandle inFlight;
+
+    /**
+     * @param middleware The middleware the pages are requested through
+     * @param filter The filter to apply. The page size is taken from it, the offset is where the first page starts.
+     */
+    public ProjectPager(ServerMiddleware middleware, ProjectFilter filter) {
+        this.middleware = middleware;
+        this.filter = filter != null ? filter : new ProjectFilter(null, null, null, null, null);
+        this.pageSize = this.filter.pageSize != null && this.filter.pageSize > 0 ? this.filter.pageSize : DEFAULT_PAGE_SIZE;
+        this.nextOffset = this.filter.offset != null ? this.filter.offset : 0;
+    }
+
+    /**
+     * Delivers the next page. If it has already been fetched in the background, the callback is executed right away.
+     * Once all pages have been delivered, the callback receives an empty list.
+     * @param callback The callback to be executed with the next page
+     */
+    public void nextPage(Consumer<Result<List<Project>>> callback) {
+        Result<List<Project>> ready = null;
+
+        synchronized (this) {
+            if (closed) {
+                ready = new Result<>(new IllegalStateException("The pager has been closed"));
+            } else if (pending != null) {
+                ready = new Result<>(new IllegalStateException("The previous page hasn't been delivered yet"));
+            } else if (buffered != null) {
+                ready = buffered;
+                buffered = null;
+            } else if (fetching) {
+                pending = callback;
+            } else if (exhausted) {
+                ready = new Result<List<Project>>(new ArrayList<Project>());
+            } else {
+                pending = callback;
+                fetch();
+            }
+        }
+
+        if (ready != null) {
+            callback.accept(ready);
+            prefetch();
+        }
+    }
+
+    /**
+     * @return true if there are pages that haven't been delivered yet
+     */
+    public synchronized boolean hasMore() {
+        return !closed && (buffered != null || !exhausted);
+    }
+
+    /**
+     * Stops fetching pages, cancels the page being fetched and drops the page fetched ahead, if any
+     */
+    public synchronized void close() {
+        closed = true;
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+        buffered = null;
+        pending = null;
+    }
+
+    private synchronized void prefetch() {
+        if (!closed && !fetching && !exhausted && buffered == null) {
+            fetch();
+        }
+    }
+
+    // must hold the lock
+    private void fetch() {
+        fetching = true;
+        final int offset = nextOffset;
+        nextOffset += pageSize;
+
+        ProjectFilter page = new ProjectFilter(filter.title, filter.isPublic, filter.isPrivate, filter.skills, filter.interests, pageSize, offset);
+        inFlight = middleware.getAllProjects(page, new Consumer<Result<List<Project>>>() {
+            @Override
+            public void accept(Result<List<Project>> result) {
+                onPage(offset, result);
+            }
+        });
+    }
+
+    private void onPage(int offset, Result<List<Project>> result) {
+        Consumer<Result<List<Project>>> callback;
+
+        synchronized (this) {
+            fetching = false;
+            inFlight = null;
+            if (closed) {
+                return;
+            }
+
+            if (result.exception != null) {
+                // let the next call retry the same page
+                nextOffset = offset;
+            } else if (result.value.size() < pageSize) {
+                exhausted = true;
+            }
+
+            callback = pending;
+            pending = null;
+            if (callback == null) {
+                buffered = result;
+                return;
+            }
+        }
+
+        callback.accept(result);
+        if (result.exception == null) {
+            prefetch();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Project;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Warms the project cache with the details of the first projects of a list, since those are the ones
+ * that are usually opened next. Opt-in, e.g. from the callback of getAllProjects:
+ * prefetcher.prefetch(token, result.value)
+ * <p>
+ * Prefetches run in the background and make way for everything else: as soon as any other request
+ * goes to the network, the prefetches in flight are cancelled and the rest are dropped.
+ * A detail request for a project that's still being prefetched joins the prefetch instead of being cancelled with it.
+ */
+public class ProjectPrefetcher {
+    public static final int DEFAULT_MAX_PROJECTS = 3;
+    public static final long DEFAULT_MAX_BYTES = 64 * 1024;
+    public static final int DEFAULT_MAX_CONCURRENT = 2;
+    // how many prefetched projects are remembered to count hits
+    private static final int MAX_TRACKED = 64;
+
+    private final DevelopoolMiddleware middleware;
+    private final int maxProjects;
+    private final long maxBytes;
+    private final int maxConcurrent;
+
+    private final Queue<String> queued = new ArrayDeque<>();
+    private final Map<String, RequestHandle> inFlight = new HashMap<>();
+    // prefetched project IDs, mapped to whether they've been asked for since
+    private final Map<String, Boolean> prefetched = new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_TRACKED;
+        }
+    };
+    private String token;
+    private long batchBytes;
+    private int generation;
+    private boolean closed;
+
+    private long started;
+    private long completed;
+    private long cancelled;
+    private long failed;
+    private long hits;
+    private long bytes;
+
+    public ProjectPrefetcher(DevelopoolMiddleware middleware) {
+        this(middleware, DEFAULT_MAX_PROJECTS, DEFAULT_MAX_BYTES, DEFAULT_MAX_CONCURRENT);
+    }
+
+    /**
+     * @param middleware    The middleware whose project cache is warmed
+     * @param maxProjects   How many projects from the top of a list are prefetched
+     * @param maxBytes      How many response bytes a list's prefetches may download. Prefetches in flight finish, but no more start.
+     * @param maxConcurrent How many prefetches may run at the same time
+     */
+    public ProjectPrefetcher(DevelopoolMiddleware middleware, int maxProjects, long maxBytes, int maxConcurrent) {
+        this.middleware = middleware;
+        this.maxProjects = Math.max(0, maxProjects);
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        middleware.addPrefetcher(this);
+    }
+
+    /**
+     * Prefetches the details of the first projects in the list that aren't cached yet.
+     * Replaces whatever an earlier list was still prefetching.
+     *
+     * @param token    The token of the authenticated user
+     * @param projects A list as returned by getOwnProjects or getAllProjects
+     */
+    public synchronized void prefetch(String token, List<Project> projects) {
+        if (closed || token == null || token.isEmpty() || projects == null) {
+            return;
+        }
+        cancelAll();
+        this.token = token;
+        this.batchBytes = 0;
+        for (int i = 0; i < projects.size() && queued.size() < maxProjects; i++) {
+            String id = projects.get(i).id;
+            if (id != null && !id.isEmpty() && !middleware.isProjectCached(id) && !queued.contains(id)) {
+                queued.add(id);
+            }
+        }
+        launch();
+    }
+
+    /**
+     * Cancels everything and stops listening to the middleware
+     */
+    public synchronized void close() {
+        closed = true;
+        cancelAll();
+        middleware.removePrefetcher(this);
+    }
+
+    public synchronized PrefetchStats stats() {
+        return new PrefetchStats(started, completed, cancelled, failed, hits, bytes);
+    }
+
+    /**
+     * Another request is about to use the network, called by the middleware
+     */
+    synchronized void makeWay() {
+        if (!inFlight.isEmpty() || !queued.isEmpty()) {
+            cancelAll();
+        }
+    }
+
+    /**
+     * getProjectById was called for the project, called by the middleware
+     */
+    synchronized void onProjectRequested(String projectID) {
+        Boolean requested = prefetched.get(projectID);
+        if (requested != null && !requested) {
+            prefetched.put(projectID, true);
+            hits++;
+        }
+    }
+
+    private void launch() {
+        while (inFlight.size() < maxConcurrent && !queued.isEmpty() && batchBytes < maxBytes) {
+            final String id = queued.poll();
+            final int launchedIn = generation;
+            final AtomicLong responseBytes = new AtomicLong();
+            started++;
+            prefetched.put(id, false);
+            // reserve the slot, the callback may run before the handle is returned
+            inFlight.put(id, null);
+            RequestHandle handle = middleware.prefetchProject(token, id, responseBytes, new Consumer<Result<Project>>() {
+                @Override
+                public void accept(Result<Project> result) {
+                    onDone(launchedIn, id, responseBytes.get(), result);
+                }
+            });
+            if (inFlight.containsKey(id) && launchedIn == generation) {
+                inFlight.put(id, handle);
+            }
+        }
+    }
+
+    private synchronized void onDone(int launchedIn, String id, long responseBytes, Result<Project> result) {
+        bytes += responseBytes;
+        if (launchedIn != generation) {
+            // cancelled in the meantime
+            return;
+        }
+        inFlight.remove(id);
+        batchBytes += responseBytes;
+        if (result.exception == null) {
+            completed++;
+        } else {
+            failed++;
+            prefetched.remove(id);
+        }
+        launch();
+    }
+
+    private void cancelAll() {
+        generation++;
+        queued.clear();
+        Iterator<Map.Entry<String, RequestHandle>> iterator = inFlight.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, RequestHandle> entry = iterator.next();
+            if (entry.getValue() != null && entry.getValue().cancel()) {
+                cancelled++;
+                // a detail request that joined the prefetch still gets the project
+                if (!Boolean.TRUE.equals(prefetched.get(entry.getKey()))) {
+                    prefetched.remove(entry.getKey());
+                }
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A write waiting in a MutationQueue. Cancelling it drops the mutation, together with the changes
+ * of later calls that were merged into it. Every call that was merged into it gets a cancellation result.
+ */
+public class QueuedMutation implements RequestHandle {
+    public enum Kind {
+        CREATE_PROJECT,
+        UPDATE_PROJECT,
+        JOIN_PROJECT,
+        LEAVE_PROJECT,
+        UPDATE_OWN_PROFILE
+    }
+
+    private final MutationQueue queue;
+    final long id;
+    final Kind kind;
+    String token;
+    final String projectID;
+    Project project;
+    Profile profile;
+
+    // only known to the process that queued the mutation, restored mutations only notify the listener
+    @SuppressWarnings("rawtypes")
+    final List<Consumer<?>> callbacks = new ArrayList<>();
+    RequestHandle inFlight;
+    // it may have reached the server already, even if it failed
+    boolean sent;
+    // the version of the persisted queue that has to be on disk before the mutation may be sent
+    long version;
+    // picked to be sent next, which happens once its version has been written
+    boolean running;
+    boolean dispatched;
+    boolean done;
+    boolean cancelled;
+
+    QueuedMutation(MutationQueue queue, long id, Kind kind, String token, String projectID, Project project, Profile profile) {
+        this.queue = queue;
+        this.id = id;
+        this.kind = kind;
+        this.token = token;
+        this.projectID = projectID;
+        this.project = project;
+        this.profile = profile;
+    }
+
+    /**
+     * @return The ID of the mutation, unique within its queue and kept across restarts
+     */
+    public long getId() {
+        return id;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The project the mutation is about, null for profile updates and new projects
+     */
+    public String getProjectID() {
+        return projectID;
+    }
+
+    @Override
+    public boolean cancel() {
+        return queue.cancel(this);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        synchronized (queue) {
+            return cancelled;
+        }
+    }
+
+    /**
+     * @return true once the mutation has been sent, merged away or cancelled
+     */
+    @Override
+    public boolean isDone() {
+        synchronized (queue) {
+            return done;
+        }
+    }
+
+    /**
+     * @return What mutations have to be sent in order for, null if the mutation doesn't depend on any other
+     */
+    String orderKey(String account) {
+        switch (kind) {
+            case UPDATE_PROJECT:
+            case JOIN_PROJECT:
+            case LEAVE_PROJECT:
+                return account + "/project/" + projectID;
+            case UPDATE_OWN_PROFILE:
+                return account + "/profile";
+            default:
+                return null;
+        }
+    }
+}
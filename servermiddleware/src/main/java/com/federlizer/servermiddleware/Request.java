@@ -1,14 +1,27 @@
 package com.federlizer.servermiddleware;
 
 public class Request {
+    private String name;
     private String requestMethod;
     private String route;
 
     public Request(String requestMethod, String route) {
+        this(requestMethod + ' ' + route, requestMethod, route);
+    }
+
+    /**
+     * @param name Tells the request apart from others with the same method and route, e.g. in the metrics
+     */
+    public Request(String name, String requestMethod, String route) {
+        this.name = name;
         this.requestMethod = requestMethod;
         this.route = route;
     }
 
+    public String Name() {
+        return name;
+    }
+
     public String RequestMethod() {
         return requestMethod;
     }
@@ -16,4 +29,21 @@ public class Request {
     public String Route() {
         return route;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Request)) {
+            return false;
+        }
+        Request request = (Request) o;
+        return requestMethod.equals(request.requestMethod) && route.equals(request.route);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * requestMethod.hashCode() + route.hashCode();
+    }
 }
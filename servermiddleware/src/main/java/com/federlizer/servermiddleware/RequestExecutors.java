@@ -0,0 +1,88 @@
+package com.federlizer.servermiddleware;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory methods for the executors requests and callbacks run on
+ */
+public final class RequestExecutors {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private RequestExecutors() {
+    }
+
+    /**
+     * Creates a thread pool that runs at most maxInFlight requests at the same time.
+     * Any requests above that limit wait in the queue until a thread frees up.
+     * @param maxInFlight The maximum number of requests running in parallel
+     * @return The new executor
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxInFlight,
+                maxInFlight,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new RequestThreadFactory()
+        );
+        // idle threads shouldn't be kept around forever when the app isn't making requests
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return An executor that posts everything to the main looper, same as AsyncTask's onPostExecute
+     */
+    public static Executor mainThreadExecutor() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
+            }
+        };
+    }
+
+    /**
+     * @return An executor that runs everything on the calling thread. Used to skip the main looper hop for callbacks.
+     */
+    public static Executor directExecutor() {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+    }
+
+    private static class RequestThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "DevelopoolRequest #" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
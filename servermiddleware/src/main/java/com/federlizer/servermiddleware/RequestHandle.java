@@ -0,0 +1,21 @@
+package com.federlizer.servermiddleware;
+
+/**
+ * Returned by every request, so it can be cancelled once its result isn't needed anymore,
+ * e.g. when the user leaves the screen that made it.
+ */
+public interface RequestHandle {
+    /**
+     * Cancels the request. Its callback won't be executed. If the request is already running,
+     * its connection is aborted, unless identical requests are still waiting for the same response.
+     * @return false if the request had already finished or been cancelled
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    /**
+     * @return true once the request has finished, whether or not it was cancelled
+     */
+    boolean isDone();
+}
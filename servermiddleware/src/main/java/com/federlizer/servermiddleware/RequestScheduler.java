@@ -0,0 +1,229 @@
+package com.federlizer.servermiddleware;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which waiting request runs next. Requests wait in one lane per priority, and only as many as may
+ * run at once are handed to the executor, so the executor's own queue never holds anything.
+ * <p>
+ * The interactive lane goes first, then normal, then background. A request only runs if its host is below
+ * the per host cap. Background requests never take the last free slot, so an interactive request never
+ * queues behind them. To keep the lower lanes from starving, a request that has waited longer than
+ * the starvation limit goes ahead of the higher lanes.
+ * <p>
+ * A scheduler can be shared by several middlewares through MiddlewareConfig.requestScheduler,
+ * so the caps apply across all of them.
+ */
+public class RequestScheduler {
+    public static final long DEFAULT_STARVATION_MILLIS = 2000;
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Executor executor;
+    private final int maxInFlight;
+    private final int maxPerHost;
+    private final long starvationNanos;
+
+    private final List<ArrayDeque<Entry>> lanes = new ArrayList<>();
+    private final Map<String, Integer> runningByHost = new HashMap<>();
+    private int running;
+
+    public RequestScheduler(Executor executor, int maxInFlight, int maxPerHost) {
+        this(executor, maxInFlight, maxPerHost, DEFAULT_STARVATION_MILLIS);
+    }
+
+    /**
+     * @param executor          The executor requests run on. It's never given more than maxInFlight requests at once.
+     * @param maxInFlight       The maximum number of requests running at the same time
+     * @param maxPerHost        The maximum number of requests running against the same host at the same time
+     * @param starvationMillis  How long a request may wait before it goes ahead of higher lanes
+     */
+    public RequestScheduler(Executor executor, int maxInFlight, int maxPerHost, long starvationMillis) {
+        if (maxInFlight < 1 || maxPerHost < 1) {
+            throw new IllegalArgumentException("maxInFlight and maxPerHost must be at least 1");
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.maxPerHost = maxPerHost;
+        this.starvationNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, starvationMillis));
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            lanes.add(new ArrayDeque<Entry>());
+        }
+    }
+
+    /**
+     * Queues a request in its lane, and runs it right away if there's room
+     * @param host The host the request goes to, null if it doesn't count towards any host
+     */
+    public void execute(Runnable task, Priority priority, String host) {
+        synchronized (this) {
+            lanes.get(priority.ordinal()).add(new Entry(task, host, System.nanoTime()));
+        }
+        dispatch();
+    }
+
+    /**
+     * Moves a request that's still waiting into a higher lane, e.g. because the user now waits on a prefetch.
+     * Its place in the new lane is decided by how long it has been waiting already.
+     * @return true if the request was found waiting in a lower lane
+     */
+    public boolean promote(Runnable task, Priority priority) {
+        synchronized (this) {
+            for (int lane = priority.ordinal() + 1; lane < PRIORITIES.length; lane++) {
+                Iterator<Entry> iterator = lanes.get(lane).iterator();
+                while (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    if (entry.task == task) {
+                        iterator.remove();
+                        insertByAge(lanes.get(priority.ordinal()), entry);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return The number of requests waiting in the lane
+     */
+    public synchronized int getQueueLength(Priority priority) {
+        return lanes.get(priority.ordinal()).size();
+    }
+
+    /**
+     * @return The number of requests running
+     */
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    private void dispatch() {
+        List<Entry> ready = new ArrayList<>();
+        synchronized (this) {
+            Entry next;
+            while (running < maxInFlight && (next = next()) != null) {
+                running++;
+                if (next.host != null) {
+                    Integer count = runningByHost.get(next.host);
+                    runningByHost.put(next.host, count != null ? count + 1 : 1);
+                }
+                ready.add(next);
+            }
+        }
+        // never call into the executor with the lock held, it may run the task right away
+        for (int i = 0; i < ready.size(); i++) {
+            final Entry entry = ready.get(i);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            entry.task.run();
+                        } finally {
+                            release(entry);
+                            dispatch();
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the executor has been shut down, none of these will run
+                for (int j = i; j < ready.size(); j++) {
+                    release(ready.get(j));
+                }
+                throw e;
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        running--;
+        if (entry.host != null) {
+            Integer count = runningByHost.get(entry.host);
+            if (count == null || count <= 1) {
+                runningByHost.remove(entry.host);
+            } else {
+                runningByHost.put(entry.host, count - 1);
+            }
+        }
+    }
+
+    // called with the lock held
+    private Entry next() {
+        long now = System.nanoTime();
+        // a request from a lower lane that has waited too long goes first, the longest waiting one of them
+        Entry starved = null;
+        int starvedLane = -1;
+        for (int lane = 1; lane < PRIORITIES.length; lane++) {
+            Entry candidate = firstRunnable(lane);
+            if (candidate != null && now - candidate.enqueuedAt > starvationNanos
+                    && (starved == null || candidate.enqueuedAt < starved.enqueuedAt)) {
+                starved = candidate;
+                starvedLane = lane;
+            }
+        }
+        if (starved != null) {
+            lanes.get(starvedLane).remove(starved);
+            return starved;
+        }
+
+        for (int lane = 0; lane < PRIORITIES.length; lane++) {
+            Entry candidate = firstRunnable(lane);
+            if (candidate != null) {
+                lanes.get(lane).remove(candidate);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The first request in the lane that's allowed to run now, null if there is none
+     */
+    private Entry firstRunnable(int lane) {
+        // keep the last slot for the user, unless there's only one slot to begin with
+        if (PRIORITIES[lane] == Priority.BACKGROUND && maxInFlight > 1 && running >= maxInFlight - 1) {
+            return null;
+        }
+        for (Entry entry : lanes.get(lane)) {
+            if (entry.host == null) {
+                return entry;
+            }
+            Integer count = runningByHost.get(entry.host);
+            if (count == null || count < maxPerHost) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static void insertByAge(ArrayDeque<Entry> lane, Entry entry) {
+        List<Entry> younger = new ArrayList<>();
+        while (!lane.isEmpty() && lane.peekLast().enqueuedAt > entry.enqueuedAt) {
+            younger.add(lane.pollLast());
+        }
+        lane.addLast(entry);
+        for (int i = younger.size() - 1; i >= 0; i--) {
+            lane.addLast(younger.get(i));
+        }
+    }
+
+    private static class Entry {
+        final Runnable task;
+        final String host;
+        final long enqueuedAt;
+
+        Entry(Runnable task, String host, long enqueuedAt) {
+            this.task = task;
+            this.host = host;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
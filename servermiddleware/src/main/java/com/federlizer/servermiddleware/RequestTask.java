@@ -1,31 +1,215 @@
 package com.federlizer.servermiddleware;
 
-import android.os.AsyncTask;
-
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
-public class RequestTask extends AsyncTask<Void, Void, Result> {
-    private Consumer<Result> callback;
-    private Callable<Result> request;
+public class RequestTask<T> implements Runnable {
+    private Callable<Result<T>> request;
+    private final CallContext context;
+    private volatile Priority priority;
+
+    // this request's caller, followed by the callers of identical requests that are sharing its result
+    private final List<Participant> participants = new ArrayList<>();
+    private final Participant handle;
+    private boolean completed;
+    private Runnable onComplete;
+
+    public RequestTask(Callable<Result<T>> request, Consumer<Result<T>> callback) {
+        this(request, callback, 0);
+    }
 
-    public RequestTask(Callable<Result> request, Consumer<Result> callback) {
+    /**
+     * @param deadlineMillis How long the request may take from now, including queueing and retries. 0 for no deadline.
+     */
+    public RequestTask(Callable<Result<T>> request, Consumer<Result<T>> callback, long deadlineMillis) {
         this.request = request;
-        this.callback = callback;
+        this.context = new CallContext(deadlineMillis);
+        this.handle = new Participant(callback);
+        participants.add(handle);
+    }
+
+    /**
+     * @return The handle the caller can cancel this request with
+     */
+    public RequestHandle getHandle() {
+        return handle;
+    }
+
+    CallContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return The lane the request waits in, null until it's been decided
+     */
+    Priority getPriority() {
+        return priority;
+    }
+
+    void setPriority(Priority priority) {
+        this.priority = priority;
+        context.setBackground(priority == Priority.BACKGROUND);
+    }
+
+    /**
+     * Runs the request on the request executor and delivers the result on the callback executor
+     * @param requestExecutor The executor the request itself runs on
+     * @param callbackExecutor The executor the callback is executed on
+     */
+    public void execute(Executor requestExecutor, Executor callbackExecutor) {
+        handle.callbackExecutor = callbackExecutor;
+        requestExecutor.execute(this);
+    }
+
+    /**
+     * Queues the request in its priority's lane and delivers the result on the callback executor
+     * @param scheduler The scheduler that decides when the request runs
+     * @param host The host the request goes to
+     * @param callbackExecutor The executor the callback is executed on
+     */
+    void execute(RequestScheduler scheduler, String host, Executor callbackExecutor) {
+        handle.callbackExecutor = callbackExecutor;
+        scheduler.execute(this, priority != null ? priority : Priority.NORMAL, host);
+    }
+
+    /**
+     * Lets an identical request share this one's result instead of making its own call.
+     * The follower's handle keeps working: cancelling it drops its callback, and the shared call
+     * is only aborted once every caller has cancelled.
+     * @param follower The identical request. It's never executed itself.
+     * @param callbackExecutor The executor the follower's callback is executed on
+     * @return false if this request has already finished or been cancelled, and the follower has to run on its own
+     */
+    public boolean join(RequestTask<T> follower, Executor callbackExecutor) {
+        synchronized (this) {
+            if (completed || context.isCancelled()) {
+                return false;
+            }
+            follower.handle.callbackExecutor = callbackExecutor;
+            participants.add(follower.handle);
+        }
+        follower.handle.redirect(this);
+        return true;
+    }
+
+    /**
+     * @param onComplete Runs on the request thread once the result is known, before any callback is executed
+     */
+    public synchronized void setOnComplete(Runnable onComplete) {
+        this.onComplete = onComplete;
     }
 
     @Override
-    protected Result doInBackground(Void... voids) {
-        // TODO uuuuuh..... I have no idea why this required me to surround it in a try catch... dafuq
-        try {
-            return request.call();
-        } catch (Exception e) {
-            e.printStackTrace();
+    public void run() {
+        Result<T> result;
+        if (context.isCancelled()) {
+            // cancelled while queued, don't bother sending it
+            result = new Result<>(new InterruptedException("Request cancelled"));
+        } else {
+            context.enter();
+            try {
+                result = request.call();
+            } catch (Exception e) {
+                result = new Result<>(e);
+            } finally {
+                context.exit();
+            }
+        }
+
+        // every caller gets its result on its own callback executor, in the order they asked for it
+        Map<Executor, List<Consumer<Result<T>>>> callbacks = new LinkedHashMap<>();
+        Runnable completion;
+        synchronized (this) {
+            completed = true;
+            for (Participant participant : participants) {
+                if (!participant.cancelled) {
+                    List<Consumer<Result<T>>> executorCallbacks = callbacks.get(participant.callbackExecutor);
+                    if (executorCallbacks == null) {
+                        executorCallbacks = new ArrayList<>();
+                        callbacks.put(participant.callbackExecutor, executorCallbacks);
+                    }
+                    executorCallbacks.add(participant.callback);
+                }
+            }
+            completion = onComplete;
+        }
+        if (completion != null) {
+            completion.run();
+        }
+
+        final Result<T> finalResult = result;
+        for (Map.Entry<Executor, List<Consumer<Result<T>>>> entry : callbacks.entrySet()) {
+            final List<Consumer<Result<T>>> executorCallbacks = entry.getValue();
+            entry.getKey().execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (Consumer<Result<T>> callback : executorCallbacks) {
+                        callback.accept(finalResult);
+                    }
+                }
+            });
         }
-        return null;
     }
 
-    protected void onPostExecute(Result result) {
-        callback.accept(result);
+    private synchronized boolean cancel(Participant participant) {
+        if (completed || participant.cancelled) {
+            return false;
+        }
+        participant.cancelled = true;
+        for (Participant other : participants) {
+            if (!other.cancelled) {
+                return true;
+            }
+        }
+        // nobody is waiting for the result anymore
+        context.cancel();
+        return true;
+    }
+
+    private synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    private synchronized boolean isCancelled(Participant participant) {
+        return participant.cancelled;
+    }
+
+    /**
+     * One caller waiting for the result of a task. Belongs to the task that's actually executed,
+     * which changes when the caller's request joins an identical one.
+     */
+    private class Participant implements RequestHandle {
+        private final Consumer<Result<T>> callback;
+        private volatile Executor callbackExecutor;
+        private volatile boolean cancelled;
+        private volatile RequestTask<T> owner = RequestTask.this;
+
+        Participant(Consumer<Result<T>> callback) {
+            this.callback = callback;
+        }
+
+        void redirect(RequestTask<T> owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public boolean cancel() {
+            return owner.cancel(this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return owner.isCancelled(this);
+        }
+
+        @Override
+        public boolean isDone() {
+            return owner.isCompleted();
+        }
     }
 }
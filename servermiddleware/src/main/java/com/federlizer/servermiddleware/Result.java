@@ -1,10 +1,14 @@
 package com.federlizer.servermiddleware;
 
-public class Result {
-    public String value;
+/**
+ * The outcome of a request. Either value or exception is set.
+ * @param <T> The type of the decoded response
+ */
+public class Result<T> {
+    public T value;
     public Exception exception;
 
-    public Result(String value) {
+    public Result(T value) {
         this.value = value;
     }
 
@@ -1,9 +1,12 @@
 package com.federlizer.servermiddleware;
 
+import com.federlizer.servermiddleware.models.Account;
 import com.federlizer.servermiddleware.models.Profile;
 import com.federlizer.servermiddleware.models.Project;
 import com.federlizer.servermiddleware.models.ProjectFilter;
 
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 public interface ServerMiddleware {
@@ -12,8 +15,9 @@ public interface ServerMiddleware {
      * @param email The email of the user
      * @param password The password of the user
      * @param callback The callback that's to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void authenticate(final String email, final String password, Consumer<Result> callback);
+    RequestHandle authenticate(final String email, final String password, Consumer<Result<Account>> callback);
 
     /**
      * Sends a request to register a new user
@@ -22,38 +26,50 @@ public interface ServerMiddleware {
      * @param password The password
      * @param passwordConfirmation The password a second time, for confirmation by the server
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void register(final String username, final String email, final String password, final String passwordConfirmation, Consumer<Result> callback);
+    RequestHandle register(final String username, final String email, final String password, final String passwordConfirmation, Consumer<Result<String>> callback);
 
     /**
      * Sends a request to fetch all projects owned by the authenticated user
      * @param token The JWT token of the authenticated user
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void getOwnProjects(final String token, Consumer<Result> callback);
+    RequestHandle getOwnProjects(final String token, Consumer<Result<List<Project>>> callback);
 
     /**
      * Creates a new project under the authenticated user's ownership
      * @param token The token of the authenticated user
      * @param newProject The data for the new project. Only the title field is required.
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void createNewProject(final String token, final Project newProject, Consumer<Result> callback);
+    RequestHandle createNewProject(final String token, final Project newProject, Consumer<Result<Project>> callback);
 
     /**
      * Sends a request to find a project
      * @param token The token of the authenticated user
      * @param projectID The ID of the project.
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void getProjectById(final String token, final String projectID, Consumer<Result> callback);
+    RequestHandle getProjectById(final String token, final String projectID, Consumer<Result<Project>> callback);
 
     /**
      * Get's all projects saved on the server
      * @param filter A non-required filter to get only specific projects.
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void getAllProjects(final ProjectFilter filter, Consumer<Result> callback);
+    RequestHandle getAllProjects(final ProjectFilter filter, Consumer<Result<List<Project>>> callback);
+
+    /**
+     * Get's the projects saved on the server one page at a time
+     * @param filter A non-required filter to get only specific projects. Its page size and offset decide where the pages start and how big they are.
+     * @return A pager that delivers the pages as they're requested
+     */
+    ProjectPager getAllProjectsPaged(final ProjectFilter filter);
 
     /**
      * Sends a request to update a project. Only the owner of a project can make such a request.
@@ -61,60 +77,99 @@ public interface ServerMiddleware {
      * @param projectID The project's ID
      * @param updatedProject The new data for the project
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
+     */
+    RequestHandle updateProject(final String token, final String projectID, final Project updatedProject, Consumer<Result<Project>> callback);
+
+    /**
+     * Sends a request to update a project with only the fields that differ from the last known version of it.
+     * If nothing changed, no request is made and the last known version is delivered.
+     * @param token The token of the authenticated user
+     * @param projectID The project's ID
+     * @param lastKnown The project as the server last sent it, or null to use the cached one. Without either the whole update is sent.
+     * @param updatedProject The new data for the project
+     * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void updateProject(final String token, final String projectID, final Project updatedProject, Consumer<Result> callback);
+    RequestHandle updateProject(final String token, final String projectID, final Project lastKnown, final Project updatedProject, Consumer<Result<Project>> callback);
 
     /**
      * Sends a request to delete a project. Only the owner of a project can make such a request.
      * @param token The token of the authenticated user
      * @param projectID The project's ID
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void deleteProject(final String token, final String projectID, Consumer<Result> callback);
+    RequestHandle deleteProject(final String token, final String projectID, Consumer<Result<String>> callback);
 
     /**
      * Sends a request to join a project
      * @param token The token of the authenticated user
      * @param projectID The project's ID
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void joinProject(final String token, final String projectID, Consumer<Result> callback);
+    RequestHandle joinProject(final String token, final String projectID, Consumer<Result<String>> callback);
 
     /**
      * Sends a request to leave a project
      * @param token The token of the authenticated user
      * @param projectID The project's ID
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void leaveProject(final String token, final String projectID, Consumer<Result> callback);
+    RequestHandle leaveProject(final String token, final String projectID, Consumer<Result<String>> callback);
 
     /**
      * Get's a user's profile
      * @param token The token of the authenticated user
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void getOwnProfile(final String token, Consumer<Result> callback);
+    RequestHandle getOwnProfile(final String token, Consumer<Result<Profile>> callback);
 
     /**
      * Get's any account's profile
      * @param accountID The account ID of the profile to get
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void getProfileByAccountID(final String accountID, Consumer<Result> callback);
+    RequestHandle getProfileByAccountID(final String accountID, Consumer<Result<Profile>> callback);
+
+    /**
+     * Get's the profiles of several accounts at once
+     * @param accountIDs The account IDs of the profiles to get. Duplicates are only fetched once.
+     * @param callback The callback to be executed after all profiles are fetched, with the result of each account ID
+     * @return A handle to cancel the request with
+     */
+    RequestHandle getProfilesByAccountIDs(final List<String> accountIDs, Consumer<Result<Map<String, Result<Profile>>>> callback);
 
     /**
      * Creates a new profile for the authenticated account
      * @param token the token of the authenticated user
      * @param profile The profile information to be saved
      * @param callback The callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void createOwnProfile(final String token, final Profile profile, Consumer<Result> callback);
+    RequestHandle createOwnProfile(final String token, final Profile profile, Consumer<Result<Profile>> callback);
 
     /**
      * Updates an already existing profile for the authenticated account
      * @param token the token of the authenticated user
      * @param newProfile the new information for the profile
      * @param callback the callback to be executed after the request is finished
+     * @return A handle to cancel the request with
+     */
+    RequestHandle updateOwnProfile(final String token, final Profile newProfile, Consumer<Result<Profile>> callback);
+
+    /**
+     * Updates the profile of the authenticated account with only the fields that differ from the last known version of it.
+     * If nothing changed, no request is made and the last known version is delivered.
+     * @param token the token of the authenticated user
+     * @param lastKnown the profile as the server last sent it, or null to use the cached one. Without either the whole profile is sent.
+     * @param newProfile the new information for the profile
+     * @param callback the callback to be executed after the request is finished
+     * @return A handle to cancel the request with
      */
-    void updateOwnProfile(final String token, final Profile newProfile, Consumer<Result> callback);
+    RequestHandle updateOwnProfile(final String token, final Profile lastKnown, final Profile newProfile, Consumer<Result<Profile>> callback);
 }
@@ -0,0 +1,176 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Account;
+
+import java.util.function.Consumer;
+
+/**
+ * Keeps the authenticated account and its JWT, and gets a new token before the current one expires.
+ * The server has no refresh route, so a new token means authenticating again with the credentials.
+ * <p>
+ * Calls made through middleware() don't have to care about expiry: a token that's about to expire is replaced
+ * before the request is sent, and a request the server rejects with a 401 is sent once more with a new token.
+ * Concurrent requests that find the token expired all wait for the same authentication.
+ */
+public class Session {
+    // authenticate this long before the token expires, so requests in flight don't run into the expiry
+    public static final long DEFAULT_REFRESH_MARGIN_MILLIS = 60 * 1000;
+
+    /**
+     * Supplies the credentials to authenticate with, e.g. from the account manager.
+     * Asked every time the session has to authenticate, so nothing has to be kept in memory.
+     */
+    public interface Credentials {
+        String email();
+
+        String password();
+    }
+
+    private final DevelopoolMiddleware middleware;
+    private final Credentials credentials;
+    private final long refreshMarginMillis;
+
+    private volatile Account account;
+    private volatile JwtClaims claims;
+
+    public Session(DevelopoolMiddleware middleware, Credentials credentials) {
+        this(middleware, credentials, DEFAULT_REFRESH_MARGIN_MILLIS);
+    }
+
+    /**
+     * @param middleware          The middleware to authenticate with
+     * @param credentials         The credentials of the account
+     * @param refreshMarginMillis How long before the token's expiry a new one is fetched
+     */
+    public Session(DevelopoolMiddleware middleware, Credentials credentials, long refreshMarginMillis) {
+        this.middleware = middleware;
+        this.credentials = credentials;
+        this.refreshMarginMillis = Math.max(0, refreshMarginMillis);
+    }
+
+    /**
+     * Authenticates with the credentials and keeps the account
+     *
+     * @param callback The callback to be executed with the authenticated account
+     * @return A handle to cancel the request with
+     */
+    public RequestHandle authenticate(final Consumer<Result<Account>> callback) {
+        return middleware.authenticate(credentials.email(), credentials.password(), new Consumer<Result<Account>>() {
+            @Override
+            public void accept(Result<Account> result) {
+                if (result.exception == null) {
+                    setAccount(result.value);
+                }
+                callback.accept(result);
+            }
+        });
+    }
+
+    /**
+     * Starts the session with an account that's been authenticated elsewhere, e.g. restored after the app restarted
+     */
+    public void setAccount(Account account) {
+        synchronized (this) {
+            this.claims = account != null ? JwtClaims.parse(account.token) : null;
+            this.account = account;
+        }
+    }
+
+    /**
+     * @return The authenticated account, null if the session hasn't been started or has been cleared
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * @return The current token as it is, null if there's none. Calls made through middleware() replace it if it's about to expire.
+     */
+    public String getToken() {
+        Account current = account;
+        return current != null ? current.token : null;
+    }
+
+    /**
+     * Ends the session, e.g. when the user logs out
+     */
+    public void clear() {
+        setAccount(null);
+    }
+
+    /**
+     * @return A view of the middleware whose calls keep the token passed to them fresh, e.g.
+     * session.middleware().getOwnProfile(session.getToken(), callback)
+     */
+    public DevelopoolMiddleware middleware() {
+        return middleware.withSession(this);
+    }
+
+    /**
+     * @param token The token a request is about to be sent with
+     * @return true if the token belongs to this session's account, so the session may replace it
+     */
+    boolean owns(String token) {
+        JwtClaims current = claims;
+        if (token == null || current == null || current.subject == null) {
+            return false;
+        }
+        if (token.equals(getToken())) {
+            return true;
+        }
+        JwtClaims tokenClaims = JwtClaims.parse(token);
+        return tokenClaims != null && current.subject.equals(tokenClaims.subject);
+    }
+
+    /**
+     * Blocks while the token is being replaced, so it has to be called on a request thread
+     *
+     * @return A token that won't expire within the refresh margin
+     */
+    String freshToken() throws Exception {
+        if (!expiresSoon(claims)) {
+            return getToken();
+        }
+        synchronized (this) {
+            // whoever held the lock before may have authenticated already
+            if (!expiresSoon(claims)) {
+                return getToken();
+            }
+            return reauthenticate();
+        }
+    }
+
+    /**
+     * Blocks while the token is being replaced, so it has to be called on a request thread
+     *
+     * @param rejectedToken The token the server answered a request with a 401 to
+     * @return A newer token
+     */
+    String refresh(String rejectedToken) throws Exception {
+        synchronized (this) {
+            String current = getToken();
+            // another request got a new token while this one was in flight
+            if (current != null && !current.equals(rejectedToken)) {
+                return current;
+            }
+            return reauthenticate();
+        }
+    }
+
+    private boolean expiresSoon(JwtClaims claims) {
+        if (claims == null) {
+            return account == null;
+        }
+        return claims.expiresAt != 0 && System.currentTimeMillis() >= claims.expiresAt - refreshMarginMillis;
+    }
+
+    // called with the lock held, so concurrent callers wait for a single authentication
+    private String reauthenticate() throws Exception {
+        Result<Account> result = middleware.authenticateNow(credentials.email(), credentials.password());
+        if (result.exception != null) {
+            throw result.exception;
+        }
+        setAccount(result.value);
+        return result.value.token;
+    }
+}
@@ -0,0 +1,42 @@
+package com.federlizer.servermiddleware.cache;
+
+/**
+ * A point in time snapshot of a cache's counters
+ */
+public class CacheStats {
+    public final long hits;
+    public final long misses;
+    public final long evictions;
+    public final long expirations;
+    public final int size;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+    }
+
+    /**
+     * @return The share of lookups that were served from the cache, between 0 and 1
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", size=" + size +
+                '}';
+    }
+}
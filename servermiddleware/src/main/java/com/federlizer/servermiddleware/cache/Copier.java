@@ -0,0 +1,13 @@
+package com.federlizer.servermiddleware.cache;
+
+/**
+ * Copies cached values on their way in and out, so a caller editing the object it got back can't change what's cached.
+ * @param <V> The type of the cached values
+ */
+public interface Copier<V> {
+    /**
+     * @param value The value, never null
+     * @return A copy of the value that shares nothing mutable with it
+     */
+    V copy(V value);
+}
@@ -0,0 +1,359 @@
+package com.federlizer.servermiddleware.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the last good response per key on disk, so it can be shown before the network answers.
+ * <p>
+ * Every account gets its own append-only log file. Each record is laid out as
+ * <pre>[int keyLength][int valueLength][key][value][int crc32 of value]</pre>
+ * and a valueLength of -1 marks a removed key. When a log is opened only the record headers and keys
+ * are read to build an in-memory index of where each value lives, so a lookup is a single seek and read.
+ * <p>
+ * A log is compacted (rewritten with only the live records) once it's more than twice the size of
+ * its live data. If the live data of an account goes over the size cap, the oldest entries are dropped.
+ */
+public class DiskResponseStore {
+    private static final String LOG_EXTENSION = ".log";
+    private static final String COMPACTION_EXTENSION = ".compact";
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 4;
+    private static final int TOMBSTONE = -1;
+    private static final int MAX_KEY_BYTES = 1024;
+    // don't bother compacting tiny logs
+    private static final long MIN_COMPACTION_BYTES = 16 * 1024;
+
+    private final File directory;
+    private final long maxBytesPerAccount;
+    private final Map<String, Log> logs = new HashMap<>();
+
+    /**
+     * @param directory The directory the log files are kept in. Created if it doesn't exist.
+     * @param maxBytesPerAccount The maximum size of the live data kept per account
+     */
+    public DiskResponseStore(File directory, long maxBytesPerAccount) {
+        if (maxBytesPerAccount < 1) {
+            throw new IllegalArgumentException("maxBytesPerAccount must be at least 1");
+        }
+        this.directory = directory;
+        this.maxBytesPerAccount = maxBytesPerAccount;
+    }
+
+    /**
+     * @param account The account the response belongs to
+     * @param key The key the response was saved under
+     * @return The saved response as it was put, or null if there isn't one
+     * @throws IOException If the log couldn't be read
+     */
+    public synchronized byte[] get(String account, String key) throws IOException {
+        // don't create a log just to find out it's empty
+        if (!logs.containsKey(account) && !logFile(account).exists()) {
+            return null;
+        }
+        return log(account).get(key);
+    }
+
+    /**
+     * Saves a response, replacing the previous one under the same key
+     * @param account The account the response belongs to
+     * @param key The key to save the response under
+     * @param value The response body, e.g. the UTF-8 bytes of a JSON response
+     * @throws IOException If the log couldn't be written
+     */
+    public synchronized void put(String account, String key, byte[] value) throws IOException {
+        Log log = log(account);
+        log.put(key, value);
+        log.enforceCap(maxBytesPerAccount);
+    }
+
+    public synchronized void remove(String account, String key) throws IOException {
+        log(account).remove(key);
+    }
+
+    /**
+     * Deletes everything saved for an account
+     * @param account The account
+     * @throws IOException If the log couldn't be deleted
+     */
+    public synchronized void clear(String account) throws IOException {
+        Log log = logs.remove(account);
+        if (log != null) {
+            log.close();
+        }
+        File file = logFile(account);
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Couldn't delete " + file);
+        }
+    }
+
+    /**
+     * Closes all open log files. The store can still be used afterwards, logs are reopened as needed.
+     */
+    public synchronized void close() {
+        for (Log log : logs.values()) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                // nothing left to do with it anyway
+            }
+        }
+        logs.clear();
+    }
+
+    private Log log(String account) throws IOException {
+        Log log = logs.get(account);
+        if (log == null) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Couldn't create " + directory);
+            }
+            log = new Log(logFile(account));
+            logs.put(account, log);
+        }
+        return log;
+    }
+
+    /**
+     * Account IDs are hashed so they can't clash with or escape the directory
+     */
+    private File logFile(String account) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(account.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + LOG_EXTENSION.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16));
+                name.append(Character.forDigit(b & 0xf, 16));
+            }
+            name.append(LOG_EXTENSION);
+            return new File(directory, name.toString());
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM and Android version ships SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Log {
+        private final File file;
+        private RandomAccessFile raf;
+        // insertion ordered, so the first entry is the oldest one
+        private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>();
+        private long liveBytes;
+
+        Log(File file) throws IOException {
+            this.file = file;
+            open();
+        }
+
+        private void open() throws IOException {
+            raf = new RandomAccessFile(file, "rw");
+            index.clear();
+            liveBytes = 0;
+
+            long length = raf.length();
+            long position = 0;
+            while (position + HEADER_BYTES <= length) {
+                raf.seek(position);
+                int keyLength = raf.readInt();
+                int valueLength = raf.readInt();
+                if (keyLength < 1 || keyLength > MAX_KEY_BYTES || valueLength < TOMBSTONE) {
+                    break;
+                }
+
+                long recordLength = recordLength(keyLength, valueLength);
+                if (position + recordLength > length) {
+                    // the app died in the middle of writing this record
+                    break;
+                }
+
+                byte[] keyBytes = new byte[keyLength];
+                raf.readFully(keyBytes);
+                String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+                drop(key);
+                if (valueLength != TOMBSTONE) {
+                    raf.seek(position + recordLength - TRAILER_BYTES);
+                    int crc = raf.readInt();
+                    index.put(key, new IndexEntry(position + HEADER_BYTES + keyLength, valueLength, recordLength, crc));
+                    liveBytes += recordLength;
+                }
+                position += recordLength;
+            }
+
+            // cut off whatever couldn't be read, so new records don't end up after garbage
+            if (position < length) {
+                raf.setLength(position);
+            }
+        }
+
+        byte[] get(String key) throws IOException {
+            IndexEntry entry = index.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            byte[] value = read(entry);
+            if (entry.valueCrc != crc(value)) {
+                remove(key);
+                return null;
+            }
+            return value;
+        }
+
+        void put(String key, byte[] valueBytes) throws IOException {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length == 0 || keyBytes.length > MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Keys must be between 1 and " + MAX_KEY_BYTES + " bytes long");
+            }
+
+            // the same response usually comes back on every refresh, don't grow the log for it
+            int crc = crc(valueBytes);
+            IndexEntry existing = index.get(key);
+            if (existing != null && existing.valueLength == valueBytes.length && existing.valueCrc == crc
+                    && Arrays.equals(read(existing), valueBytes)) {
+                return;
+            }
+
+            long position = append(keyBytes, valueBytes, crc);
+            drop(key);
+            long recordLength = recordLength(keyBytes.length, valueBytes.length);
+            index.put(key, new IndexEntry(position + HEADER_BYTES + keyBytes.length, valueBytes.length, recordLength, crc));
+            liveBytes += recordLength;
+
+            maybeCompact();
+        }
+
+        void remove(String key) throws IOException {
+            if (!index.containsKey(key)) {
+                return;
+            }
+            append(key.getBytes(StandardCharsets.UTF_8), null, 0);
+            drop(key);
+            maybeCompact();
+        }
+
+        void enforceCap(long maxBytes) throws IOException {
+            if (liveBytes <= maxBytes) {
+                return;
+            }
+
+            Iterator<Map.Entry<String, IndexEntry>> oldest = index.entrySet().iterator();
+            while (liveBytes > maxBytes && oldest.hasNext()) {
+                liveBytes -= oldest.next().getValue().recordLength;
+                oldest.remove();
+            }
+            // the dropped entries are still in the log, so it has to be rewritten for them to stay dropped
+            compact();
+        }
+
+        void close() throws IOException {
+            raf.close();
+        }
+
+        private void drop(String key) {
+            IndexEntry previous = index.remove(key);
+            if (previous != null) {
+                liveBytes -= previous.recordLength;
+            }
+        }
+
+        /**
+         * @return The position the record was written at
+         */
+        private long append(byte[] keyBytes, byte[] valueBytes, int crc) throws IOException {
+            int valueLength = valueBytes != null ? valueBytes.length : TOMBSTONE;
+            ByteBuffer record = ByteBuffer.allocate((int) recordLength(keyBytes.length, valueLength));
+            record.putInt(keyBytes.length);
+            record.putInt(valueLength);
+            record.put(keyBytes);
+            if (valueBytes != null) {
+                record.put(valueBytes);
+                record.putInt(crc);
+            }
+
+            long position = raf.length();
+            raf.seek(position);
+            raf.write(record.array());
+            return position;
+        }
+
+        private byte[] read(IndexEntry entry) throws IOException {
+            byte[] value = new byte[entry.valueLength];
+            raf.seek(entry.valueOffset);
+            raf.readFully(value);
+            return value;
+        }
+
+        private void maybeCompact() throws IOException {
+            long length = raf.length();
+            if (length > MIN_COMPACTION_BYTES && length > liveBytes * 2) {
+                compact();
+            }
+        }
+
+        private void compact() throws IOException {
+            File compacted = new File(file.getPath() + COMPACTION_EXTENSION);
+            RandomAccessFile out = new RandomAccessFile(compacted, "rw");
+            try {
+                out.setLength(0);
+                for (Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                    IndexEntry value = entry.getValue();
+                    byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                    byte[] record = new byte[(int) value.recordLength];
+
+                    // the value and its crc are copied over as they are
+                    raf.seek(value.valueOffset - HEADER_BYTES - keyBytes.length);
+                    raf.readFully(record);
+                    out.write(record);
+                }
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+
+            raf.close();
+            if (!compacted.renameTo(file)) {
+                throw new IOException("Couldn't replace " + file + " with its compacted version");
+            }
+            open();
+        }
+
+        private static long recordLength(int keyLength, int valueLength) {
+            if (valueLength == TOMBSTONE) {
+                return HEADER_BYTES + keyLength;
+            }
+            return HEADER_BYTES + keyLength + valueLength + TRAILER_BYTES;
+        }
+
+        private static int crc(byte[] bytes) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            return (int) crc.getValue();
+        }
+    }
+
+    private static class IndexEntry {
+        final long valueOffset;
+        final int valueLength;
+        final long recordLength;
+        // as stored in the record's trailer
+        final int valueCrc;
+
+        IndexEntry(long valueOffset, int valueLength, long recordLength, int valueCrc) {
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.recordLength = recordLength;
+            this.valueCrc = valueCrc;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.federlizer.servermiddleware.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded in-memory cache of entities keyed by their ID.
+ * Entries expire after a fixed time to live, and the least recently used entry is evicted once the cache is full.
+ * @param <V> The type of the cached entities
+ */
+public class EntityCache<V> {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Copier<V> copier;
+    private final LinkedHashMap<String, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param maxEntries The maximum number of entities kept. 0 disables the cache.
+     * @param ttlMillis How long an entity stays valid after it's been put in the cache
+     */
+    public EntityCache(final int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, null);
+    }
+
+    /**
+     * @param maxEntries The maximum number of entities kept. 0 disables the cache.
+     * @param ttlMillis How long an entity stays valid after it's been put in the cache
+     * @param copier Copies entities on put and get, null to cache them as they are
+     */
+    public EntityCache(final int maxEntries, long ttlMillis, Copier<V> copier) {
+        if (maxEntries < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("maxEntries and ttlMillis can't be negative");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.copier = copier;
+        this.entries = new LinkedHashMap<String, EntityCache.Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EntityCache.Entry<V>> eldest) {
+                if (size() > maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key The ID of the entity
+     * @return The cached entity, or null if it isn't cached or has expired
+     */
+    public synchronized V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.createdAt > ttlNanos) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(entry.value);
+    }
+
+    /**
+     * Like get(), without counting a hit or a miss
+     * @param key The ID of the entity
+     * @return true if the entity is cached and hasn't expired
+     */
+    public synchronized boolean contains(String key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && System.nanoTime() - entry.createdAt <= ttlNanos;
+    }
+
+    /**
+     * Like get(), without counting a hit or a miss
+     * @param key The ID of the entity
+     * @return The cached entity, or null if it isn't cached or has expired
+     */
+    public synchronized V peek(String key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && System.nanoTime() - entry.createdAt <= ttlNanos ? copy(entry.value) : null;
+    }
+
+    public synchronized void put(String key, V value) {
+        if (maxEntries == 0 || key == null || value == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(copy(value), System.nanoTime()));
+    }
+
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, expirations, entries.size());
+    }
+
+    private V copy(V value) {
+        return copier != null ? copier.copy(value) : value;
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long createdAt;
+
+        Entry(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
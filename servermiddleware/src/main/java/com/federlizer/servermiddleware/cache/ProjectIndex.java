@@ -0,0 +1,305 @@
+package com.federlizer.servermiddleware.cache;
+
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.models.ProjectFilter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-memory index of the whole project catalogue, so a ProjectFilter can be answered without asking the server,
+ * e.g. while the user types into a search field.
+ * <p>
+ * Every project gets a slot number, and each skill, each interest, each title trigram and the privacy flag has a bitmap
+ * of the slots it occurs in. A query ANDs the bitmaps of its terms together and only looks at the projects left over.
+ * Titles match case-insensitively anywhere in the title, and a project has to have every skill and interest the filter lists.
+ * <p>
+ * The index only answers queries while it holds the complete catalogue, i.e. after replaceAll() and until the time to live
+ * runs out. In between, put() and remove() keep it up to date with the changes the app makes itself.
+ */
+public class ProjectIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final long ttlNanos;
+    private final Copier<Project> copier;
+
+    // slot -> project, null for slots whose project has been removed
+    private final List<Project> projects = new ArrayList<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet privateProjects = new BitSet();
+    private final Map<String, BitSet> skills = new HashMap<>();
+    private final Map<String, BitSet> interests = new HashMap<>();
+    private final Map<String, BitSet> titleGrams = new HashMap<>();
+
+    private boolean complete;
+    private long loadedAt;
+
+    /**
+     * @param ttlMillis How long the catalogue is trusted after it's been loaded. 0 disables the index.
+     */
+    public ProjectIndex(long ttlMillis) {
+        this(ttlMillis, null);
+    }
+
+    /**
+     * @param ttlMillis How long the catalogue is trusted after it's been loaded. 0 disables the index.
+     * @param copier Copies projects on their way in and out, null to keep them as they are
+     */
+    public ProjectIndex(long ttlMillis, Copier<Project> copier) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis can't be negative");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.copier = copier;
+    }
+
+    /**
+     * Replaces the index with the complete catalogue, as returned by an unfiltered getAllProjects
+     */
+    public synchronized void replaceAll(List<Project> catalogue) {
+        if (ttlNanos == 0) {
+            return;
+        }
+        clear();
+        for (Project project : catalogue) {
+            put(project);
+        }
+        complete = true;
+        loadedAt = System.nanoTime();
+    }
+
+    /**
+     * Adds a project, or replaces the indexed one with the same ID
+     */
+    public synchronized void put(Project project) {
+        if (ttlNanos == 0 || project == null || project.id == null) {
+            return;
+        }
+        index(copy(project));
+        compactIfSparse();
+    }
+
+    // called with the lock held, with a project nobody else has a reference to
+    private void index(Project project) {
+        // a replaced project keeps its place in the catalogue
+        Integer existing = slots.get(project.id);
+        int slot;
+        if (existing != null) {
+            unindex(existing);
+            slot = existing;
+            projects.set(slot, project);
+        } else {
+            slot = projects.size();
+            projects.add(project);
+        }
+        slots.put(project.id, slot);
+        live.set(slot);
+        if (Boolean.TRUE.equals(project.isPrivate)) {
+            privateProjects.set(slot);
+        }
+        addAll(skills, project.skills, slot);
+        addAll(interests, project.interests, slot);
+        for (String gram : grams(normalize(project.title))) {
+            posting(titleGrams, gram).set(slot);
+        }
+    }
+
+    public synchronized void remove(String projectID) {
+        Integer slot = slots.get(projectID);
+        if (slot != null) {
+            unindex(slot);
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * @return The indexed project, null if it isn't indexed
+     */
+    public synchronized Project get(String projectID) {
+        Integer slot = slots.get(projectID);
+        return slot != null ? copy(projects.get(slot)) : null;
+    }
+
+    /**
+     * @return true if the index holds the complete catalogue and it hasn't expired, so queries can be answered
+     */
+    public synchronized boolean isComplete() {
+        return complete && System.nanoTime() - loadedAt <= ttlNanos;
+    }
+
+    public synchronized void clear() {
+        projects.clear();
+        slots.clear();
+        live.clear();
+        privateProjects.clear();
+        skills.clear();
+        interests.clear();
+        titleGrams.clear();
+        complete = false;
+    }
+
+    /**
+     * @param filter The filter to evaluate. Its page size and offset are applied to the result.
+     * @return The matching projects in catalogue order, or null if the index doesn't hold the complete catalogue
+     */
+    public synchronized List<Project> query(ProjectFilter filter) {
+        if (!isComplete()) {
+            return null;
+        }
+
+        BitSet matches = (BitSet) live.clone();
+        String title = "";
+        if (filter != null) {
+            if (Boolean.TRUE.equals(filter.isPrivate) || Boolean.FALSE.equals(filter.isPublic)) {
+                matches.and(privateProjects);
+            }
+            if (Boolean.FALSE.equals(filter.isPrivate) || Boolean.TRUE.equals(filter.isPublic)) {
+                matches.andNot(privateProjects);
+            }
+            retainAll(matches, skills, filter.skills);
+            retainAll(matches, interests, filter.interests);
+
+            title = normalize(filter.title);
+            for (String gram : grams(title)) {
+                BitSet posting = titleGrams.get(gram);
+                if (posting == null) {
+                    matches.clear();
+                    break;
+                }
+                matches.and(posting);
+            }
+        }
+
+        int offset = filter != null && filter.offset != null ? Math.max(0, filter.offset) : 0;
+        int limit = filter != null && filter.pageSize != null ? Math.max(0, filter.pageSize) : Integer.MAX_VALUE;
+        List<Project> result = new ArrayList<>();
+        for (int slot = matches.nextSetBit(0); slot >= 0 && result.size() < limit; slot = matches.nextSetBit(slot + 1)) {
+            Project project = projects.get(slot);
+            // the trigrams only narrow it down, and titles shorter than a trigram have none
+            if (!title.isEmpty() && !normalize(project.title).contains(title)) {
+                continue;
+            }
+            if (offset > 0) {
+                offset--;
+                continue;
+            }
+            result.add(copy(project));
+        }
+        return result;
+    }
+
+    private Project copy(Project project) {
+        return copier != null ? copier.copy(project) : project;
+    }
+
+    private void unindex(int slot) {
+        Project project = projects.get(slot);
+        projects.set(slot, null);
+        slots.remove(project.id);
+        live.clear(slot);
+        privateProjects.clear(slot);
+        removeAll(skills, project.skills, slot);
+        removeAll(interests, project.interests, slot);
+        Set<String> grams = new HashSet<>(grams(normalize(project.title)));
+        for (String gram : grams) {
+            removeFrom(titleGrams, gram, slot);
+        }
+    }
+
+    /**
+     * Removed projects leave their slots empty, so the slots are renumbered once most of them are
+     */
+    private void compactIfSparse() {
+        int size = projects.size();
+        if (size < 64 || live.cardinality() * 2 > size) {
+            return;
+        }
+        List<Project> remaining = new ArrayList<>();
+        for (Project project : projects) {
+            if (project != null) {
+                remaining.add(project);
+            }
+        }
+        boolean wasComplete = complete;
+        long wasLoadedAt = loadedAt;
+        clear();
+        for (Project project : remaining) {
+            index(project);
+        }
+        complete = wasComplete;
+        loadedAt = wasLoadedAt;
+    }
+
+    private static void retainAll(BitSet matches, Map<String, BitSet> postings, List<String> terms) {
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            String normalized = normalize(term);
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            BitSet posting = postings.get(normalized);
+            if (posting == null) {
+                matches.clear();
+                return;
+            }
+            matches.and(posting);
+        }
+    }
+
+    private static void addAll(Map<String, BitSet> postings, List<String> terms, int slot) {
+        if (terms != null) {
+            for (String term : terms) {
+                posting(postings, normalize(term)).set(slot);
+            }
+        }
+    }
+
+    private static void removeAll(Map<String, BitSet> postings, List<String> terms, int slot) {
+        if (terms != null) {
+            for (String term : terms) {
+                removeFrom(postings, normalize(term), slot);
+            }
+        }
+    }
+
+    private static BitSet posting(Map<String, BitSet> postings, String term) {
+        BitSet posting = postings.get(term);
+        if (posting == null) {
+            posting = new BitSet();
+            postings.put(term, posting);
+        }
+        return posting;
+    }
+
+    private static void removeFrom(Map<String, BitSet> postings, String term, int slot) {
+        BitSet posting = postings.get(term);
+        if (posting != null) {
+            posting.clear(slot);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static List<String> grams(String text) {
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -0,0 +1,98 @@
+package com.federlizer.servermiddleware.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the ETag and Last-Modified validators of GET responses together with their decoded body,
+ * so the next request for the same URL can be made conditional and a 304 can be answered from memory.
+ * <p>
+ * Entries are keyed by URL and token, since the same URL returns different data for different users.
+ * The least recently used entry is dropped once the cache is full.
+ */
+public class ValidatorCache {
+    private final LinkedHashMap<String, Entry> entries;
+    private final Copier<Object> copier;
+
+    public ValidatorCache(final int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * @param maxEntries The maximum number of responses kept
+     * @param copier Copies the decoded responses on their way in and out, null to keep them as they are
+     */
+    public ValidatorCache(final int maxEntries, Copier<Object> copier) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.copier = copier;
+        this.entries = new LinkedHashMap<String, ValidatorCache.Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ValidatorCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param url The full URL of the request
+     * @param token The token the request is authenticated with. Can be null for public routes.
+     * @return The key the request's validators are saved under
+     */
+    public static String key(String url, String token) {
+        return token == null ? url : token + ' ' + url;
+    }
+
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Saves the validators of a response. Responses without any validators aren't saved.
+     * @param key The key from key(url, token)
+     * @param eTag The value of the ETag header, or null
+     * @param lastModified The value of the Last-Modified header, or null
+     * @param value The decoded response
+     */
+    public synchronized void put(String key, String eTag, String lastModified, Object value) {
+        if (eTag == null && lastModified == null) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry(eTag, lastModified, value != null && copier != null ? copier.copy(value) : value, copier));
+    }
+
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static class Entry {
+        public final String eTag;
+        public final String lastModified;
+        private final Object value;
+        private final Copier<Object> copier;
+
+        Entry(String eTag, String lastModified, Object value, Copier<Object> copier) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.value = value;
+            this.copier = copier;
+        }
+
+        /**
+         * @return A copy of the decoded response, so it can be handed out for a 304
+         */
+        public Object value() {
+            return value != null && copier != null ? copier.copy(value) : value;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.federlizer.servermiddleware.exceptions;
+
+import java.io.IOException;
+
+/**
+ * The request wasn't sent, because its route has been failing and is given time to recover
+ */
+public class CircuitOpenException extends IOException {
+    private String key;
+
+    public CircuitOpenException(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String getMessage() {
+        return super.getMessage() + System.lineSeparator() + key;
+    }
+}
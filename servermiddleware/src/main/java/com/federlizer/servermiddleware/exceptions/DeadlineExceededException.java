@@ -0,0 +1,21 @@
+package com.federlizer.servermiddleware.exceptions;
+
+/**
+ * The request didn't finish before its deadline, including the time spent waiting and retrying
+ */
+public class DeadlineExceededException extends Exception {
+    private String key;
+
+    public DeadlineExceededException(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String getMessage() {
+        return super.getMessage() + System.lineSeparator() + key;
+    }
+}
@@ -0,0 +1,29 @@
+package com.federlizer.servermiddleware.exceptions;
+
+import java.io.IOException;
+
+/**
+ * The server answered with an error status code that the request has no specific exception for
+ */
+public class HttpStatusException extends IOException {
+    private String key;
+    private int responseCode;
+
+    public HttpStatusException(String key, int responseCode) {
+        this.key = key;
+        this.responseCode = responseCode;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public String getMessage() {
+        return super.getMessage() + System.lineSeparator() + key;
+    }
+}
@@ -0,0 +1,61 @@
+package com.federlizer.servermiddleware.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes a response like the wrapped decoder, while keeping a copy of the raw bytes it read.
+ * Only meant for the few responses that also have to be persisted as they are.
+ * @param <T> The type of the decoded response
+ */
+public class CapturingDecoder<T> implements ResponseDecoder<T> {
+    private final ResponseDecoder<T> decoder;
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private boolean decoded;
+
+    public CapturingDecoder(ResponseDecoder<T> decoder) {
+        this.decoder = decoder;
+    }
+
+    @Override
+    public T decode(InputStream body) throws IOException {
+        // a retried request decodes again from the start
+        captured.reset();
+        decoded = true;
+        return decoder.decode(new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    captured.write(b);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    captured.write(buffer, offset, read);
+                }
+                return read;
+            }
+        });
+    }
+
+    /**
+     * @return true if a response body has been decoded, false if e.g. a 304 was answered from memory without one
+     */
+    public boolean hasCaptured() {
+        return decoded;
+    }
+
+    /**
+     * @return The raw bytes read while decoding, or an empty array if nothing has been decoded
+     */
+    public byte[] captured() {
+        return captured.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package com.federlizer.servermiddleware.json;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes a response like the wrapped decoder, adding the number of bytes it read to a counter
+ * @param <T> The type of the decoded response
+ */
+public class CountingDecoder<T> implements ResponseDecoder<T> {
+    private final ResponseDecoder<T> decoder;
+    private final AtomicLong bytes;
+
+    /**
+     * @param bytes The counter to add to. It can be shared by several decoders.
+     */
+    public CountingDecoder(ResponseDecoder<T> decoder, AtomicLong bytes) {
+        this.decoder = decoder;
+        this.bytes = bytes;
+    }
+
+    @Override
+    public T decode(InputStream body) throws IOException {
+        return decoder.decode(new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    bytes.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytes.addAndGet(read);
+                }
+                return read;
+            }
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.federlizer.servermiddleware.json;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Parses and formats the ISO 8601 dates the server uses
+ */
+public final class IsoDates {
+    private static final String[] PATTERNS = {
+            "yyyy-MM-dd'T'HH:mm:ss.SSSX",
+            "yyyy-MM-dd'T'HH:mm:ssX",
+            "yyyy-MM-dd"
+    };
+
+    // SimpleDateFormat isn't thread safe, so every thread gets its own
+    private static final ThreadLocal<DateFormat[]> FORMATS = new ThreadLocal<DateFormat[]>() {
+        @Override
+        protected DateFormat[] initialValue() {
+            DateFormat[] formats = new DateFormat[PATTERNS.length];
+            for (int i = 0; i < PATTERNS.length; i++) {
+                formats[i] = new SimpleDateFormat(PATTERNS[i], Locale.US);
+                formats[i].setTimeZone(TimeZone.getTimeZone("UTC"));
+            }
+            return formats;
+        }
+    };
+
+    private IsoDates() {
+    }
+
+    /**
+     * @param value The date as sent by the server
+     * @return The parsed date, or null if it isn't in any of the known formats
+     */
+    public static Date parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        for (DateFormat format : FORMATS.get()) {
+            try {
+                return format.parse(value);
+            } catch (ParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param date The date to format
+     * @return The date as an ISO 8601 string in UTC, with milliseconds
+     */
+    public static String format(Date date) {
+        return FORMATS.get()[0].format(date);
+    }
+}
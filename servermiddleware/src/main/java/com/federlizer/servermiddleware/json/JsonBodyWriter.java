@@ -0,0 +1,274 @@
+package com.federlizer.servermiddleware.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Writes JSON as UTF-8 straight into an output stream, through a buffer that's reused by every body
+ * written on the same thread. Nothing is allocated per body, dates included.
+ * Each thread has a single writer, so a body can't be written while another one is being written on the same thread.
+ */
+public final class JsonBodyWriter {
+    private static final int BUFFER_SIZE = 8192;
+    // enough for any escaped or encoded char
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final int MAX_DEPTH = 64;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+    private static final byte[] NULL = "null".getBytes();
+
+    private static final ThreadLocal<JsonBodyWriter> WRITERS = new ThreadLocal<JsonBodyWriter>() {
+        @Override
+        protected JsonBodyWriter initialValue() {
+            return new JsonBodyWriter();
+        }
+    };
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+    private int position;
+    private OutputStream out;
+
+    // one bit per nesting level, set once the object or array on that level has an element
+    private long hasElements;
+    private int depth;
+    private boolean afterName;
+
+    private JsonBodyWriter() {
+    }
+
+    /**
+     * @param out The stream to write into. It isn't closed by the writer.
+     * @return This thread's writer, ready to write a new body. close() has to be called once the body is written.
+     */
+    public static JsonBodyWriter open(OutputStream out) {
+        JsonBodyWriter writer = WRITERS.get();
+        if (writer.out != null) {
+            throw new IllegalStateException("Another body is being written on this thread");
+        }
+        writer.out = out;
+        writer.position = 0;
+        writer.hasElements = 0;
+        writer.depth = 0;
+        writer.afterName = false;
+        return writer;
+    }
+
+    /**
+     * Writes out whatever is left in the buffer and releases the writer
+     */
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out = null;
+        }
+    }
+
+    public JsonBodyWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonBodyWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonBodyWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonBodyWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonBodyWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonBodyWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        string(value);
+        return this;
+    }
+
+    public JsonBodyWriter value(boolean value) throws IOException {
+        separate();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * Writes the date as an ISO 8601 string in UTC with milliseconds, the same format IsoDates.format() produces
+     */
+    public JsonBodyWriter value(Date value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        calendar.setTimeInMillis(value.getTime());
+        ensureCapacity(26);
+        buffer[position++] = '"';
+        digits(calendar.get(Calendar.YEAR), 4);
+        buffer[position++] = '-';
+        digits(calendar.get(Calendar.MONTH) + 1, 2);
+        buffer[position++] = '-';
+        digits(calendar.get(Calendar.DAY_OF_MONTH), 2);
+        buffer[position++] = 'T';
+        digits(calendar.get(Calendar.HOUR_OF_DAY), 2);
+        buffer[position++] = ':';
+        digits(calendar.get(Calendar.MINUTE), 2);
+        buffer[position++] = ':';
+        digits(calendar.get(Calendar.SECOND), 2);
+        buffer[position++] = '.';
+        digits(calendar.get(Calendar.MILLISECOND), 3);
+        buffer[position++] = 'Z';
+        buffer[position++] = '"';
+        return this;
+    }
+
+    public JsonBodyWriter nullValue() throws IOException {
+        separate();
+        writeBytes(NULL);
+        return this;
+    }
+
+    private JsonBodyWriter open(char bracket) throws IOException {
+        separate();
+        if (depth == MAX_DEPTH - 1) {
+            throw new IllegalStateException("JSON nested too deep");
+        }
+        writeByte(bracket);
+        depth++;
+        hasElements &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonBodyWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        writeByte(bracket);
+        return this;
+    }
+
+    // writes the comma between the elements of an object or array
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if (depth > 0 && (hasElements & bit) != 0) {
+            writeByte(',');
+        }
+        hasElements |= bit;
+    }
+
+    private void string(String value) throws IOException {
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            ensureCapacity(MAX_CHAR_BYTES);
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    buffer[position++] = '\\';
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else {
+                    buffer[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate can't be encoded, same replacement String.getBytes() uses
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void escapeControl(char c) {
+        buffer[position++] = '\\';
+        switch (c) {
+            case '\n':
+                buffer[position++] = 'n';
+                break;
+            case '\r':
+                buffer[position++] = 'r';
+                break;
+            case '\t':
+                buffer[position++] = 't';
+                break;
+            case '\b':
+                buffer[position++] = 'b';
+                break;
+            case '\f':
+                buffer[position++] = 'f';
+                break;
+            default:
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xf];
+        }
+    }
+
+    private void digits(int value, int count) {
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += count;
+    }
+
+    private void writeByte(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (position + bytes > BUFFER_SIZE) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.federlizer.servermiddleware.json;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.federlizer.servermiddleware.models.Account;
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.transport.BufferPool;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decoders that read responses straight from the connection into the models, token by token,
+ * without building the whole body as a String or a JSONObject tree first.
+ * Unknown fields are skipped, so the server can add fields without breaking older clients.
+ */
+public final class ModelDecoders {
+    public static final ResponseDecoder<Project> PROJECT = new ResponseDecoder<Project>() {
+        @Override
+        public Project decode(InputStream body) throws IOException {
+            JsonReader reader = reader(body);
+            try {
+                return readProject(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    };
+
+    public static final ResponseDecoder<List<Project>> PROJECT_LIST = new ResponseDecoder<List<Project>>() {
+        @Override
+        public List<Project> decode(InputStream body) throws IOException {
+            JsonReader reader = reader(body);
+            try {
+                List<Project> projects = new ArrayList<>();
+
+                if (!enterList(reader)) {
+                    return projects;
+                }
+                while (reader.hasNext()) {
+                    projects.add(readProject(reader));
+                }
+                reader.endArray();
+                return projects;
+            } finally {
+                reader.close();
+            }
+        }
+    };
+
+    public static final ResponseDecoder<Profile> PROFILE = new ResponseDecoder<Profile>() {
+        @Override
+        public Profile decode(InputStream body) throws IOException {
+            JsonReader reader = reader(body);
+            try {
+                return readProfile(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    };
+
+    public static final ResponseDecoder<Account> ACCOUNT = new ResponseDecoder<Account>() {
+        @Override
+        public Account decode(InputStream body) throws IOException {
+            JsonReader reader = reader(body);
+            try {
+                return readAccount(reader);
+            } finally {
+                reader.close();
+            }
+        }
+    };
+
+    /**
+     * For responses that have no model, e.g. a confirmation message. Returns the body as it is.
+     */
+    public static final ResponseDecoder<String> STRING = new ResponseDecoder<String>() {
+        @Override
+        public String decode(InputStream body) throws IOException {
+            StringBuilder response = new StringBuilder();
+            Utf8Reader in = new Utf8Reader(body);
+            char[] buffer = BufferPool.acquireChars();
+            try {
+                int read;
+                while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+                    response.append(buffer, 0, read);
+                }
+            } finally {
+                BufferPool.release(buffer);
+                in.close();
+            }
+
+            if (response.length() == 0) {
+                throw new EOFException("No response from server");
+            }
+            return response.toString();
+        }
+    };
+
+    private ModelDecoders() {
+    }
+
+    public static Project readProject(JsonReader reader) throws IOException {
+        String id = null;
+        String title = null;
+        String publicDescription = null;
+        String privateDescription = null;
+        List<String> interests = null;
+        List<String> skills = null;
+        Boolean isPrivate = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "_id":
+                case "id":
+                    id = nextString(reader);
+                    break;
+                case "title":
+                    title = nextString(reader);
+                    break;
+                case "publicDescription":
+                    publicDescription = nextString(reader);
+                    break;
+                case "privateDescription":
+                    privateDescription = nextString(reader);
+                    break;
+                case "interests":
+                    interests = nextStringList(reader);
+                    break;
+                case "skills":
+                    skills = nextStringList(reader);
+                    break;
+                case "private":
+                    isPrivate = nextBoolean(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Project(id, title, publicDescription, privateDescription, interests, skills, isPrivate);
+    }
+
+    public static Profile readProfile(JsonReader reader) throws IOException {
+        String firstName = null;
+        String lastName = null;
+        List<String> interests = null;
+        List<String> skills = null;
+        List<Education> educations = null;
+        List<PastExperience> pastExperiences = null;
+        String github = null;
+        String facebook = null;
+        String linkedIn = null;
+        String twitter = null;
+        String instagram = null;
+        String accountID = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "firstName":
+                    firstName = nextString(reader);
+                    break;
+                case "lastName":
+                    lastName = nextString(reader);
+                    break;
+                case "interests":
+                    interests = nextStringList(reader);
+                    break;
+                case "skills":
+                    skills = nextStringList(reader);
+                    break;
+                case "education":
+                    educations = nextEducationList(reader);
+                    break;
+                case "pastExperience":
+                    pastExperiences = nextPastExperienceList(reader);
+                    break;
+                case "github":
+                    github = nextString(reader);
+                    break;
+                case "facebook":
+                    facebook = nextString(reader);
+                    break;
+                case "linkedin":
+                    linkedIn = nextString(reader);
+                    break;
+                case "twitter":
+                    twitter = nextString(reader);
+                    break;
+                case "instagram":
+                    instagram = nextString(reader);
+                    break;
+                case "account":
+                case "accountID":
+                    accountID = nextId(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Profile(firstName, lastName, interests, skills, educations, pastExperiences, github, facebook, linkedIn, twitter, instagram, accountID);
+    }
+
+    public static Education readEducation(JsonReader reader) throws IOException {
+        String instituteName = null;
+        String degree = null;
+        String fieldOfStudy = null;
+        Date fromDate = null;
+        Date endDate = null;
+        String description = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "instituteName":
+                    instituteName = nextString(reader);
+                    break;
+                case "degree":
+                    degree = nextString(reader);
+                    break;
+                case "fieldOfStudy":
+                    fieldOfStudy = nextString(reader);
+                    break;
+                case "fromDate":
+                    fromDate = IsoDates.parse(nextString(reader));
+                    break;
+                case "endDate":
+                    endDate = IsoDates.parse(nextString(reader));
+                    break;
+                case "description":
+                    description = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new Education(instituteName, degree, fieldOfStudy, fromDate, endDate, description);
+    }
+
+    public static PastExperience readPastExperience(JsonReader reader) throws IOException {
+        String company = null;
+        String jobTitle = null;
+        String location = null;
+        Date fromDate = null;
+        Date endDate = null;
+        String description = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "company":
+                    company = nextString(reader);
+                    break;
+                case "jobTitle":
+                    jobTitle = nextString(reader);
+                    break;
+                case "location":
+                    location = nextString(reader);
+                    break;
+                case "fromDate":
+                    fromDate = IsoDates.parse(nextString(reader));
+                    break;
+                case "endDate":
+                    endDate = IsoDates.parse(nextString(reader));
+                    break;
+                case "description":
+                    description = nextString(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new PastExperience(company, jobTitle, location, fromDate, endDate, description);
+    }
+
+    /**
+     * The authentication response holds the token, and the account details either next to it
+     * or in a nested "account"/"user" object
+     */
+    public static Account readAccount(JsonReader reader) throws IOException {
+        Account account = new Account(null, null, null);
+        readAccountFields(reader, account);
+        return account;
+    }
+
+    private static void readAccountFields(JsonReader reader, Account account) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "token":
+                    account.token = nextString(reader);
+                    break;
+                case "username":
+                    account.username = nextString(reader);
+                    break;
+                case "email":
+                    account.email = nextString(reader);
+                    break;
+                case "account":
+                case "user":
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        readAccountFields(reader, account);
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Moves the reader into the list of a list response. The list is either the whole body,
+     * or the first array field of a wrapping object, e.g. {"projects": [...]}.
+     * @return false if the body holds no list at all
+     */
+    private static boolean enterList(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            return true;
+        }
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                return true;
+            }
+            reader.skipValue();
+        }
+        reader.endObject();
+        return false;
+    }
+
+    /**
+     * The reader has to be closed to give its buffer back, which leaves the body open
+     */
+    private static JsonReader reader(InputStream body) {
+        return new JsonReader(new Utf8Reader(body));
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static Boolean nextBoolean(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return null;
+            case STRING:
+                return Boolean.valueOf(reader.nextString());
+            default:
+                return reader.nextBoolean();
+        }
+    }
+
+    /**
+     * References to other documents are either the bare ID or the populated document
+     */
+    private static String nextId(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return nextString(reader);
+        }
+
+        String id = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("_id".equals(name) || "id".equals(name)) {
+                id = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return id;
+    }
+
+    private static List<String> nextStringList(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(nextString(reader));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    private static List<Education> nextEducationList(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        List<Education> educations = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            educations.add(readEducation(reader));
+        }
+        reader.endArray();
+        return educations;
+    }
+
+    private static List<PastExperience> nextPastExperienceList(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        List<PastExperience> pastExperiences = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            pastExperiences.add(readPastExperience(reader));
+        }
+        reader.endArray();
+        return pastExperiences;
+    }
+}
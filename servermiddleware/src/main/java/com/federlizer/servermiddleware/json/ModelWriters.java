@@ -0,0 +1,300 @@
+package com.federlizer.servermiddleware.json;
+
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes the models in the same shape ModelDecoders reads them. Fields that aren't set are left out.
+ */
+public final class ModelWriters {
+    // the quotes around a field's name, its colon and the comma after it
+    private static final int FIELD_OVERHEAD = 4;
+    // a quoted "yyyy-MM-ddTHH:mm:ss.SSSZ"
+    private static final int DATE_LENGTH = 26;
+    /**
+     * @param newProject true to send the title even when it's empty, as creating a project requires one
+     */
+    public static void writeProject(JsonBodyWriter writer, Project project, boolean newProject) throws IOException {
+        writer.beginObject();
+        if (newProject && project.title != null) {
+            writer.name("title").value(project.title);
+        } else {
+            field(writer, "title", project.title);
+        }
+        if (project.isPrivate != null) {
+            writer.name("private").value(project.isPrivate);
+        }
+        field(writer, "publicDescription", project.publicDescription);
+        field(writer, "privateDescription", project.privateDescription);
+        field(writer, "interests", project.interests);
+        field(writer, "skills", project.skills);
+        writer.endObject();
+    }
+
+    public static void writeProfile(JsonBodyWriter writer, Profile profile) throws IOException {
+        writer.beginObject();
+        field(writer, "firstName", profile.firstName);
+        field(writer, "lastName", profile.lastName);
+        field(writer, "interests", profile.interests);
+        field(writer, "skills", profile.skills);
+        if (profile.educations != null && !profile.educations.isEmpty()) {
+            writer.name("education").beginArray();
+            for (Education education : profile.educations) {
+                writeEducation(writer, education);
+            }
+            writer.endArray();
+        }
+        if (profile.pastExperiences != null && !profile.pastExperiences.isEmpty()) {
+            writer.name("pastExperience").beginArray();
+            for (PastExperience pastExperience : profile.pastExperiences) {
+                writePastExperience(writer, pastExperience);
+            }
+            writer.endArray();
+        }
+        field(writer, "github", profile.github);
+        field(writer, "facebook", profile.facebook);
+        field(writer, "instagram", profile.instagram);
+        field(writer, "linkedin", profile.linkedIn);
+        field(writer, "twitter", profile.twitter);
+        writer.endObject();
+    }
+
+    public static void writeEducation(JsonBodyWriter writer, Education education) throws IOException {
+        writer.beginObject();
+        field(writer, "instituteName", education.instituteName);
+        field(writer, "degree", education.degree);
+        field(writer, "fieldOfStudy", education.fieldOfStudy);
+        field(writer, "fromDate", education.fromDate);
+        field(writer, "endDate", education.endDate);
+        field(writer, "description", education.description);
+        writer.endObject();
+    }
+
+    public static void writePastExperience(JsonBodyWriter writer, PastExperience pastExperience) throws IOException {
+        writer.beginObject();
+        field(writer, "company", pastExperience.company);
+        field(writer, "jobTitle", pastExperience.jobTitle);
+        field(writer, "location", pastExperience.location);
+        field(writer, "fromDate", pastExperience.fromDate);
+        field(writer, "endDate", pastExperience.endDate);
+        field(writer, "description", pastExperience.description);
+        writer.endObject();
+    }
+
+    /**
+     * Estimates how big the written project is from the length of its fields, without encoding it.
+     * Characters that take more than one byte or have to be escaped make the body somewhat bigger than that.
+     */
+    public static long estimateLength(Project project) {
+        long length = 2;
+        length += estimateLength("title", project.title);
+        if (project.isPrivate != null) {
+            length += "private".length() + FIELD_OVERHEAD + 5;
+        }
+        length += estimateLength("publicDescription", project.publicDescription);
+        length += estimateLength("privateDescription", project.privateDescription);
+        length += estimateLength("interests", project.interests);
+        length += estimateLength("skills", project.skills);
+        return length;
+    }
+
+    /**
+     * Estimates how big the written profile is, see estimateLength(Project)
+     */
+    public static long estimateLength(Profile profile) {
+        long length = 2;
+        length += estimateLength("firstName", profile.firstName);
+        length += estimateLength("lastName", profile.lastName);
+        length += estimateLength("interests", profile.interests);
+        length += estimateLength("skills", profile.skills);
+        if (profile.educations != null && !profile.educations.isEmpty()) {
+            length += "education".length() + FIELD_OVERHEAD + 2;
+            for (Education education : profile.educations) {
+                length += 3;
+                length += estimateLength("instituteName", education.instituteName);
+                length += estimateLength("degree", education.degree);
+                length += estimateLength("fieldOfStudy", education.fieldOfStudy);
+                length += estimateLength("fromDate", education.fromDate);
+                length += estimateLength("endDate", education.endDate);
+                length += estimateLength("description", education.description);
+            }
+        }
+        if (profile.pastExperiences != null && !profile.pastExperiences.isEmpty()) {
+            length += "pastExperience".length() + FIELD_OVERHEAD + 2;
+            for (PastExperience pastExperience : profile.pastExperiences) {
+                length += 3;
+                length += estimateLength("company", pastExperience.company);
+                length += estimateLength("jobTitle", pastExperience.jobTitle);
+                length += estimateLength("location", pastExperience.location);
+                length += estimateLength("fromDate", pastExperience.fromDate);
+                length += estimateLength("endDate", pastExperience.endDate);
+                length += estimateLength("description", pastExperience.description);
+            }
+        }
+        length += estimateLength("github", profile.github);
+        length += estimateLength("facebook", profile.facebook);
+        length += estimateLength("instagram", profile.instagram);
+        length += estimateLength("linkedin", profile.linkedIn);
+        length += estimateLength("twitter", profile.twitter);
+        return length;
+    }
+
+    /**
+     * Writes only the fields of the updated project that differ from the last known version.
+     * A field that's null in the update is left as it is, one that's been emptied is sent empty.
+     * @param writer Where to write the changes, or null to only count them
+     * @return The number of changed fields. The object is empty if there are none.
+     */
+    public static int writeProjectChanges(JsonBodyWriter writer, Project base, Project updated) throws IOException {
+        int changes = 0;
+        if (writer != null) {
+            writer.beginObject();
+        }
+        changes += change(writer, "title", base.title, updated.title);
+        changes += change(writer, "publicDescription", base.publicDescription, updated.publicDescription);
+        changes += change(writer, "privateDescription", base.privateDescription, updated.privateDescription);
+        if (updated.isPrivate != null && !updated.isPrivate.equals(base.isPrivate)) {
+            if (writer != null) {
+                writer.name("private").value(updated.isPrivate);
+            }
+            changes++;
+        }
+        changes += change(writer, "interests", base.interests, updated.interests);
+        changes += change(writer, "skills", base.skills, updated.skills);
+        if (writer != null) {
+            writer.endObject();
+        }
+        return changes;
+    }
+
+    /**
+     * Writes only the fields of the updated profile that differ from the last known version, see writeProjectChanges().
+     * The server replaces the education and past experience lists as a whole, so a list is sent entirely if any of its entries changed.
+     * @param writer Where to write the changes, or null to only count them
+     * @return The number of changed fields. The object is empty if there are none.
+     */
+    public static int writeProfileChanges(JsonBodyWriter writer, Profile base, Profile updated) throws IOException {
+        int changes = 0;
+        if (writer != null) {
+            writer.beginObject();
+        }
+        changes += change(writer, "firstName", base.firstName, updated.firstName);
+        changes += change(writer, "lastName", base.lastName, updated.lastName);
+        changes += change(writer, "interests", base.interests, updated.interests);
+        changes += change(writer, "skills", base.skills, updated.skills);
+        if (updated.educations != null && !sameList(base.educations, updated.educations)) {
+            if (writer != null) {
+                writer.name("education").beginArray();
+                for (Education education : updated.educations) {
+                    writeEducation(writer, education);
+                }
+                writer.endArray();
+            }
+            changes++;
+        }
+        if (updated.pastExperiences != null && !sameList(base.pastExperiences, updated.pastExperiences)) {
+            if (writer != null) {
+                writer.name("pastExperience").beginArray();
+                for (PastExperience pastExperience : updated.pastExperiences) {
+                    writePastExperience(writer, pastExperience);
+                }
+                writer.endArray();
+            }
+            changes++;
+        }
+        changes += change(writer, "github", base.github, updated.github);
+        changes += change(writer, "facebook", base.facebook, updated.facebook);
+        changes += change(writer, "instagram", base.instagram, updated.instagram);
+        changes += change(writer, "linkedin", base.linkedIn, updated.linkedIn);
+        changes += change(writer, "twitter", base.twitter, updated.twitter);
+        if (writer != null) {
+            writer.endObject();
+        }
+        return changes;
+    }
+
+    // null and empty both mean the field isn't set
+    private static int change(JsonBodyWriter writer, String name, String base, String updated) throws IOException {
+        if (updated == null || updated.equals(base) || (updated.isEmpty() && base == null)) {
+            return 0;
+        }
+        if (writer != null) {
+            writer.name(name).value(updated);
+        }
+        return 1;
+    }
+
+    private static int change(JsonBodyWriter writer, String name, List<String> base, List<String> updated) throws IOException {
+        if (updated == null || sameList(base, updated)) {
+            return 0;
+        }
+        if (writer != null) {
+            writer.name(name).beginArray();
+            for (int i = 0, size = updated.size(); i < size; i++) {
+                writer.value(updated.get(i));
+            }
+            writer.endArray();
+        }
+        return 1;
+    }
+
+    private static boolean sameList(List<?> base, List<?> updated) {
+        if (base == null) {
+            return updated.isEmpty();
+        }
+        return base.equals(updated);
+    }
+
+    private static long estimateLength(String name, String value) {
+        return value == null || value.isEmpty() ? 0 : name.length() + FIELD_OVERHEAD + value.length() + 2;
+    }
+
+    private static long estimateLength(String name, Date value) {
+        return value == null ? 0 : name.length() + FIELD_OVERHEAD + DATE_LENGTH;
+    }
+
+    private static long estimateLength(String name, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return 0;
+        }
+        long length = name.length() + FIELD_OVERHEAD + 2;
+        for (int i = 0, size = values.size(); i < size; i++) {
+            String value = values.get(i);
+            length += (value != null ? value.length() : 4) + 3;
+        }
+        return length;
+    }
+
+    private static void field(JsonBodyWriter writer, String name, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            writer.name(name).value(value);
+        }
+    }
+
+    private static void field(JsonBodyWriter writer, String name, Date value) throws IOException {
+        if (value != null) {
+            writer.name(name).value(value);
+        }
+    }
+
+    private static void field(JsonBodyWriter writer, String name, List<String> values) throws IOException {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        writer.name(name).beginArray();
+        // indexed so a list doesn't cost an iterator
+        for (int i = 0, size = values.size(); i < size; i++) {
+            writer.value(values.get(i));
+        }
+        writer.endArray();
+    }
+
+    private ModelWriters() {
+    }
+}
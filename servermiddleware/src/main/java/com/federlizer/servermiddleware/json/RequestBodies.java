@@ -0,0 +1,149 @@
+package com.federlizer.servermiddleware.json;
+
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.transport.RequestBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Builds the JSON bodies of the requests that send a project or a profile.
+ * The bodies are encoded while they're written into the connection, nothing is built up front.
+ */
+public final class RequestBodies {
+    /**
+     * @param project The new project. Its title and privacy fields are always sent, the rest only if set.
+     * @return The body of a create project request
+     */
+    public static RequestBody newProject(final Project project) {
+        return new JsonBody() {
+            @Override
+            long estimateLength() {
+                return ModelWriters.estimateLength(project);
+            }
+
+            @Override
+            void write(JsonBodyWriter writer) throws IOException {
+                ModelWriters.writeProject(writer, project, true);
+            }
+        };
+    }
+
+    /**
+     * @param project The changes to the project. Only the fields that are set are sent.
+     * @return The body of an update project request
+     */
+    public static RequestBody projectUpdate(final Project project) {
+        return new JsonBody() {
+            @Override
+            long estimateLength() {
+                return ModelWriters.estimateLength(project);
+            }
+
+            @Override
+            void write(JsonBodyWriter writer) throws IOException {
+                ModelWriters.writeProject(writer, project, false);
+            }
+        };
+    }
+
+    /**
+     * @param profile The profile. Only the fields that are set are sent.
+     * @return The body of a create or update profile request
+     */
+    public static RequestBody profile(final Profile profile) {
+        return new JsonBody() {
+            @Override
+            long estimateLength() {
+                return ModelWriters.estimateLength(profile);
+            }
+
+            @Override
+            void write(JsonBodyWriter writer) throws IOException {
+                ModelWriters.writeProfile(writer, profile);
+            }
+        };
+    }
+
+    /**
+     * @param base The last known version of the project
+     * @param updated The project as it should be after the update
+     * @return The body of an update project request with only the changed fields, or null if nothing changed
+     */
+    public static RequestBody projectChanges(final Project base, final Project updated) throws IOException {
+        if (ModelWriters.writeProjectChanges(null, base, updated) == 0) {
+            return null;
+        }
+        return new JsonBody() {
+            @Override
+            long estimateLength() {
+                // at most the whole update is sent
+                return ModelWriters.estimateLength(updated);
+            }
+
+            @Override
+            void write(JsonBodyWriter writer) throws IOException {
+                ModelWriters.writeProjectChanges(writer, base, updated);
+            }
+        };
+    }
+
+    /**
+     * @param base The last known version of the profile
+     * @param updated The profile as it should be after the update
+     * @return The body of an update profile request with only the changed fields, or null if nothing changed
+     */
+    public static RequestBody profileChanges(final Profile base, final Profile updated) throws IOException {
+        if (ModelWriters.writeProfileChanges(null, base, updated) == 0) {
+            return null;
+        }
+        return new JsonBody() {
+            @Override
+            long estimateLength() {
+                // at most the whole update is sent
+                return ModelWriters.estimateLength(updated);
+            }
+
+            @Override
+            void write(JsonBodyWriter writer) throws IOException {
+                ModelWriters.writeProfileChanges(writer, base, updated);
+            }
+        };
+    }
+
+    /**
+     * @return The size of the body if it's known up front, otherwise an estimate of it. -1 if it can't be estimated.
+     */
+    public static long estimateLength(RequestBody body) {
+        long length = body.contentLength();
+        if (length < 0 && body instanceof JsonBody) {
+            length = ((JsonBody) body).estimateLength();
+        }
+        return length;
+    }
+
+    private abstract static class JsonBody implements RequestBody {
+        abstract long estimateLength();
+
+        abstract void write(JsonBodyWriter writer) throws IOException;
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            JsonBodyWriter writer = JsonBodyWriter.open(out);
+            try {
+                write(writer);
+            } finally {
+                writer.close();
+            }
+        }
+    }
+
+    private RequestBodies() {
+    }
+}
@@ -0,0 +1,17 @@
+package com.federlizer.servermiddleware.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Turns a response body into the type a request returns
+ * @param <T> The type of the decoded response
+ */
+public interface ResponseDecoder<T> {
+    /**
+     * @param body The response body, read straight from the connection
+     * @return The decoded response
+     * @throws IOException If the body couldn't be read or doesn't have the expected format
+     */
+    T decode(InputStream body) throws IOException;
+}
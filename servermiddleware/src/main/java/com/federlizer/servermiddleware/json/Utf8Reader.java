@@ -0,0 +1,157 @@
+package com.federlizer.servermiddleware.json;
+
+import com.federlizer.servermiddleware.transport.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Decodes a UTF-8 response body, reading it in bulk into a pooled buffer.
+ * Unlike InputStreamReader it doesn't allocate a decoder and buffer for every response.
+ * close() gives the buffer back but leaves the body open, the transport still has to finish reading it.
+ */
+class Utf8Reader extends Reader {
+    private static final char REPLACEMENT = '\ufffd';
+
+    private final InputStream in;
+    private byte[] buffer = BufferPool.acquireBytes();
+    private int position;
+    private int limit;
+    private boolean endOfStream;
+    // the second half of a surrogate pair that didn't fit into the last read
+    private char pendingLowSurrogate;
+
+    Utf8Reader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read(char[] chars, int offset, int length) throws IOException {
+        if (buffer == null) {
+            throw new IOException("Reader closed");
+        }
+        if (length == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        if (pendingLowSurrogate != 0) {
+            chars[offset + count++] = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+        }
+
+        while (count < length) {
+            if (position == limit) {
+                // only block for more input if nothing has been decoded yet
+                if (count > 0 || !fill(1)) {
+                    break;
+                }
+            }
+
+            int b = buffer[position] & 0xff;
+            if (b < 0x80) {
+                chars[offset + count++] = (char) b;
+                position++;
+                continue;
+            }
+
+            int sequenceLength = b >= 0xf0 ? 4 : b >= 0xe0 ? 3 : b >= 0xc0 ? 2 : 1;
+            if (limit - position < sequenceLength && !fill(sequenceLength)) {
+                // the body ends in the middle of a character
+                position = limit;
+                chars[offset + count++] = REPLACEMENT;
+                continue;
+            }
+
+            int codePoint = decode(b, sequenceLength);
+            if (codePoint < 0) {
+                position++;
+                chars[offset + count++] = REPLACEMENT;
+                continue;
+            }
+            position += sequenceLength;
+
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                chars[offset + count++] = (char) codePoint;
+            } else {
+                chars[offset + count++] = Character.highSurrogate(codePoint);
+                char low = Character.lowSurrogate(codePoint);
+                if (count < length) {
+                    chars[offset + count++] = low;
+                } else {
+                    pendingLowSurrogate = low;
+                }
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    /**
+     * Hands the buffer back to the pool. The body itself stays open.
+     */
+    @Override
+    public void close() {
+        if (buffer != null) {
+            BufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * @return The code point the sequence at the current position encodes, -1 if it's malformed
+     */
+    private int decode(int first, int sequenceLength) {
+        int codePoint;
+        int min;
+        switch (sequenceLength) {
+            case 2:
+                codePoint = first & 0x1f;
+                min = 0x80;
+                break;
+            case 3:
+                codePoint = first & 0x0f;
+                min = 0x800;
+                break;
+            case 4:
+                codePoint = first & 0x07;
+                min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+                break;
+            default:
+                return -1;
+        }
+        for (int i = 1; i < sequenceLength; i++) {
+            int next = buffer[position + i] & 0xff;
+            if ((next & 0xc0) != 0x80) {
+                return -1;
+            }
+            codePoint = (codePoint << 6) | (next & 0x3f);
+        }
+        if (codePoint < min || codePoint > Character.MAX_CODE_POINT
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return -1;
+        }
+        return codePoint;
+    }
+
+    /**
+     * Reads until at least the given number of bytes are buffered
+     * @return false if the body ended first
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < minimum && !endOfStream) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                endOfStream = true;
+            } else {
+                limit += read;
+            }
+        }
+        return limit >= minimum;
+    }
+}
@@ -0,0 +1,86 @@
+package com.federlizer.servermiddleware.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of a single request
+ */
+class EndpointMetrics {
+    // status codes are counted by their value, index 0 counts requests without a response
+    private static final int STATUS_CODE_SLOTS = 600;
+
+    private final String name;
+    private final String method;
+    private final String route;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder uncompressedRequestBytes = new LongAdder();
+    private final LongAdder uncompressedResponseBytes = new LongAdder();
+    private final AtomicLongArray statusCodes = new AtomicLongArray(STATUS_CODE_SLOTS);
+    private final ConcurrentHashMap<Class<?>, LongAdder> exceptions = new ConcurrentHashMap<>();
+
+    EndpointMetrics(String name, String method, String route) {
+        this.name = name;
+        this.method = method;
+        this.route = route;
+    }
+
+    void record(int statusCode, long latencyNanos, long requestBytes, long uncompressedRequestBytes, long responseBytes, long uncompressedResponseBytes, Exception exception) {
+        requests.increment();
+        latencies.record(latencyNanos);
+        this.requestBytes.add(requestBytes);
+        this.responseBytes.add(responseBytes);
+        this.uncompressedRequestBytes.add(uncompressedRequestBytes);
+        this.uncompressedResponseBytes.add(uncompressedResponseBytes);
+        statusCodes.incrementAndGet(statusCode > 0 && statusCode < STATUS_CODE_SLOTS ? statusCode : 0);
+
+        if (exception != null) {
+            // only the first failure of a type allocates
+            LongAdder count = exceptions.get(exception.getClass());
+            if (count == null) {
+                exceptions.putIfAbsent(exception.getClass(), new LongAdder());
+                count = exceptions.get(exception.getClass());
+            }
+            count.increment();
+        }
+    }
+
+    EndpointStats snapshot() {
+        long[] counts = latencies.snapshot();
+
+        Map<Integer, Long> statusCodeCounts = new HashMap<>();
+        for (int i = 0; i < STATUS_CODE_SLOTS; i++) {
+            long count = statusCodes.get(i);
+            if (count > 0) {
+                statusCodeCounts.put(i == 0 ? -1 : i, count);
+            }
+        }
+
+        Map<String, Long> exceptionCounts = new HashMap<>();
+        for (Map.Entry<Class<?>, LongAdder> exception : exceptions.entrySet()) {
+            exceptionCounts.put(exception.getKey().getName(), exception.getValue().sum());
+        }
+
+        return new EndpointStats(
+                name,
+                method,
+                route,
+                requests.sum(),
+                LatencyHistogram.percentileMillis(counts, 0.5),
+                LatencyHistogram.percentileMillis(counts, 0.95),
+                LatencyHistogram.percentileMillis(counts, 0.99),
+                requestBytes.sum(),
+                uncompressedRequestBytes.sum(),
+                responseBytes.sum(),
+                uncompressedResponseBytes.sum(),
+                statusCodeCounts,
+                exceptionCounts
+        );
+    }
+}
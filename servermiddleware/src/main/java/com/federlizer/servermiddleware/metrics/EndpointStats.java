@@ -0,0 +1,86 @@
+package com.federlizer.servermiddleware.metrics;
+
+import java.util.Map;
+
+/**
+ * A point in time snapshot of a single request's counters
+ */
+public class EndpointStats {
+    /**
+     * The request's name, e.g. GET_PROJECT_BY_ID
+     */
+    public final String name;
+    public final String method;
+    public final String route;
+    public final long requests;
+    public final double p50Millis;
+    public final double p95Millis;
+    public final double p99Millis;
+    /**
+     * The request body bytes sent, after compression
+     */
+    public final long requestBytes;
+    public final long uncompressedRequestBytes;
+    /**
+     * The response body bytes received, before decompression
+     */
+    public final long responseBytes;
+    public final long uncompressedResponseBytes;
+    /**
+     * How many responses came back with each status code. -1 counts requests that got no response.
+     */
+    public final Map<Integer, Long> statusCodes;
+    /**
+     * How many requests failed with each exception type, keyed by class name
+     */
+    public final Map<String, Long> exceptions;
+
+    public EndpointStats(String name, String method, String route, long requests, double p50Millis, double p95Millis, double p99Millis, long requestBytes, long uncompressedRequestBytes, long responseBytes, long uncompressedResponseBytes, Map<Integer, Long> statusCodes, Map<String, Long> exceptions) {
+        this.name = name;
+        this.method = method;
+        this.route = route;
+        this.requests = requests;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.requestBytes = requestBytes;
+        this.uncompressedRequestBytes = uncompressedRequestBytes;
+        this.responseBytes = responseBytes;
+        this.uncompressedResponseBytes = uncompressedResponseBytes;
+        this.statusCodes = statusCodes;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * @return The size of the request bodies sent relative to their uncompressed size, 1 if nothing was compressed
+     */
+    public double requestCompressionRatio() {
+        return uncompressedRequestBytes == 0 ? 1 : (double) requestBytes / uncompressedRequestBytes;
+    }
+
+    /**
+     * @return The size of the response bodies received relative to their uncompressed size, 1 if nothing was compressed
+     */
+    public double responseCompressionRatio() {
+        return uncompressedResponseBytes == 0 ? 1 : (double) responseBytes / uncompressedResponseBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointStats{" +
+                "name=" + name +
+                ", method=" + method +
+                ", route=" + route +
+                ", requests=" + requests +
+                ", p50Millis=" + p50Millis +
+                ", p95Millis=" + p95Millis +
+                ", p99Millis=" + p99Millis +
+                ", requestBytes=" + requestBytes +
+                ", uncompressedRequestBytes=" + uncompressedRequestBytes +
+                ", responseBytes=" + responseBytes +
+                ", uncompressedResponseBytes=" + uncompressedResponseBytes +
+                ", statusCodes=" + statusCodes +
+                ", exceptions=" + exceptions +
+                '}';
+    }
+}
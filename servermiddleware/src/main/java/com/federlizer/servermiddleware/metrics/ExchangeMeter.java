@@ -0,0 +1,168 @@
+package com.federlizer.servermiddleware.metrics;
+
+import com.federlizer.servermiddleware.transport.ContentEncoding;
+import com.federlizer.servermiddleware.transport.CountingOutputStream;
+import com.federlizer.servermiddleware.transport.GzipBody;
+import com.federlizer.servermiddleware.transport.RequestBody;
+import com.federlizer.servermiddleware.transport.Transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wraps a response handler to find out the status code and how many bytes of the response were read,
+ * both on the wire and after undoing the Content-Encoding. The handler always receives the decoded body.
+ * The request body can be metered the same way, see meterRequest().
+ * One meter is used for every attempt of a request, reset() starts over.
+ */
+public class ExchangeMeter<T> implements Transport.ResponseHandler<T> {
+    private final Transport.ResponseHandler<T> handler;
+    private int statusCode;
+    private CountingInputStream wire;
+    private CountingInputStream decoded;
+    private long requestBytes;
+    private long uncompressedRequestBytes;
+
+    public ExchangeMeter(Transport.ResponseHandler<T> handler) {
+        this.handler = handler;
+        reset();
+    }
+
+    public void reset() {
+        statusCode = -1;
+        wire = null;
+        decoded = null;
+        requestBytes = 0;
+        uncompressedRequestBytes = 0;
+    }
+
+    /**
+     * @param body The body to send
+     * @param gzip true to compress the body while it's written
+     * @return The body to hand to the transport, counting what it writes in every attempt
+     */
+    public RequestBody meterRequest(final RequestBody body, boolean gzip) {
+        RequestBody uncompressed = new RequestBody() {
+            @Override
+            public long contentLength() {
+                return body.contentLength();
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                CountingOutputStream counting = new CountingOutputStream(out);
+                try {
+                    body.writeTo(counting);
+                } finally {
+                    uncompressedRequestBytes += counting.getCount();
+                }
+            }
+        };
+        final RequestBody encoded = gzip ? new GzipBody(uncompressed) : uncompressed;
+        return new RequestBody() {
+            @Override
+            public long contentLength() {
+                return encoded.contentLength();
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                CountingOutputStream counting = new CountingOutputStream(out);
+                try {
+                    encoded.writeTo(counting);
+                } finally {
+                    requestBytes += counting.getCount();
+                }
+            }
+        };
+    }
+
+    /**
+     * @return The response code of the last attempt, -1 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return The number of request body bytes written to the wire in the last attempt
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return The number of request body bytes written in the last attempt, before compression
+     */
+    public long getUncompressedRequestBytes() {
+        return uncompressedRequestBytes;
+    }
+
+    /**
+     * @return The number of response body bytes read off the wire in the last attempt
+     */
+    public long getResponseBytes() {
+        return wire != null ? wire.count : 0;
+    }
+
+    /**
+     * @return The number of response body bytes the handler read in the last attempt, after decompression
+     */
+    public long getUncompressedResponseBytes() {
+        return decoded != null ? decoded.count : 0;
+    }
+
+    @Override
+    public T handle(int responseCode, Map<String, List<String>> headers, InputStream body) throws IOException {
+        statusCode = responseCode;
+        wire = new CountingInputStream(body);
+        decoded = new CountingInputStream(ContentEncoding.decode(contentEncoding(headers), wire));
+        return handler.handle(responseCode, headers, decoded);
+    }
+
+    private static String contentEncoding(Map<String, List<String>> headers) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (ContentEncoding.CONTENT_ENCODING_HEADER.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
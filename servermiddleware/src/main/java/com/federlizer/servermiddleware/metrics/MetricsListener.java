@@ -0,0 +1,22 @@
+package com.federlizer.servermiddleware.metrics;
+
+/**
+ * Receives every request the middleware sends, e.g. to forward them to an analytics backend.
+ * Called on the request thread right after the request finishes, so implementations should be quick
+ * and shouldn't block.
+ */
+public interface MetricsListener {
+    /**
+     * @param name The request's name, e.g. GET_PROJECT_BY_ID, which tells apart requests with the same method and route
+     * @param method The HTTP method of the request
+     * @param route The route of the request, without IDs or query parameters
+     * @param statusCode The response code, -1 if no response was received
+     * @param latencyNanos How long the request took, from sending it until its response was decoded
+     * @param requestBytes The size of the request body as sent, after compression
+     * @param uncompressedRequestBytes The size of the request body before compression
+     * @param responseBytes The number of response body bytes read off the wire
+     * @param uncompressedResponseBytes The number of response body bytes read after decompression
+     * @param exception Why the request failed, null if it succeeded
+     */
+    void onRequestFinished(String name, String method, String route, int statusCode, long latencyNanos, long requestBytes, long uncompressedRequestBytes, long responseBytes, long uncompressedResponseBytes, Exception exception);
+}
@@ -0,0 +1,74 @@
+package com.federlizer.servermiddleware.metrics;
+
+import com.federlizer.servermiddleware.Request;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the metrics of every route the middleware calls. Recording doesn't lock or allocate, except for the
+ * first request of a route, so it's cheap enough to stay on in production.
+ */
+public class MiddlewareMetrics {
+    // keyed by the request's name, since some requests share their method and route
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    // copied on write, so notifying doesn't need an iterator
+    private volatile MetricsListener[] listeners = new MetricsListener[0];
+
+    /**
+     * Records a finished request
+     * @param request The request, recorded under its name
+     * @param statusCode The response code, -1 if no response was received
+     * @param latencyNanos How long the request took
+     * @param requestBytes The size of the request body as sent, after compression
+     * @param uncompressedRequestBytes The size of the request body before compression
+     * @param responseBytes The number of response body bytes read off the wire
+     * @param uncompressedResponseBytes The number of response body bytes read after decompression
+     * @param exception Why the request failed, null if it succeeded
+     */
+    public void record(Request request, int statusCode, long latencyNanos, long requestBytes, long uncompressedRequestBytes, long responseBytes, long uncompressedResponseBytes, Exception exception) {
+        EndpointMetrics endpoint = endpoints.get(request.Name());
+        if (endpoint == null) {
+            endpoints.putIfAbsent(request.Name(), new EndpointMetrics(request.Name(), request.RequestMethod(), request.Route()));
+            endpoint = endpoints.get(request.Name());
+        }
+        endpoint.record(statusCode, latencyNanos, requestBytes, uncompressedRequestBytes, responseBytes, uncompressedResponseBytes, exception);
+
+        MetricsListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onRequestFinished(request.Name(), request.RequestMethod(), request.Route(), statusCode, latencyNanos, requestBytes, uncompressedRequestBytes, responseBytes, uncompressedResponseBytes, exception);
+        }
+    }
+
+    public synchronized void addListener(MetricsListener listener) {
+        MetricsListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        this.listeners = listeners;
+    }
+
+    public synchronized void removeListener(MetricsListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MetricsListener[] listeners = new MetricsListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, listeners, 0, i);
+                System.arraycopy(this.listeners, i + 1, listeners, i, listeners.length - i);
+                this.listeners = listeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The counters and latency percentiles of every request called so far, keyed by the request's name,
+     * e.g. "GET_PROJECT_BY_ID"
+     */
+    public Map<String, EndpointStats> snapshot() {
+        Map<String, EndpointStats> stats = new HashMap<>();
+        for (Map.Entry<String, EndpointMetrics> endpoint : endpoints.entrySet()) {
+            stats.put(endpoint.getKey(), endpoint.getValue().snapshot());
+        }
+        return stats;
+    }
+}
@@ -1,6 +1,7 @@
 package com.federlizer.servermiddleware.models;
 
 import java.util.Date;
+import java.util.Objects;
 
 public class Education {
     public String instituteName;
@@ -18,4 +19,26 @@ public class Education {
         this.endDate = endDate;
         this.description = description;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Education)) {
+            return false;
+        }
+        Education other = (Education) o;
+        return Objects.equals(instituteName, other.instituteName)
+                && Objects.equals(degree, other.degree)
+                && Objects.equals(fieldOfStudy, other.fieldOfStudy)
+                && Objects.equals(fromDate, other.fromDate)
+                && Objects.equals(endDate, other.endDate)
+                && Objects.equals(description, other.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instituteName, degree, fieldOfStudy, fromDate, endDate, description);
+    }
 }
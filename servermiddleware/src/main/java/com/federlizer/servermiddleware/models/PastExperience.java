@@ -1,6 +1,7 @@
 package com.federlizer.servermiddleware.models;
 
 import java.util.Date;
+import java.util.Objects;
 
 public class PastExperience {
     public String company;
@@ -18,4 +19,26 @@ public class PastExperience {
         this.endDate = endDate;
         this.description = description;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PastExperience)) {
+            return false;
+        }
+        PastExperience other = (PastExperience) o;
+        return Objects.equals(company, other.company)
+                && Objects.equals(jobTitle, other.jobTitle)
+                && Objects.equals(location, other.location)
+                && Objects.equals(fromDate, other.fromDate)
+                && Objects.equals(endDate, other.endDate)
+                && Objects.equals(description, other.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(company, jobTitle, location, fromDate, endDate, description);
+    }
 }
@@ -8,6 +8,14 @@ public class ProjectFilter {
     public Boolean isPrivate;
     public List<String> skills;
     public List<String> interests;
+    /**
+     * The maximum number of projects per response. If null, the server sends all of them.
+     */
+    public Integer pageSize;
+    /**
+     * How many projects to skip from the start of the result set
+     */
+    public Integer offset;
 
     public ProjectFilter(String title, Boolean isPublic, Boolean isPrivate, List<String> skills, List<String> interests) {
         this.title = title;
@@ -16,4 +24,14 @@ public class ProjectFilter {
         this.skills = skills;
         this.interests = interests;
     }
+
+    public ProjectFilter(String title, Boolean isPublic, Boolean isPrivate, List<String> skills, List<String> interests, Integer pageSize, Integer offset) {
+        this.title = title;
+        this.isPublic = isPublic;
+        this.isPrivate = isPrivate;
+        this.skills = skills;
+        this.interests = interests;
+        this.pageSize = pageSize;
+        this.offset = offset;
+    }
 }
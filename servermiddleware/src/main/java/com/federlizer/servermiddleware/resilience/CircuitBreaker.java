@@ -0,0 +1,97 @@
+package com.federlizer.servermiddleware.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending requests to a route that keeps failing, so a struggling server isn't buried
+ * under retries and users get an error right away instead of after a timeout.
+ * <p>
+ * CLOSED: requests go through. After failureThreshold failures in a row the breaker opens.<br>
+ * OPEN: requests fail right away. After openMillis the breaker goes half open.<br>
+ * HALF_OPEN: a single probe request goes through. If it succeeds the breaker closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = 30 * 1000;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    /**
+     * @param failureThreshold How many failures in a row open the breaker
+     * @param openMillis How long the breaker stays open before letting a probe through
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * Has to be followed by onSuccess(), onFailure() or onCancelled() if it returns true
+     * @return true if a request may be sent
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * The request was cancelled before it told anything about the route. Leaves the state as it is,
+     * but lets the next probe through if the cancelled request was one.
+     */
+    public synchronized void onCancelled() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
@@ -0,0 +1,102 @@
+package com.federlizer.servermiddleware.resilience;
+
+import android.util.MalformedJsonException;
+
+import com.federlizer.servermiddleware.exceptions.HttpStatusException;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Decides whether a failed request is tried again, and how long to wait before doing so.
+ * <p>
+ * Only idempotent requests (GET, PUT, DELETE) are retried, and only after failures that say
+ * nothing about the request itself: I/O errors and 5xx responses. The wait grows exponentially
+ * with every attempt, and a random part of it is dropped ("full jitter") so that clients that
+ * failed at the same moment don't all come back at the same moment.
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 250;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5000;
+
+    /**
+     * How many times a request is sent at most, including the first time. 1 disables retries.
+     */
+    public int maxAttempts;
+    /**
+     * The upper bound of the wait before the first retry. Doubles with every further retry.
+     */
+    public long initialBackoffMillis;
+    /**
+     * The upper bound of the wait before any retry
+     */
+    public long maxBackoffMillis;
+
+    private final Random random = new Random();
+
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @return A policy that never retries
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, 0, 0);
+    }
+
+    /**
+     * @param requestMethod The HTTP method of the request
+     * @return true if sending the request twice has the same effect as sending it once
+     */
+    public boolean isIdempotent(String requestMethod) {
+        return "GET".equals(requestMethod) || "PUT".equals(requestMethod) || "DELETE".equals(requestMethod);
+    }
+
+    /**
+     * @param e The exception the request failed with
+     * @return true if the failure is on the server's or the network's side
+     */
+    public static boolean isTransientFailure(Exception e) {
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).getResponseCode() >= 500;
+        }
+        if (e instanceof MalformedJsonException) {
+            // the response arrived fine, sending the request again won't make it any better
+            return false;
+        }
+        return e instanceof IOException;
+    }
+
+    /**
+     * @param requestMethod The HTTP method of the request
+     * @param e The exception the attempt failed with
+     * @param attempt The number of the attempt that failed, starting at 1
+     * @return true if the request should be sent again
+     */
+    public boolean shouldRetry(String requestMethod, Exception e, int attempt) {
+        return attempt < maxAttempts && isIdempotent(requestMethod) && isTransientFailure(e);
+    }
+
+    /**
+     * @param attempt The number of the attempt that failed, starting at 1
+     * @return How long to wait before the next attempt
+     */
+    public long backoffMillis(int attempt) {
+        // cap the shift, the result is capped at maxBackoffMillis anyway
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return 0;
+        }
+        synchronized (random) {
+            return (long) (random.nextDouble() * ceiling);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The byte and char buffers requests are read and written through. Buffers are handed back after every
+ * request, so a steady stream of requests doesn't allocate any. A buffer that's never released is simply
+ * garbage collected, and the pool allocates a new one when it runs out.
+ */
+public final class BufferPool {
+    public static final int BUFFER_SIZE = 8192;
+    // enough for every request the default executors can run at once, with the rest left to the GC
+    private static final int MAX_POOLED = 16;
+
+    private static final BlockingQueue<byte[]> BYTES = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final BlockingQueue<char[]> CHARS = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    /**
+     * @return A byte buffer of BUFFER_SIZE bytes, with whatever the last user left in it
+     */
+    public static byte[] acquireBytes() {
+        byte[] buffer = BYTES.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * @param buffer A buffer from acquireBytes(). It mustn't be used afterwards.
+     */
+    public static void release(byte[] buffer) {
+        if (buffer != null && buffer.length == BUFFER_SIZE) {
+            BYTES.offer(buffer);
+        }
+    }
+
+    /**
+     * @return A char buffer of BUFFER_SIZE chars, with whatever the last user left in it
+     */
+    public static char[] acquireChars() {
+        char[] buffer = CHARS.poll();
+        return buffer != null ? buffer : new char[BUFFER_SIZE];
+    }
+
+    /**
+     * @param buffer A buffer from acquireChars(). It mustn't be used afterwards.
+     */
+    public static void release(char[] buffer) {
+        if (buffer != null && buffer.length == BUFFER_SIZE) {
+            CHARS.offer(buffer);
+        }
+    }
+
+    private BufferPool() {
+    }
+}
@@ -0,0 +1,25 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A body that's already encoded
+ */
+public class ByteArrayBody implements RequestBody {
+    private final byte[] bytes;
+
+    public ByteArrayBody(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public long contentLength() {
+        return bytes.length;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,38 @@
+package com.federlizer.servermiddleware.transport;
+
+/**
+ * A point in time snapshot of a transport's connection pool
+ */
+public class ConnectionPoolStats {
+    public final int idleConnections;
+    public final int activeConnections;
+    public final long totalRequests;
+    public final long reusedConnections;
+
+    public ConnectionPoolStats(int idleConnections, int activeConnections, long totalRequests, long reusedConnections) {
+        this.idleConnections = idleConnections;
+        this.activeConnections = activeConnections;
+        this.totalRequests = totalRequests;
+        this.reusedConnections = reusedConnections;
+    }
+
+    /**
+     * @return The share of requests that went over an already open connection, between 0 and 1
+     */
+    public double reuseRatio() {
+        if (totalRequests == 0) {
+            return 0;
+        }
+        return (double) reusedConnections / totalRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "idle=" + idleConnections +
+                ", active=" + activeConnections +
+                ", requests=" + totalRequests +
+                ", reused=" + reusedConnections +
+                '}';
+    }
+}
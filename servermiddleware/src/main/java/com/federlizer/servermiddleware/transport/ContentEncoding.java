@@ -0,0 +1,62 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses request bodies and undoes the Content-Encoding of responses
+ */
+public final class ContentEncoding {
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String GZIP = "gzip";
+    public static final String IDENTITY = "identity";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Wraps a response body, so it's decompressed while it's read
+     * @param contentEncoding The response's Content-Encoding header, null if there wasn't one
+     * @param body The body as it came over the wire
+     * @return The decoded body
+     * @throws IOException If the encoding isn't supported or the gzip header is broken
+     */
+    public static InputStream decode(String contentEncoding, InputStream body) throws IOException {
+        if (contentEncoding == null || contentEncoding.isEmpty() || IDENTITY.equalsIgnoreCase(contentEncoding.trim())) {
+            return body;
+        }
+        if (GZIP.equalsIgnoreCase(contentEncoding.trim())) {
+            // responses without a body, like a 304, can still carry the header
+            PushbackInputStream in = new PushbackInputStream(body, 1);
+            int first = in.read();
+            if (first == -1) {
+                return in;
+            }
+            in.unread(first);
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+    }
+
+    /**
+     * @param body The body to compress
+     * @return The body, gzip compressed
+     */
+    public static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2 + 32);
+        GZIPOutputStream out = new GZIPOutputStream(compressed, BUFFER_SIZE);
+        try {
+            out.write(body);
+        } finally {
+            out.close();
+        }
+        return compressed.toByteArray();
+    }
+
+    private ContentEncoding() {
+    }
+}
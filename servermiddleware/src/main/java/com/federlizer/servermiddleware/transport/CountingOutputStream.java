@@ -0,0 +1,55 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written through it. Without a target stream the bytes are only counted and then dropped.
+ */
+public class CountingOutputStream extends OutputStream {
+    private final OutputStream out;
+    private long count;
+
+    public CountingOutputStream() {
+        this(null);
+    }
+
+    public CountingOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (out != null) {
+            out.write(b);
+        }
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(b, off, len);
+        }
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Doesn't close the target stream, that's left to whoever opened it
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,45 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses another body while it's written. Has to be sent with a "Content-Encoding: gzip" header.
+ */
+public class GzipBody implements RequestBody {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final RequestBody body;
+
+    public GzipBody(RequestBody body) {
+        this.body = body;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final OutputStream out) throws IOException {
+        // closing the gzip stream writes its trailer and frees the deflater, but must leave the connection's stream open
+        GZIPOutputStream gzip = new GZIPOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        }, BUFFER_SIZE);
+        try {
+            body.writeTo(gzip);
+        } finally {
+            gzip.close();
+        }
+    }
+}
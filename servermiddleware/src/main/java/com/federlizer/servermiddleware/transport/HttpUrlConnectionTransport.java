@@ -0,0 +1,287 @@
+package com.federlizer.servermiddleware.transport;
+
+import android.os.CancellationSignal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport built on HttpURLConnection.
+ * <p>
+ * HttpURLConnection keeps a pool of keep-alive connections under the hood, but only hands a
+ * connection back to it if the response has been read to the end and the stream closed.
+ * Calling disconnect() closes the socket instead, so it's only done when the connection
+ * can't be reused anyway.
+ * <p>
+ * HttpURLConnection doesn't expose its pool, so the idle and reuse counts are estimates based
+ * on which connections were released in a reusable state.
+ */
+public class HttpUrlConnectionTransport implements Transport {
+    // HttpURLConnection's default for the http.maxConnections system property
+    private static final int DEFAULT_MAX_IDLE_PER_HOST = 5;
+    // Bodies bigger than this aren't worth draining, it's cheaper to drop the connection
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final int maxIdlePerHost;
+    private final Map<String, AtomicInteger> idleByHost = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong totalRequests = new AtomicLong();
+    private final AtomicLong reusedConnections = new AtomicLong();
+
+    public HttpUrlConnectionTransport() {
+        this.maxIdlePerHost = Integer.getInteger("http.maxConnections", DEFAULT_MAX_IDLE_PER_HOST);
+    }
+
+    @Override
+    public <T> T execute(TransportRequest request, ResponseHandler<T> handler) throws IOException {
+        URL url = new URL(request.url);
+        String host = url.getAuthority();
+
+        InputStream in = null;
+        HttpURLConnection connection = null;
+        CancellationSignal cancellationSignal = request.cancellationSignal;
+        boolean reusable = false;
+
+        acquire(host);
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+
+            // abort the connection from whichever thread cancels the request
+            if (cancellationSignal != null) {
+                final HttpURLConnection cancellable = connection;
+                cancellationSignal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+                    @Override
+                    public void onCancel() {
+                        cancellable.disconnect();
+                    }
+                });
+            }
+
+            // connection settings
+            connection.setDoInput(true);
+            connection.setDoOutput(request.body != null);
+            connection.setRequestMethod(request.method);
+            connection.setConnectTimeout(request.connectTimeoutMillis);
+            connection.setReadTimeout(request.readTimeoutMillis);
+
+            // set request properties (headers) if there are any
+            if (request.headers != null && !request.headers.isEmpty()) {
+                for (Map.Entry<String, String> prop : request.headers.entrySet()) {
+                    connection.setRequestProperty(prop.getKey(), prop.getValue());
+                }
+            }
+
+            // handle output
+            if (request.body != null) {
+                writeBody(connection, request.body);
+            }
+
+            // make the request itself
+            connection.connect();
+
+            int responseCode = connection.getResponseCode();
+            in = responseCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream()
+                    : connection.getInputStream();
+            if (in == null) {
+                in = new ByteArrayInputStream(new byte[0]);
+            }
+
+            T response = handler.handle(responseCode, connection.getHeaderFields(), in);
+
+            reusable = drain(in) && !"close".equalsIgnoreCase(connection.getHeaderField("Connection"));
+            return response;
+        } finally {
+            if (cancellationSignal != null) {
+                cancellationSignal.setOnCancelListener(null);
+                if (cancellationSignal.isCanceled()) {
+                    reusable = false;
+                }
+            }
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    reusable = false;
+                }
+            }
+            if (connection != null && !reusable) {
+                connection.disconnect();
+            }
+            release(host, reusable);
+        }
+    }
+
+    @Override
+    public ConnectionPoolStats getPoolStats() {
+        int idle = 0;
+        for (AtomicInteger count : idleByHost.values()) {
+            idle += count.get();
+        }
+        return new ConnectionPoolStats(idle, active.get(), totalRequests.get(), reusedConnections.get());
+    }
+
+    private void acquire(String host) {
+        totalRequests.incrementAndGet();
+        active.incrementAndGet();
+
+        AtomicInteger idle = idleByHost.get(host);
+        if (idle == null) {
+            return;
+        }
+        while (true) {
+            int current = idle.get();
+            if (current == 0) {
+                return;
+            }
+            if (idle.compareAndSet(current, current - 1)) {
+                reusedConnections.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void release(String host, boolean reusable) {
+        active.decrementAndGet();
+        if (!reusable) {
+            return;
+        }
+
+        AtomicInteger idle = idleByHost.get(host);
+        if (idle == null) {
+            idleByHost.putIfAbsent(host, new AtomicInteger());
+            idle = idleByHost.get(host);
+        }
+        while (true) {
+            int current = idle.get();
+            // anything above the limit gets closed by HttpURLConnection's pool
+            if (current >= maxIdlePerHost || idle.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads whatever the handler left in the stream, so the connection can go back to the pool
+     * @return true if the stream was read to the end
+     */
+    private boolean drain(InputStream in) {
+        byte[] buffer = BufferPool.acquireBytes();
+        int drained = 0;
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                drained += read;
+                if (drained > MAX_DRAIN_BYTES) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            BufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Sends the body with a Content-Length whenever it's known up front, or fits into a pooled buffer.
+     * Only bodies bigger than that are streamed in chunks.
+     */
+    private static void writeBody(HttpURLConnection connection, RequestBody body) throws IOException {
+        long length = body.contentLength();
+        if (length >= 0) {
+            connection.setFixedLengthStreamingMode(length);
+            OutputStream out = connection.getOutputStream();
+            try {
+                body.writeTo(out);
+                out.flush();
+            } finally {
+                out.close();
+            }
+            return;
+        }
+
+        SpoolingOutputStream spool = new SpoolingOutputStream(connection);
+        try {
+            body.writeTo(spool);
+            spool.finish();
+        } finally {
+            spool.release();
+        }
+    }
+
+    /**
+     * Holds a body of unknown length in a pooled buffer until it's complete, so it can still be sent with
+     * a fixed length. Once the buffer overflows the connection switches to chunked streaming and
+     * everything from then on is written straight through.
+     */
+    private static class SpoolingOutputStream extends OutputStream {
+        private final HttpURLConnection connection;
+        private byte[] buffer = BufferPool.acquireBytes();
+        private int count;
+        private OutputStream out;
+
+        SpoolingOutputStream(HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out == null && count < buffer.length) {
+                buffer[count++] = (byte) b;
+            } else {
+                stream().write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out == null && count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+            } else {
+                stream().write(b, off, len);
+            }
+        }
+
+        /**
+         * Sends what's still buffered, the body is complete
+         */
+        void finish() throws IOException {
+            if (out == null) {
+                connection.setFixedLengthStreamingMode(count);
+                out = connection.getOutputStream();
+                out.write(buffer, 0, count);
+            }
+            out.flush();
+            out.close();
+        }
+
+        /**
+         * Gives the buffer back. A body that failed halfway isn't closed, so it's never sent as if it were complete.
+         */
+        void release() {
+            BufferPool.release(buffer);
+            buffer = null;
+        }
+
+        private OutputStream stream() throws IOException {
+            if (out == null) {
+                connection.setChunkedStreamingMode(0);
+                out = connection.getOutputStream();
+                out.write(buffer, 0, count);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body that's written straight into the connection. It can be written more than once,
+ * since a retried request sends it again.
+ */
+public interface RequestBody {
+    /**
+     * @return The number of bytes writeTo() writes, -1 if it isn't known up front
+     */
+    long contentLength();
+
+    /**
+     * Writes the body. The stream isn't closed.
+     * @param out The connection's output stream
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,42 @@
+package com.federlizer.servermiddleware.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends HTTP requests on behalf of the middleware. Implementations own the connection handling,
+ * the middleware only deals with what to send and how to interpret the response.
+ */
+public interface Transport {
+    /**
+     * Sends a request and hands the response over to the handler.
+     * The body stream is released by the transport once the handler returns, so the handler
+     * doesn't need to read it fully or close it.
+     * If the request's cancellation signal is cancelled while the request runs, the connection
+     * is aborted and an IOException is thrown.
+     * @param request The request to send
+     * @param handler The handler that interprets the response
+     * @param <T> The type the handler turns the response into
+     * @return Whatever the handler returned
+     * @throws IOException If the request couldn't be sent or the response couldn't be read
+     */
+    <T> T execute(TransportRequest request, ResponseHandler<T> handler) throws IOException;
+
+    /**
+     * @return A snapshot of the connection pool's state
+     */
+    ConnectionPoolStats getPoolStats();
+
+    interface ResponseHandler<T> {
+        /**
+         * @param responseCode The HTTP status code of the response
+         * @param headers The response headers
+         * @param body The response body. For error status codes this is the error body, never null.
+         * @return The interpreted response
+         * @throws IOException If the body couldn't be read
+         */
+        T handle(int responseCode, Map<String, List<String>> headers, InputStream body) throws IOException;
+    }
+}
@@ -0,0 +1,46 @@
+package com.federlizer.servermiddleware.transport;
+
+import android.os.CancellationSignal;
+
+import java.util.Map;
+
+/**
+ * Everything a transport needs to know to send a single request
+ */
+public class TransportRequest {
+    /**
+     * The full URL of the request
+     */
+    public String url;
+    /**
+     * The HTTP method (GET, POST, ...)
+     */
+    public String method;
+    /**
+     * The request headers. Can be null.
+     */
+    public Map<String, String> headers;
+    /**
+     * The request body, written straight into the connection. Null if the request has no body.
+     */
+    public RequestBody body;
+    /**
+     * How long to wait for the connection to be established. 0 waits forever.
+     */
+    public int connectTimeoutMillis;
+    /**
+     * How long to wait for data once connected. 0 waits forever.
+     */
+    public int readTimeoutMillis;
+    /**
+     * Aborts the request when cancelled. Can be null.
+     */
+    public CancellationSignal cancellationSignal;
+
+    public TransportRequest(String url, String method, Map<String, String> headers, RequestBody body) {
+        this.url = url;
+        this.method = method;
+        this.headers = headers;
+        this.body = body;
+    }
+}
@@ -0,0 +1,235 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.exceptions.CircuitOpenException;
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.resilience.CircuitBreaker;
+import com.federlizer.servermiddleware.resilience.RetryPolicy;
+import com.federlizer.servermiddleware.transport.TransportRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the middleware through a FakeTransport. Runs with Robolectric for the Android classes requests are built and decoded with.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DevelopoolMiddlewareTest {
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final String TOKEN = "token";
+    private static final String PROJECT = "{\"_id\":\"p1\",\"title\":\"Title\"}";
+
+    private FakeTransport transport;
+    private MiddlewareConfig config;
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport();
+        config = new MiddlewareConfig();
+        config.apiRoute = "http://developool.test/api/";
+        config.transport = transport;
+        config.callbackExecutor = RequestExecutors.directExecutor();
+        // every call goes to the transport
+        config.projectCacheSize = 0;
+    }
+
+    @Test
+    public void notModified_isAnsweredFromTheValidatorCache() throws Exception {
+        transport.respond(200, PROJECT, Collections.singletonMap("ETag", "\"v1\""));
+        transport.respond(304, "");
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        Project first = get(middleware.async().getProjectById(TOKEN, "p1"));
+        Project second = get(middleware.async().getProjectById(TOKEN, "p1"));
+
+        assertEquals("p1", second.id);
+        assertEquals("Title", second.title);
+        // every call gets its own copy of the remembered project
+        assertNotSame(first, second);
+        List<TransportRequest> requests = transport.getRequests();
+        assertEquals(2, requests.size());
+        assertNull(requests.get(0).headers.get("If-None-Match"));
+        assertEquals("\"v1\"", requests.get(1).headers.get("If-None-Match"));
+    }
+
+    @Test
+    public void validators_areKeptPerToken() throws Exception {
+        transport.respond(200, PROJECT, Collections.singletonMap("ETag", "\"v1\""));
+        transport.respond(200, PROJECT);
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        get(middleware.async().getProjectById(TOKEN, "p1"));
+        get(middleware.async().getProjectById("other token", "p1"));
+
+        // another account may not see the same project, so it doesn't get the first one's answer
+        assertNull(transport.getRequests().get(1).headers.get("If-None-Match"));
+    }
+
+    @Test
+    public void identicalCalls_shareOneRequest() throws Exception {
+        transport.respond(200, PROJECT);
+        transport.hold();
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        Future<Project> first = middleware.async().getProjectById(TOKEN, "p1");
+        transport.awaitHeld();
+        Future<Project> second = middleware.async().getProjectById(TOKEN, "p1");
+        transport.release();
+
+        assertEquals("Title", get(first).title);
+        assertEquals("Title", get(second).title);
+        assertEquals(1, transport.getRequests().size());
+        assertEquals(1, middleware.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void joinedCall_getsItsResultOnItsOwnExecutor() throws Exception {
+        final AtomicInteger executed = new AtomicInteger();
+        config.callbackExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executed.incrementAndGet();
+                command.run();
+            }
+        };
+        transport.respond(200, PROJECT);
+        transport.hold();
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        final AtomicReference<Result<Project>> delivered = new AtomicReference<>();
+        final CountDownLatch called = new CountDownLatch(1);
+        middleware.getProjectById(TOKEN, "p1", new Consumer<Result<Project>>() {
+            @Override
+            public void accept(Result<Project> result) {
+                delivered.set(result);
+                called.countDown();
+            }
+        });
+        transport.awaitHeld();
+        // async() delivers on the request thread, not through the configured executor
+        Future<Project> joined = middleware.async().getProjectById(TOKEN, "p1");
+        transport.release();
+
+        assertEquals("Title", get(joined).title);
+        assertTrue(called.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("Title", delivered.get().value.title);
+        assertEquals(1, executed.get());
+        assertEquals(1, transport.getRequests().size());
+    }
+
+    @Test
+    public void callAfterTheFirstFinished_sendsItsOwnRequest() throws Exception {
+        transport.respond(200, PROJECT);
+        transport.respond(200, PROJECT);
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        get(middleware.async().getProjectById(TOKEN, "p1"));
+        get(middleware.async().getProjectById(TOKEN, "p1"));
+
+        assertEquals(2, transport.getRequests().size());
+        assertEquals(0, middleware.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void callsWithDifferentTokens_arentShared() throws Exception {
+        transport.respond(200, PROJECT);
+        transport.respond(200, PROJECT);
+        transport.hold();
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        Future<Project> first = middleware.async().getProjectById(TOKEN, "p1");
+        transport.awaitHeld();
+        Future<Project> second = middleware.async().getProjectById("other token", "p1");
+        transport.release();
+        get(first);
+        get(second);
+
+        assertEquals(2, transport.getRequests().size());
+        assertEquals(0, middleware.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void transientFailures_ofAGet_areRetried() throws Exception {
+        config.retryPolicy = new RetryPolicy(3, 0, 0);
+        transport.fail(new IOException("Connection reset"));
+        transport.respond(503, "");
+        transport.respond(200, PROJECT);
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        Project project = get(middleware.async().getProjectById(TOKEN, "p1"));
+
+        assertEquals("Title", project.title);
+        assertEquals(3, transport.getRequests().size());
+        assertEquals(2, middleware.getRetryCount());
+    }
+
+    @Test
+    public void failures_ofAPost_arentRetried() throws Exception {
+        config.retryPolicy = new RetryPolicy(3, 0, 0);
+        transport.fail(new IOException("Connection reset"));
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        try {
+            get(middleware.async().createNewProject(TOKEN, new Project("New", null, null, null, null, Boolean.FALSE)));
+            fail("the failure should be handed to the caller");
+        } catch (IOException expected) {
+            // the server may have created the project before the connection broke
+        }
+
+        assertEquals(1, transport.getRequests().size());
+        assertEquals(0, middleware.getRetryCount());
+    }
+
+    @Test
+    public void repeatedFailures_openTheCircuitBreaker() throws Exception {
+        config.retryPolicy = null;
+        config.circuitBreakerFailureThreshold = 2;
+        transport.fail(new IOException("Connection refused"));
+        transport.fail(new IOException("Connection refused"));
+        DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                get(middleware.async().getProjectById(TOKEN, "p1"));
+                fail("the failure should be handed to the caller");
+            } catch (IOException expected) {
+                // counted by the circuit breaker
+            }
+        }
+        try {
+            get(middleware.async().getProjectById(TOKEN, "p1"));
+            fail("the route should fail fast");
+        } catch (CircuitOpenException expected) {
+            // nothing was sent
+        }
+
+        assertEquals(2, transport.getRequests().size());
+        assertEquals(CircuitBreaker.State.OPEN, middleware.getCircuitBreakerStates().get("GET http://developool.test/api/project/"));
+    }
+
+    /**
+     * @return The value of the future, or the exception it failed with
+     */
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.transport.ConnectionPoolStats;
+import com.federlizer.servermiddleware.transport.Transport;
+import com.federlizer.servermiddleware.transport.TransportRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers requests with queued responses instead of going to the network, in the order they were queued.
+ * Keeps a copy of every request it was sent, headers included.
+ */
+class FakeTransport implements Transport {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final Queue<Response> responses = new ArrayDeque<>();
+    private final List<TransportRequest> requests = new ArrayList<>();
+    private CountDownLatch sent = new CountDownLatch(0);
+    private CountDownLatch release = new CountDownLatch(0);
+
+    private static class Response {
+        final int code;
+        final Map<String, List<String>> headers;
+        final byte[] body;
+        final IOException failure;
+
+        Response(int code, Map<String, List<String>> headers, byte[] body, IOException failure) {
+            this.code = code;
+            this.headers = headers;
+            this.body = body;
+            this.failure = failure;
+        }
+    }
+
+    synchronized FakeTransport respond(int code, String body) {
+        return respond(code, body, Collections.<String, String>emptyMap());
+    }
+
+    synchronized FakeTransport respond(int code, String body, Map<String, String> headers) {
+        Map<String, List<String>> responseHeaders = new HashMap<>();
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            responseHeaders.put(header.getKey(), Collections.singletonList(header.getValue()));
+        }
+        responses.add(new Response(code, responseHeaders, body.getBytes(StandardCharsets.UTF_8), null));
+        return this;
+    }
+
+    /**
+     * The next request fails with the exception, as if the connection broke
+     */
+    synchronized FakeTransport fail(IOException failure) {
+        responses.add(new Response(0, null, null, failure));
+        return this;
+    }
+
+    /**
+     * Holds the requests sent from now on until release() is called, e.g. so an identical one can join them
+     */
+    synchronized void hold() {
+        sent = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    /**
+     * Waits until the held request has reached the transport
+     */
+    void awaitHeld() throws InterruptedException {
+        CountDownLatch held;
+        synchronized (this) {
+            held = sent;
+        }
+        if (!held.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new AssertionError("No request was sent");
+        }
+    }
+
+    synchronized void release() {
+        release.countDown();
+    }
+
+    synchronized List<TransportRequest> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    @Override
+    public <T> T execute(TransportRequest request, ResponseHandler<T> handler) throws IOException {
+        CountDownLatch held;
+        Response response;
+        synchronized (this) {
+            // the middleware changes the headers between attempts
+            TransportRequest copy = new TransportRequest(request.url, request.method, new HashMap<>(request.headers), request.body);
+            requests.add(copy);
+            response = responses.poll();
+            held = release;
+            sent.countDown();
+        }
+        try {
+            if (!held.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Held request was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted");
+        }
+        if (response == null) {
+            throw new IOException("No response queued for " + request.method + " " + request.url);
+        }
+        if (response.failure != null) {
+            throw response.failure;
+        }
+        return handler.handle(response.code, response.headers, new ByteArrayInputStream(response.body));
+    }
+
+    @Override
+    public ConnectionPoolStats getPoolStats() {
+        return new ConnectionPoolStats(0, 0, 0, 0);
+    }
+}
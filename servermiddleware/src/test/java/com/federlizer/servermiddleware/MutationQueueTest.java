@@ -0,0 +1,218 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * The queues are closed right away, so nothing is sent and the tests only see what's queued
+ */
+public class MutationQueueTest {
+    private static final String TOKEN = "token";
+
+    private File file;
+    private DevelopoolMiddleware middleware;
+    private MutationQueue queue;
+    private List<Result<?>> results;
+    private List<Result<?>> listened;
+    private List<IOException> persistFailures;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("mutations", ".bin");
+        assertTrue(file.delete());
+
+        MiddlewareConfig config = new MiddlewareConfig();
+        config.apiRoute = "http://127.0.0.1:1/api/";
+        config.requestExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                fail("nothing should be sent");
+            }
+        };
+        config.callbackExecutor = RequestExecutors.directExecutor();
+        middleware = new DevelopoolMiddleware(config);
+
+        results = new ArrayList<>();
+        listened = new ArrayList<>();
+        persistFailures = new ArrayList<>();
+        queue = open();
+    }
+
+    @After
+    public void tearDown() {
+        queue.close();
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void updates_ofTheSameProject_areMerged() {
+        QueuedMutation first = queue.updateProject(TOKEN, "p1", new Project(null, "Title", null, null, null, null, null), this.<Project>record());
+        QueuedMutation second = queue.updateProject(TOKEN, "p1", new Project(null, null, "Description", null, null, null, null), this.<Project>record());
+
+        assertSame(first, second);
+        assertEquals(1, queue.getPending().size());
+        assertEquals("Title", first.project.title);
+        assertEquals("Description", first.project.publicDescription);
+        assertEquals(2, first.callbacks.size());
+    }
+
+    @Test
+    public void updates_ofDifferentProjects_arentMerged() {
+        QueuedMutation first = queue.updateProject(TOKEN, "p1", new Project(null, "Title", null, null, null, null, null), this.<Project>record());
+        QueuedMutation second = queue.updateProject(TOKEN, "p2", new Project(null, "Title", null, null, null, null, null), this.<Project>record());
+
+        assertNotSame(first, second);
+        assertEquals(2, queue.getPending().size());
+    }
+
+    @Test
+    public void joinThenLeave_cancelOut() {
+        QueuedMutation join = queue.joinProject(TOKEN, "p1", this.<String>record());
+        QueuedMutation leave = queue.leaveProject(TOKEN, "p1", this.<String>record());
+
+        assertTrue(queue.getPending().isEmpty());
+        assertTrue(join.isDone());
+        assertTrue(leave.isDone());
+        assertFalse(join.isCancelled());
+        assertEquals(2, results.size());
+        for (Result<?> result : results) {
+            assertNull(result.exception);
+            assertEquals(MutationQueue.CANCELLED_OUT, result.value);
+        }
+        assertEquals(2, listened.size());
+    }
+
+    @Test
+    public void sameJoinTwice_isQueuedOnce() {
+        QueuedMutation first = queue.joinProject(TOKEN, "p1", this.<String>record());
+        QueuedMutation second = queue.joinProject(TOKEN, "p1", this.<String>record());
+
+        assertSame(first, second);
+        assertEquals(1, queue.getPending().size());
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void cancellingAMergedMutation_tellsEveryCaller() {
+        QueuedMutation mutation = queue.updateProject(TOKEN, "p1", new Project(null, "Title", null, null, null, null, null), this.<Project>record());
+        queue.updateProject(TOKEN, "p1", new Project(null, "Other", null, null, null, null, null), this.<Project>record());
+
+        assertTrue(mutation.cancel());
+        assertFalse(mutation.cancel());
+
+        assertTrue(mutation.isCancelled());
+        assertTrue(queue.getPending().isEmpty());
+        assertEquals(2, results.size());
+        for (Result<?> result : results) {
+            assertTrue(result.exception instanceof InterruptedException);
+        }
+        assertEquals(1, listened.size());
+    }
+
+    @Test
+    public void pending_isRestoredByTheNextQueue() throws IOException {
+        queue.createNewProject(TOKEN, new Project("New", null, null, null, null, Boolean.FALSE), this.<Project>record());
+        queue.joinProject(TOKEN, "p1", this.<String>record());
+        queue.close();
+
+        queue = open();
+        List<QueuedMutation> pending = queue.getPending();
+
+        assertEquals(2, pending.size());
+        assertEquals(QueuedMutation.Kind.CREATE_PROJECT, pending.get(0).getKind());
+        assertEquals("New", pending.get(0).project.title);
+        assertEquals(QueuedMutation.Kind.JOIN_PROJECT, pending.get(1).getKind());
+        assertEquals("p1", pending.get(1).getProjectID());
+        // restored mutations get new IDs after the old ones
+        QueuedMutation next = queue.leaveProject(TOKEN, "p2", this.<String>record());
+        assertTrue(next.getId() > pending.get(1).getId());
+    }
+
+    @Test
+    public void leave_afterASentJoin_doesntCancelOut() throws IOException {
+        queue.close();
+        QueuedMutation join = new QueuedMutation(null, 1, QueuedMutation.Kind.JOIN_PROJECT, TOKEN, "p1", null, null);
+        // it may have reached the server before the app was killed
+        join.sent = true;
+        MutationStore store = new MutationStore(file);
+        store.write(store.encode(Arrays.asList(join)));
+
+        queue = open();
+        queue.leaveProject(TOKEN, "p1", this.<String>record());
+
+        assertEquals(2, queue.getPending().size());
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void invalidArguments_areRejected() {
+        QueuedMutation mutation = queue.joinProject(null, "p1", this.<String>record());
+
+        assertTrue(mutation.isDone());
+        assertTrue(queue.getPending().isEmpty());
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).exception instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void failedWrite_pausesTheQueueAndTellsTheListener() throws IOException {
+        queue.close();
+        File parent = File.createTempFile("mutations", ".dir");
+        try {
+            // the parent is a file, so the queue can't be written next to it
+            file = new File(parent, "mutations.bin");
+            queue = open();
+            assertFalse(queue.isPaused());
+
+            queue.joinProject(TOKEN, "p1", this.<String>record());
+            queue.close();
+
+            assertTrue(queue.isPaused());
+            assertEquals(1, persistFailures.size());
+            assertEquals(1, queue.getPending().size());
+            assertTrue(results.isEmpty());
+        } finally {
+            parent.delete();
+        }
+    }
+
+    private MutationQueue open() throws IOException {
+        MutationQueue opened = new MutationQueue(middleware, file);
+        opened.close();
+        opened.addListener(new MutationQueue.Listener() {
+            @Override
+            public void onMutationDone(QueuedMutation mutation, Result<?> result) {
+                listened.add(result);
+            }
+
+            @Override
+            public void onPersistFailed(IOException e) {
+                persistFailures.add(e);
+            }
+        });
+        return opened;
+    }
+
+    private <T> Consumer<Result<T>> record() {
+        return new Consumer<Result<T>>() {
+            @Override
+            public void accept(Result<T> result) {
+                results.add(result);
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Education;
+import com.federlizer.servermiddleware.models.PastExperience;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.models.Project;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MutationStoreTest {
+    private File file;
+    private MutationStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("mutations", ".bin");
+        assertTrue(file.delete());
+        store = new MutationStore(file);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void missingFile_isAnEmptyQueue() throws IOException {
+        assertTrue(store.load(null).isEmpty());
+    }
+
+    @Test
+    public void mutations_roundTrip() throws IOException {
+        Project project = new Project("p1", "Title", "public", null, Arrays.asList("music"), Arrays.asList("java", "sql"), Boolean.TRUE);
+        Profile profile = new Profile("First", "Last", Arrays.asList("music"), new ArrayList<String>(),
+                Arrays.asList(new Education("Institute", "BSc", "CS", new Date(1000), null, "description")),
+                Arrays.asList(new PastExperience("Company", "Developer", "Sofia", new Date(2000), new Date(3000), null)),
+                "github", null, null, null, null, "account");
+        QueuedMutation update = new QueuedMutation(null, 3, QueuedMutation.Kind.UPDATE_PROJECT, "token", "p1", project, null);
+        update.sent = true;
+        QueuedMutation profileUpdate = new QueuedMutation(null, 7, QueuedMutation.Kind.UPDATE_OWN_PROFILE, "token", null, null, profile);
+
+        store.write(store.encode(Arrays.asList(update, profileUpdate)));
+        List<QueuedMutation> loaded = store.load(null);
+
+        assertEquals(2, loaded.size());
+        QueuedMutation first = loaded.get(0);
+        assertEquals(3, first.id);
+        assertEquals(QueuedMutation.Kind.UPDATE_PROJECT, first.kind);
+        assertTrue(first.sent);
+        assertEquals("token", first.token);
+        assertEquals("p1", first.projectID);
+        assertEquals("Title", first.project.title);
+        assertNull(first.project.privateDescription);
+        assertEquals(Arrays.asList("java", "sql"), first.project.skills);
+        assertEquals(Boolean.TRUE, first.project.isPrivate);
+        assertNull(first.profile);
+
+        QueuedMutation second = loaded.get(1);
+        assertEquals(7, second.id);
+        assertFalse(second.sent);
+        assertNull(second.projectID);
+        assertEquals("First", second.profile.firstName);
+        assertEquals("account", second.profile.accountID);
+        assertEquals(new Date(1000), second.profile.educations.get(0).fromDate);
+        assertNull(second.profile.educations.get(0).endDate);
+        assertEquals(new Date(3000), second.profile.pastExperiences.get(0).endDate);
+        assertNull(second.profile.pastExperiences.get(0).description);
+    }
+
+    @Test
+    public void write_replacesTheWholeQueue() throws IOException {
+        QueuedMutation join = new QueuedMutation(null, 1, QueuedMutation.Kind.JOIN_PROJECT, "token", "p1", null, null);
+        store.write(store.encode(Arrays.asList(join)));
+        store.write(store.encode(new ArrayList<QueuedMutation>()));
+
+        assertTrue(store.load(null).isEmpty());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void corruptedFile_isAnEmptyQueue() throws IOException {
+        QueuedMutation join = new QueuedMutation(null, 1, QueuedMutation.Kind.JOIN_PROJECT, "token", "p1", null, null);
+        store.write(store.encode(Arrays.asList(join)));
+
+        RandomAccessFile corrupted = new RandomAccessFile(file, "rw");
+        try {
+            corrupted.seek(20);
+            corrupted.write(corrupted.read() ^ 0xff);
+        } finally {
+            corrupted.close();
+        }
+
+        assertTrue(store.load(null).isEmpty());
+    }
+
+    @Test
+    public void truncatedFile_isAnEmptyQueue() throws IOException {
+        QueuedMutation join = new QueuedMutation(null, 1, QueuedMutation.Kind.JOIN_PROJECT, "token", "p1", null, null);
+        store.write(store.encode(Arrays.asList(join)));
+
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        try {
+            truncated.setLength(truncated.length() - 6);
+        } finally {
+            truncated.close();
+        }
+        assertTrue(store.load(null).isEmpty());
+
+        FileOutputStream tiny = new FileOutputStream(file);
+        try {
+            tiny.write(new byte[]{1, 2, 3});
+        } finally {
+            tiny.close();
+        }
+        assertTrue(store.load(null).isEmpty());
+    }
+}
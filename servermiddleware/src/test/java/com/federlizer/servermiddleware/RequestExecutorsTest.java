@@ -0,0 +1,110 @@
+package com.federlizer.servermiddleware;
+
+import com.federlizer.servermiddleware.models.Project;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs with Robolectric, the request threads set their priority through android.os.Process
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RequestExecutorsTest {
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    public void boundedExecutor_runsAtMostMaxInFlightAtOnce() throws InterruptedException {
+        ThreadPoolExecutor executor = RequestExecutors.newBoundedExecutor(2);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(5);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            for (int i = 0; i < 5; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        int now = running.incrementAndGet();
+                        int max;
+                        do {
+                            max = maxRunning.get();
+                        } while (now > max && !maxRunning.compareAndSet(max, now));
+                        started.countDown();
+                        try {
+                            release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                        finished.countDown();
+                    }
+                });
+            }
+
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(2, executor.getActiveCount());
+            assertEquals(3, executor.getQueue().size());
+
+            release.countDown();
+            assertTrue(finished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(2, maxRunning.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedExecutor_needsAtLeastOneThread() {
+        RequestExecutors.newBoundedExecutor(0);
+    }
+
+    @Test
+    public void callbacks_runOnTheConfiguredCallbackExecutor() throws InterruptedException {
+        final AtomicInteger executed = new AtomicInteger();
+        final AtomicReference<Result<Project>> delivered = new AtomicReference<>();
+        final AtomicReference<String> callbackThread = new AtomicReference<>();
+        final CountDownLatch called = new CountDownLatch(1);
+        ThreadPoolExecutor requestExecutor = RequestExecutors.newBoundedExecutor(1);
+        try {
+            MiddlewareConfig config = new MiddlewareConfig();
+            config.requestExecutor = requestExecutor;
+            config.callbackExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    executed.incrementAndGet();
+                    command.run();
+                }
+            };
+            DevelopoolMiddleware middleware = new DevelopoolMiddleware(config);
+
+            // fails its validation, so nothing is sent
+            middleware.getProjectById(null, "p1", new Consumer<Result<Project>>() {
+                @Override
+                public void accept(Result<Project> result) {
+                    delivered.set(result);
+                    callbackThread.set(Thread.currentThread().getName());
+                    called.countDown();
+                }
+            });
+
+            assertTrue(called.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(1, executed.get());
+            assertTrue(delivered.get().exception instanceof IllegalArgumentException);
+            assertTrue(callbackThread.get().startsWith("DevelopoolRequest"));
+        } finally {
+            requestExecutor.shutdownNow();
+        }
+    }
+}
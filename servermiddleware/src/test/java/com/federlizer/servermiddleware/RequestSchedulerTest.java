@@ -0,0 +1,155 @@
+package com.federlizer.servermiddleware;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class RequestSchedulerTest {
+    private ManualExecutor executor;
+    private List<String> ran;
+
+    @Before
+    public void setUp() {
+        executor = new ManualExecutor();
+        ran = new ArrayList<>();
+    }
+
+    @Test
+    public void lanes_runInPriorityOrder() {
+        RequestScheduler scheduler = new RequestScheduler(executor, 1, 1, Long.MAX_VALUE / 1000000);
+        scheduler.execute(task("blocker"), Priority.NORMAL, "host");
+        scheduler.execute(task("background"), Priority.BACKGROUND, "host");
+        scheduler.execute(task("normal"), Priority.NORMAL, "host");
+        scheduler.execute(task("interactive"), Priority.INTERACTIVE, "host");
+
+        executor.runAll();
+
+        assertEquals(list("blocker", "interactive", "normal", "background"), ran);
+    }
+
+    @Test
+    public void background_neverTakesTheLastSlot() {
+        RequestScheduler scheduler = new RequestScheduler(executor, 2, 2);
+        scheduler.execute(task("background 1"), Priority.BACKGROUND, "host");
+        scheduler.execute(task("background 2"), Priority.BACKGROUND, "host");
+
+        assertEquals(1, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueueLength(Priority.BACKGROUND));
+
+        scheduler.execute(task("interactive"), Priority.INTERACTIVE, "host");
+        assertEquals(2, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void background_mayUseTheOnlySlot() {
+        RequestScheduler scheduler = new RequestScheduler(executor, 1, 1);
+        scheduler.execute(task("background"), Priority.BACKGROUND, "host");
+
+        assertEquals(1, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void hostCap_onlyHoldsBackThatHost() {
+        RequestScheduler scheduler = new RequestScheduler(executor, 4, 1);
+        scheduler.execute(task("a 1"), Priority.NORMAL, "a");
+        scheduler.execute(task("a 2"), Priority.NORMAL, "a");
+        scheduler.execute(task("b"), Priority.NORMAL, "b");
+
+        assertEquals(2, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueueLength(Priority.NORMAL));
+
+        executor.runAll();
+        assertEquals(list("a 1", "b", "a 2"), ran);
+        assertEquals(0, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void starvedRequest_goesAheadOfHigherLanes() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(executor, 1, 1, 0);
+        scheduler.execute(task("blocker"), Priority.NORMAL, "host");
+        scheduler.execute(task("background"), Priority.BACKGROUND, "host");
+        Thread.sleep(2);
+        scheduler.execute(task("interactive"), Priority.INTERACTIVE, "host");
+        Thread.sleep(2);
+
+        executor.runAll();
+
+        assertEquals(list("blocker", "background", "interactive"), ran);
+    }
+
+    @Test
+    public void promote_movesAWaitingRequestUp() {
+        RequestScheduler scheduler = new RequestScheduler(executor, 1, 1, Long.MAX_VALUE / 1000000);
+        Runnable prefetch = task("prefetch");
+        scheduler.execute(task("blocker"), Priority.NORMAL, "host");
+        scheduler.execute(prefetch, Priority.BACKGROUND, "host");
+        scheduler.execute(task("normal"), Priority.NORMAL, "host");
+
+        assertTrue(scheduler.promote(prefetch, Priority.INTERACTIVE));
+        assertFalse(scheduler.promote(prefetch, Priority.INTERACTIVE));
+        assertEquals(0, scheduler.getQueueLength(Priority.BACKGROUND));
+
+        executor.runAll();
+        assertEquals(list("blocker", "prefetch", "normal"), ran);
+    }
+
+    @Test
+    public void rejectedTask_freesItsSlot() {
+        RequestScheduler scheduler = new RequestScheduler(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        }, 1, 1);
+
+        try {
+            scheduler.execute(task("rejected"), Priority.NORMAL, "host");
+            fail("the executor's exception should be rethrown");
+        } catch (RejectedExecutionException expected) {
+            // expected
+        }
+        assertEquals(0, scheduler.getRunningCount());
+    }
+
+    private Runnable task(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ran.add(name);
+            }
+        };
+    }
+
+    private static List<String> list(String... names) {
+        List<String> list = new ArrayList<>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+    /**
+     * Holds the tasks until the test runs them, one after the other
+     */
+    private static class ManualExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.federlizer.servermiddleware;
+
+import android.security.keystore.UserNotAuthenticatedException;
+import android.util.Base64;
+
+import com.federlizer.servermiddleware.models.Account;
+import com.federlizer.servermiddleware.models.Profile;
+import com.federlizer.servermiddleware.transport.TransportRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives a session's middleware through a FakeTransport. Runs with Robolectric for the Android classes requests are built and decoded with.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SessionTest {
+    private static final long TIMEOUT_SECONDS = 5;
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+    private static final String PROFILE = "{\"firstName\":\"Ada\",\"account\":\"a1\"}";
+
+    private FakeTransport transport;
+    private Session session;
+
+    @Before
+    public void setUp() {
+        transport = new FakeTransport();
+        MiddlewareConfig config = new MiddlewareConfig();
+        config.apiRoute = "http://developool.test/api/";
+        config.transport = transport;
+        config.callbackExecutor = RequestExecutors.directExecutor();
+        config.retryPolicy = null;
+        // every call goes to the transport
+        config.profileCacheSize = 0;
+        session = new Session(new DevelopoolMiddleware(config), new Session.Credentials() {
+            @Override
+            public String email() {
+                return "ada@example.com";
+            }
+
+            @Override
+            public String password() {
+                return "password";
+            }
+        });
+    }
+
+    @Test
+    public void rejectedToken_isReplacedAndTheRequestSentOnceMore() throws Exception {
+        String rejected = token("a1", System.currentTimeMillis() + HOUR_MILLIS);
+        String fresh = token("a1", System.currentTimeMillis() + 2 * HOUR_MILLIS);
+        session.setAccount(new Account(rejected, "ada", "ada@example.com"));
+        transport.respond(401, "");
+        transport.respond(200, "{\"token\":\"" + fresh + "\"}");
+        transport.respond(200, PROFILE);
+
+        Profile profile = get(session.middleware().async().getOwnProfile(rejected));
+
+        assertEquals("Ada", profile.firstName);
+        assertEquals(fresh, session.getToken());
+        List<TransportRequest> requests = transport.getRequests();
+        assertEquals(3, requests.size());
+        assertEquals(rejected, requests.get(0).headers.get("Authorization"));
+        assertEquals("POST", requests.get(1).method);
+        assertEquals(fresh, requests.get(2).headers.get("Authorization"));
+    }
+
+    @Test
+    public void secondRejection_isHandedToTheCaller() throws Exception {
+        String rejected = token("a1", System.currentTimeMillis() + HOUR_MILLIS);
+        String fresh = token("a1", System.currentTimeMillis() + 2 * HOUR_MILLIS);
+        session.setAccount(new Account(rejected, "ada", "ada@example.com"));
+        transport.respond(401, "");
+        transport.respond(200, "{\"token\":\"" + fresh + "\"}");
+        transport.respond(401, "");
+
+        try {
+            get(session.middleware().async().getOwnProfile(rejected));
+            fail("the second 401 should be handed to the caller");
+        } catch (UserNotAuthenticatedException expected) {
+            // the session only authenticates once per request
+        }
+
+        assertEquals(3, transport.getRequests().size());
+    }
+
+    @Test
+    public void expiringToken_isReplacedBeforeTheRequestIsSent() throws Exception {
+        // within the refresh margin
+        String expiring = token("a1", System.currentTimeMillis() + 1000);
+        String fresh = token("a1", System.currentTimeMillis() + HOUR_MILLIS);
+        session.setAccount(new Account(expiring, "ada", "ada@example.com"));
+        transport.respond(200, "{\"token\":\"" + fresh + "\"}");
+        transport.respond(200, PROFILE);
+
+        get(session.middleware().async().getOwnProfile(expiring));
+
+        List<TransportRequest> requests = transport.getRequests();
+        assertEquals(2, requests.size());
+        assertEquals("POST", requests.get(0).method);
+        assertEquals(fresh, requests.get(1).headers.get("Authorization"));
+    }
+
+    @Test
+    public void tokensOfOtherAccounts_arentReplaced() throws Exception {
+        String own = token("a1", System.currentTimeMillis() + HOUR_MILLIS);
+        String other = token("a2", System.currentTimeMillis() + HOUR_MILLIS);
+        session.setAccount(new Account(own, "ada", "ada@example.com"));
+        transport.respond(401, "");
+
+        try {
+            get(session.middleware().async().getOwnProfile(other));
+            fail("the 401 should be handed to the caller");
+        } catch (UserNotAuthenticatedException expected) {
+            // the session can't authenticate as another account
+        }
+
+        assertEquals(1, transport.getRequests().size());
+        assertEquals(own, session.getToken());
+    }
+
+    /**
+     * @return An unsigned JWT, the middleware only reads its claims
+     */
+    private static String token(String subject, long expiresAtMillis) {
+        String payload = "{\"sub\":\"" + subject + "\",\"exp\":" + expiresAtMillis / 1000 + "}";
+        int flags = Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP;
+        return Base64.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8), flags)
+                + '.' + Base64.encodeToString(payload.getBytes(StandardCharsets.UTF_8), flags)
+                + ".signature";
+    }
+
+    /**
+     * @return The value of the future, or the exception it failed with
+     */
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
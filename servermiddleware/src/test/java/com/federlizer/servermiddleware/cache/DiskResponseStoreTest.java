@@ -0,0 +1,168 @@
+package com.federlizer.servermiddleware.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class DiskResponseStoreTest {
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    private File directory;
+    private DiskResponseStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("responses", "");
+        assertTrue(directory.delete());
+        store = new DiskResponseStore(directory, MAX_BYTES);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void values_surviveReopening() throws IOException {
+        store.put("account", "projects", bytes("[1,2,3]"));
+        store.put("account", "profile", bytes("{\"name\":\"\u00e9\"}"));
+        store.put("account", "projects", bytes("[4]"));
+
+        reopen();
+
+        assertEquals("[4]", string(store.get("account", "projects")));
+        assertEquals("{\"name\":\"\u00e9\"}", string(store.get("account", "profile")));
+        assertNull(store.get("account", "missing"));
+    }
+
+    @Test
+    public void accounts_areKeptApart() throws IOException {
+        store.put("first", "profile", bytes("1"));
+        store.put("second", "profile", bytes("2"));
+        store.clear("first");
+
+        assertNull(store.get("first", "profile"));
+        assertEquals("2", string(store.get("second", "profile")));
+    }
+
+    @Test
+    public void removed_staysRemovedAfterReopening() throws IOException {
+        store.put("account", "projects", bytes("[1]"));
+        store.remove("account", "projects");
+
+        reopen();
+
+        assertNull(store.get("account", "projects"));
+    }
+
+    @Test
+    public void sameValue_doesntGrowTheLog() throws IOException {
+        store.put("account", "projects", bytes("[1,2,3]"));
+        long length = log().length();
+
+        store.put("account", "projects", bytes("[1,2,3]"));
+        assertEquals(length, log().length());
+
+        reopen();
+        store.put("account", "projects", bytes("[1,2,3]"));
+        assertEquals(length, log().length());
+    }
+
+    @Test
+    public void collidingHashCodes_areStillWritten() throws IOException {
+        // "Aa" and "BB" have the same length and String.hashCode()
+        store.put("account", "key", bytes("Aa"));
+        store.put("account", "key", bytes("BB"));
+
+        reopen();
+
+        assertEquals("BB", string(store.get("account", "key")));
+    }
+
+    @Test
+    public void corruptedValue_isDropped() throws IOException {
+        store.put("account", "key", bytes("value"));
+        store.close();
+
+        RandomAccessFile file = new RandomAccessFile(log(), "rw");
+        try {
+            // the last byte of the value, right before the crc
+            file.seek(file.length() - 5);
+            file.write('X');
+        } finally {
+            file.close();
+        }
+        store = new DiskResponseStore(directory, MAX_BYTES);
+
+        assertNull(store.get("account", "key"));
+    }
+
+    @Test
+    public void truncatedRecord_isCutOff() throws IOException {
+        store.put("account", "first", bytes("complete"));
+        long complete = log().length();
+        store.put("account", "second", bytes("cut off"));
+        store.close();
+
+        RandomAccessFile file = new RandomAccessFile(log(), "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+        store = new DiskResponseStore(directory, MAX_BYTES);
+
+        assertEquals("complete", string(store.get("account", "first")));
+        assertNull(store.get("account", "second"));
+        assertEquals(complete, log().length());
+
+        store.put("account", "third", bytes("after the cut"));
+        reopen();
+        assertEquals("after the cut", string(store.get("account", "third")));
+    }
+
+    @Test
+    public void cap_dropsTheOldestEntries() throws IOException {
+        store = new DiskResponseStore(directory, 100);
+        store.put("account", "old", bytes("0123456789012345678901234567890123456789"));
+        store.put("account", "new", bytes("0123456789012345678901234567890123456789"));
+        store.put("account", "newest", bytes("0123456789012345678901234567890123456789"));
+
+        assertNull(store.get("account", "old"));
+        assertNotNull(store.get("account", "newest"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+
+    private void reopen() {
+        store.close();
+        store = new DiskResponseStore(directory, MAX_BYTES);
+    }
+
+    private File log() {
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+        return files[0];
+    }
+}
@@ -0,0 +1,113 @@
+package com.federlizer.servermiddleware.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EntityCacheTest {
+    private static final long LONG_TTL_MILLIS = 60 * 60 * 1000;
+
+    @Test
+    public void get_returnsWhatWasPut() {
+        EntityCache<String> cache = new EntityCache<>(10, LONG_TTL_MILLIS);
+        cache.put("a", "A");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(1, stats.size);
+    }
+
+    @Test
+    public void full_evictsTheLeastRecentlyUsed() {
+        EntityCache<String> cache = new EntityCache<>(2, LONG_TTL_MILLIS);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(1, cache.stats().evictions);
+    }
+
+    @Test
+    public void expired_isntReturned() throws InterruptedException {
+        EntityCache<String> cache = new EntityCache<>(10, 1);
+        cache.put("a", "A");
+        Thread.sleep(5);
+
+        assertNull(cache.peek("a"));
+        assertFalse(cache.contains("a"));
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.stats().expirations);
+        assertEquals(0, cache.stats().size);
+    }
+
+    @Test
+    public void peekAndContains_dontCountAsLookups() {
+        EntityCache<String> cache = new EntityCache<>(10, LONG_TTL_MILLIS);
+        cache.put("a", "A");
+
+        assertEquals("A", cache.peek("a"));
+        assertTrue(cache.contains("a"));
+        assertNull(cache.peek("b"));
+        assertEquals(0, cache.stats().hits);
+        assertEquals(0, cache.stats().misses);
+    }
+
+    @Test
+    public void zeroEntries_disablesTheCache() {
+        EntityCache<String> cache = new EntityCache<>(0, LONG_TTL_MILLIS);
+        cache.put("a", "A");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.stats().size);
+    }
+
+    @Test
+    public void removeAndClear_dropEntries() {
+        EntityCache<String> cache = new EntityCache<>(10, LONG_TTL_MILLIS);
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        cache.remove("a");
+        assertNull(cache.peek("a"));
+        assertEquals("B", cache.peek("b"));
+
+        cache.clear();
+        assertEquals(0, cache.stats().size);
+    }
+
+    @Test
+    public void copier_keepsCallersFromChangingCachedEntities() {
+        EntityCache<List<String>> cache = new EntityCache<>(10, LONG_TTL_MILLIS, new Copier<List<String>>() {
+            @Override
+            public List<String> copy(List<String> value) {
+                return new ArrayList<>(value);
+            }
+        });
+        List<String> put = new ArrayList<>();
+        put.add("a");
+        cache.put("key", put);
+        put.add("changed after put");
+
+        List<String> got = cache.get("key");
+        got.add("changed after get");
+
+        assertEquals(1, cache.get("key").size());
+        assertNotSame(cache.get("key"), cache.get("key"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeTtl_isRejected() {
+        new EntityCache<String>(10, -1);
+    }
+}
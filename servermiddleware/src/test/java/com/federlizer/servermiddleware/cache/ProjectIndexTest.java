@@ -0,0 +1,171 @@
+package com.federlizer.servermiddleware.cache;
+
+import com.federlizer.servermiddleware.models.Project;
+import com.federlizer.servermiddleware.models.ProjectFilter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The index has to answer a ProjectFilter the way the server does
+ */
+public class ProjectIndexTest {
+    private static final long LONG_TTL_MILLIS = 60 * 60 * 1000;
+
+    private ProjectIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ProjectIndex(LONG_TTL_MILLIS);
+        index.replaceAll(Arrays.asList(
+                project("1", "Android App", false, list("java", "kotlin"), list("mobile")),
+                project("2", "Web Shop", true, list("java", "sql"), list("web", "commerce")),
+                project("3", "Game", false, list("c++"), list("games", "mobile")),
+                project("4", "AI", true, list("python"), list("research"))));
+    }
+
+    @Test
+    public void incompleteIndex_doesntAnswer() {
+        ProjectIndex empty = new ProjectIndex(LONG_TTL_MILLIS);
+        empty.put(project("1", "Android App", false, null, null));
+
+        assertFalse(empty.isComplete());
+        assertNull(empty.query(filter(null, null, null, null, null)));
+    }
+
+    @Test
+    public void zeroTtl_disablesTheIndex() {
+        ProjectIndex disabled = new ProjectIndex(0);
+        disabled.replaceAll(Arrays.asList(project("1", "Android App", false, null, null)));
+
+        assertFalse(disabled.isComplete());
+        assertNull(disabled.get("1"));
+        assertNull(disabled.query(null));
+    }
+
+    @Test
+    public void emptyFilter_returnsTheWholeCatalogueInOrder() {
+        assertEquals(list("1", "2", "3", "4"), ids(index.query(filter(null, null, null, null, null))));
+        assertEquals(list("1", "2", "3", "4"), ids(index.query(null)));
+    }
+
+    @Test
+    public void title_matchesCaseInsensitivelyAnywhere() {
+        assertEquals(list("1"), ids(index.query(filter("DROID", null, null, null, null))));
+        assertEquals(list("2"), ids(index.query(filter("shop", null, null, null, null))));
+        assertEquals(list(), ids(index.query(filter("shopping", null, null, null, null))));
+    }
+
+    @Test
+    public void shortTitles_stillMatch() {
+        assertEquals(list("4"), ids(index.query(filter("ai", null, null, null, null))));
+        assertEquals(list("1", "3"), ids(index.query(filter("a", null, null, null, list("mobile")))));
+    }
+
+    @Test
+    public void skillsAndInterests_mustAllMatch() {
+        assertEquals(list("1", "2"), ids(index.query(filter(null, null, null, list("java"), null))));
+        assertEquals(list("2"), ids(index.query(filter(null, null, null, list("java", "sql"), null))));
+        assertEquals(list(), ids(index.query(filter(null, null, null, list("java", "python"), null))));
+        assertEquals(list("1"), ids(index.query(filter(null, null, null, list("Java"), list("mobile")))));
+    }
+
+    @Test
+    public void privacyFlags_selectPublicOrPrivateProjects() {
+        assertEquals(list("2", "4"), ids(index.query(filter(null, null, true, null, null))));
+        assertEquals(list("2", "4"), ids(index.query(filter(null, false, null, null, null))));
+        assertEquals(list("1", "3"), ids(index.query(filter(null, true, null, null, null))));
+        assertEquals(list("1", "3"), ids(index.query(filter(null, null, false, null, null))));
+    }
+
+    @Test
+    public void pageSizeAndOffset_areApplied() {
+        ProjectFilter filter = filter(null, null, null, null, null);
+        filter.pageSize = 2;
+        filter.offset = 1;
+        assertEquals(list("2", "3"), ids(index.query(filter)));
+
+        filter.offset = 3;
+        assertEquals(list("4"), ids(index.query(filter)));
+    }
+
+    @Test
+    public void replacedProject_keepsItsPlaceAndIsReindexed() {
+        index.put(project("2", "Web Store", true, list("go"), null));
+
+        assertEquals(list("1", "2", "3", "4"), ids(index.query(null)));
+        assertEquals(list(), ids(index.query(filter("shop", null, null, null, null))));
+        assertEquals(list("2"), ids(index.query(filter(null, null, null, list("go"), null))));
+        assertEquals(list("1"), ids(index.query(filter(null, null, null, list("java"), null))));
+    }
+
+    @Test
+    public void removedProject_isntReturned() {
+        index.remove("1");
+
+        assertNull(index.get("1"));
+        assertEquals(list("3"), ids(index.query(filter(null, null, null, null, list("mobile")))));
+    }
+
+    @Test
+    public void compaction_keepsTheIndexConsistent() {
+        List<Project> catalogue = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            catalogue.add(project(String.valueOf(i), "Project " + i, i % 2 == 0, list(i % 3 == 0 ? "java" : "go"), null));
+        }
+        index.replaceAll(catalogue);
+        for (int i = 0; i < 80; i++) {
+            index.remove(String.valueOf(i));
+        }
+
+        assertTrue(index.isComplete());
+        assertEquals(20, index.query(null).size());
+        assertEquals(list("81", "84", "87", "90", "93", "96", "99"), ids(index.query(filter(null, null, null, list("java"), null))));
+        assertEquals(list("90", "92", "94", "96", "98"), ids(index.query(filter("project 9", null, true, null, null))));
+    }
+
+    @Test
+    public void copier_keepsCallersFromChangingIndexedProjects() {
+        ProjectIndex copying = new ProjectIndex(LONG_TTL_MILLIS, new Copier<Project>() {
+            @Override
+            public Project copy(Project project) {
+                return project(project.id, project.title, project.isPrivate, new ArrayList<>(project.skills), null);
+            }
+        });
+        Project put = project("1", "Android App", false, list("java"), null);
+        copying.replaceAll(Arrays.asList(put));
+        put.skills.add("changed after put");
+
+        copying.get("1").skills.add("changed after get");
+        copying.query(null).get(0).skills.add("changed after query");
+
+        assertEquals(list("java"), copying.get("1").skills);
+        assertEquals(list(), ids(copying.query(filter(null, null, null, list("changed after put"), null))));
+    }
+
+    private static Project project(String id, String title, boolean isPrivate, List<String> skills, List<String> interests) {
+        return new Project(id, title, null, null, interests, skills, isPrivate);
+    }
+
+    private static ProjectFilter filter(String title, Boolean isPublic, Boolean isPrivate, List<String> skills, List<String> interests) {
+        return new ProjectFilter(title, isPublic, isPrivate, skills, interests);
+    }
+
+    private static List<String> list(String... values) {
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    private static List<String> ids(List<Project> projects) {
+        List<String> ids = new ArrayList<>();
+        for (Project project : projects) {
+            ids.add(project.id);
+        }
+        return ids;
+    }
+}
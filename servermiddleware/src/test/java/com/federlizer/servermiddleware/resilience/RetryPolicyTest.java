@@ -0,0 +1,57 @@
+package com.federlizer.servermiddleware.resilience;
+
+import com.federlizer.servermiddleware.exceptions.HttpStatusException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+    @Test
+    public void onlyIdempotentMethods_areRetried() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0);
+        IOException failure = new IOException("connection reset");
+
+        assertTrue(policy.shouldRetry("GET", failure, 1));
+        assertTrue(policy.shouldRetry("PUT", failure, 1));
+        assertTrue(policy.shouldRetry("DELETE", failure, 1));
+        assertFalse(policy.shouldRetry("POST", failure, 1));
+    }
+
+    @Test
+    public void transientFailures_areNetworkAndServerErrors() {
+        assertTrue(RetryPolicy.isTransientFailure(new IOException()));
+        assertTrue(RetryPolicy.isTransientFailure(new SocketTimeoutException()));
+        assertTrue(RetryPolicy.isTransientFailure(new HttpStatusException("unavailable", 503)));
+
+        assertFalse(RetryPolicy.isTransientFailure(new HttpStatusException("not found", 404)));
+        assertFalse(RetryPolicy.isTransientFailure(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void attempts_areLimited() {
+        RetryPolicy policy = new RetryPolicy(3, 0, 0);
+        IOException failure = new IOException();
+
+        assertTrue(policy.shouldRetry("GET", failure, 2));
+        assertFalse(policy.shouldRetry("GET", failure, 3));
+        assertFalse(RetryPolicy.none().shouldRetry("GET", failure, 1));
+    }
+
+    @Test
+    public void backoff_growsAndIsCapped() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000);
+        for (int i = 0; i < 200; i++) {
+            long first = policy.backoffMillis(1);
+            assertTrue(first >= 0 && first < 100);
+            long third = policy.backoffMillis(3);
+            assertTrue(third >= 0 && third < 400);
+            long late = policy.backoffMillis(40);
+            assertTrue(late >= 0 && late < 1000);
+        }
+        assertEquals(0, RetryPolicy.none().backoffMillis(1));
+    }
+}